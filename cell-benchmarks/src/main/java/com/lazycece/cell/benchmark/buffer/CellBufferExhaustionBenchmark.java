@@ -0,0 +1,87 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.benchmark.buffer;
+
+import com.lazycece.cell.core.buffer.BufferWaitStrategy;
+import com.lazycece.cell.core.buffer.CellBufferManager;
+import com.lazycece.cell.core.configuration.BufferConfiguration;
+import com.lazycece.cell.core.infra.repository.InMemoryCellRegistryRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The latency of {@link CellBufferManager#getSequence(String)} while the segments are exhausted all the time,
+ * that's a small step and a slow refill, so the callers wait for the refills.
+ * <p>The sample mode reports the latency percentiles. Run with <code>-prof gc</code> to see the allocation rate.</p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CellBufferExhaustionBenchmark {
+
+    private static final String NAME = "test";
+
+    /**
+     * the latency of each refill (milliseconds)
+     */
+    @Param({"0", "1", "5"})
+    private long refillLatency;
+
+    @Param({"1000"})
+    private int step;
+
+    @Param({"SPIN_THEN_PARK", "BLOCKING"})
+    private BufferWaitStrategy waitStrategy;
+
+    private CellBufferManager manager;
+
+    @Setup
+    public void setup() {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register(NAME, 0, Long.MAX_VALUE, step);
+        repository.setLatency(refillLatency);
+        BufferConfiguration bufferConfiguration = new BufferConfiguration();
+        // keep the step small, it's never enlarged for the fast consumption
+        bufferConfiguration.setExpansionMinStep(step);
+        bufferConfiguration.setExpansionMaxStep(step);
+        bufferConfiguration.setWaitStrategy(waitStrategy);
+        bufferConfiguration.setWaitTimeout(10 * 1000L);
+        manager = new CellBufferManager();
+        manager.setBufferConfig(bufferConfiguration);
+        manager.setCellRegistryRepository(repository);
+        manager.afterPropertiesSet();
+        manager.initCache();
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.destroy();
+    }
+
+    @Benchmark
+    public long getSequence() {
+        return manager.getSequence(NAME);
+    }
+}
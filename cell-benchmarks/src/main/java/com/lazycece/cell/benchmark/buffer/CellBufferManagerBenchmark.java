@@ -0,0 +1,115 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.benchmark.buffer;
+
+import com.lazycece.cell.core.buffer.CellBufferManager;
+import com.lazycece.cell.core.configuration.BufferConfiguration;
+import com.lazycece.cell.core.infra.repository.InMemoryCellRegistryRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The throughput of {@link CellBufferManager#getSequence(String)} from 1 to 64 threads,
+ * on one cell or spread over many cells. The step is large, so the refills are rare.
+ * <p>Run with <code>-prof gc</code> to see the allocation rate.</p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellBufferManagerBenchmark {
+
+    /**
+     * the count of cells, each thread gets values from them in turn.
+     */
+    @Param({"1", "64"})
+    private int cells;
+
+    private String[] names;
+    private CellBufferManager manager;
+
+    @Setup
+    public void setup() {
+        names = new String[cells];
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository();
+        for (int i = 0; i < cells; i++) {
+            names[i] = "cell-" + i;
+            repository.register(names[i], 0, Long.MAX_VALUE, 1000000);
+        }
+        BufferConfiguration bufferConfiguration = new BufferConfiguration();
+        bufferConfiguration.setExpansionMinStep(1000000);
+        bufferConfiguration.setExpansionMaxStep(1000000);
+        manager = new CellBufferManager();
+        manager.setBufferConfig(bufferConfiguration);
+        manager.setCellRegistryRepository(repository);
+        manager.afterPropertiesSet();
+        manager.initCache();
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.destroy();
+    }
+
+    @State(Scope.Thread)
+    public static class CellCursor {
+
+        private String[] names;
+        private int index;
+
+        @Setup
+        public void setup(CellBufferManagerBenchmark benchmark) {
+            names = benchmark.names;
+        }
+
+        String next() {
+            String name = names[index];
+            index = index + 1 == names.length ? 0 : index + 1;
+            return name;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long getSequence1(CellCursor cursor) {
+        return manager.getSequence(cursor.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long getSequence4(CellCursor cursor) {
+        return manager.getSequence(cursor.next());
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long getSequence16(CellCursor cursor) {
+        return manager.getSequence(cursor.next());
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long getSequence64(CellCursor cursor) {
+        return manager.getSequence(cursor.next());
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+/**
+ * Cell JMH benchmarks.
+ * <p>Build with <code>mvn -pl cell-benchmarks -am package</code>, then run <code>java -jar cell-benchmarks/target/benchmarks.jar</code>.</p>
+ * <p>
+ * Add <code>-prof gc</code> to report the allocation rate alongside the time, and save the result with
+ * <code>-rf json -rff baseline.json</code> to compare it with the baseline before upgrading, e.g.
+ * <code>java -jar cell-benchmarks/target/benchmarks.jar CellBufferManagerBenchmark -prof gc -rf json -rff baseline.json</code>.
+ * </p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+package com.lazycece.cell.benchmark;
@@ -0,0 +1,109 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.benchmark.specification;
+
+import com.lazycece.cell.core.buffer.CellBufferManager;
+import com.lazycece.cell.core.configuration.BufferConfiguration;
+import com.lazycece.cell.core.infra.repository.InMemoryCellRegistryRepository;
+import com.lazycece.cell.specification.configuration.CellSpecConfiguration;
+import com.lazycece.cell.specification.impl.CellFacadeImpl;
+import com.lazycece.cell.specification.model.CellPattern;
+import com.lazycece.cell.specification.model.CellType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The end to end cell id generation of {@link CellFacadeImpl#generateId(CellType)}, with the in memory registry.
+ * <p>Run with <code>-prof gc</code> to see the allocation rate.</p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellFacadeBenchmark {
+
+    @Param({"DAY", "MINUTE"})
+    private CellPattern pattern;
+
+    private CellBufferManager manager;
+    private CellFacadeImpl cellFacade;
+
+    @Setup
+    public void setup() {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register(BenchmarkCellType.ORDER.getName(), 0, Integer.MAX_VALUE, 100000);
+        BufferConfiguration bufferConfiguration = new BufferConfiguration();
+        bufferConfiguration.setExpansionMinStep(100000);
+        bufferConfiguration.setExpansionMaxStep(100000);
+        manager = new CellBufferManager();
+        manager.setBufferConfig(bufferConfiguration);
+        manager.setCellRegistryRepository(repository);
+        manager.afterPropertiesSet();
+        manager.initCache();
+
+        CellSpecConfiguration configuration = new CellSpecConfiguration();
+        configuration.setPattern(pattern);
+        cellFacade = new CellFacadeImpl();
+        cellFacade.setConfiguration(configuration);
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.destroy();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String generateId() {
+        return cellFacade.generateId(BenchmarkCellType.ORDER);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateId4() {
+        return cellFacade.generateId(BenchmarkCellType.ORDER);
+    }
+
+    enum BenchmarkCellType implements CellType {
+
+        ORDER("order", "101");
+
+        private final String name;
+        private final String code;
+
+        BenchmarkCellType(String name, String code) {
+            this.name = name;
+            this.code = code;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getCode() {
+            return code;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.benchmark.specification;
+
+import com.lazycece.cell.specification.model.Cell;
+import com.lazycece.cell.specification.model.CellBuilder;
+import com.lazycece.cell.specification.model.CellPattern;
+import com.lazycece.cell.specification.model.CellSpec;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the cell id formatting of {@link CellSpec} with the legacy one.
+ * <p>Run with <code>-prof gc</code> to see the allocation rate.</p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellSpecBenchmark {
+
+    @Param({"DAY", "MINUTE"})
+    private CellPattern pattern;
+
+    /**
+     * small sequence is the worst case for the legacy zero padding.
+     */
+    @Param({"7", "1217589"})
+    private int sequence;
+
+    private Cell cell;
+    private LegacyCellSpec legacyCellSpec;
+
+    @Setup
+    public void setup() {
+        cell = CellBuilder.builder()
+                .pattern(pattern)
+                .code("101")
+                .date(new Date())
+                .dataCenter(2)
+                .machine(12)
+                .sequence(sequence)
+                .build();
+        legacyCellSpec = new LegacyCellSpec();
+    }
+
+    @Benchmark
+    public String legacyCellId() {
+        return legacyCellSpec.cellId(cell);
+    }
+
+    @Benchmark
+    public String cellId() {
+        return CellSpec.getInstance().cellId(cell);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import com.lazycece.cell.core.configuration.BufferConfiguration;
+
+/**
+ * The built-in step strategies.
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public enum BufferStepStrategy implements StepStrategy {
+
+    /**
+     * Size the step by the smoothed consumption rate, step = rate * max(expansion interval, refill lead time),
+     * bounded by [expansionMinStep, expansionMaxStep]. It's the default strategy.
+     * <p>
+     * The refill lead time is how long the segment should last to cover a slow refill that starts at the
+     * expansion threshold, that's p99 refill latency * safety factor / (1 - threshold).
+     * The last step is kept until the rate is measured.
+     * </p>
+     */
+    RATE {
+        @Override
+        public int nextStep(CellBuffer cellBuffer, BufferConfiguration bufferConfig) {
+            double rate = cellBuffer.getConsumptionRate().get();
+            if (rate <= 0) {
+                return cellBuffer.getLastStep();
+            }
+            double step = rate * Math.max(bufferConfig.getExpansionInterval(), refillLeadTime(cellBuffer, bufferConfig));
+            return (int) Math.max(bufferConfig.getExpansionMinStep(), Math.min(bufferConfig.getExpansionMaxStep(), step));
+        }
+    },
+
+    /**
+     * Double the step if the last segment was used up within the expansion interval,
+     * and halve it if that took over twice the interval.
+     */
+    DOUBLING {
+        @Override
+        public int nextStep(CellBuffer cellBuffer, BufferConfiguration bufferConfig) {
+            int minStep = bufferConfig.getExpansionMinStep();
+            int maxStep = bufferConfig.getExpansionMaxStep();
+            long bufferExpansionInterval = bufferConfig.getExpansionInterval();
+
+            int step = cellBuffer.getLastStep();
+            long interval = System.currentTimeMillis() - cellBuffer.getRefreshTimestamp();
+            if (interval < bufferExpansionInterval) {
+                step = step * 2 <= maxStep ? step * 2 : step;
+            } else if (interval >= 2 * bufferExpansionInterval) {
+                step = step / 2 >= minStep ? step / 2 : step;
+            }
+            return step;
+        }
+    };
+
+    /**
+     * Get the time the segment should last to cover a slow refill started at the expansion threshold.
+     *
+     * @param cellBuffer   ${@link CellBuffer}
+     * @param bufferConfig ${@link BufferConfiguration}
+     * @return lead time (milliseconds), 0 if the refill latency is not measured yet
+     */
+    static double refillLeadTime(CellBuffer cellBuffer, BufferConfiguration bufferConfig) {
+        long latency = cellBuffer.getRefillLatency().percentile(CellBufferManager.LATENCY_PERCENTILE);
+        if (latency < 0) {
+            return 0;
+        }
+        // the lowest threshold leaves the most values to the refill
+        double threshold = bufferConfig.isAdaptiveThreshold()
+                ? bufferConfig.getExpansionMinThreshold() : bufferConfig.getExpansionThreshold();
+        return Math.max(latency, 1) * bufferConfig.getLatencySafetyFactor() / Math.max(1 - threshold, 0.01);
+    }
+}
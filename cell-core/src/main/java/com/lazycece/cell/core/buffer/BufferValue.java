@@ -16,19 +16,59 @@
 
 package com.lazycece.cell.core.buffer;
 
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * One segment of cell values, range is [start, maxValue], and the value is the next one to hand out.
+ * <p>The watermark is the value whose issue triggers expansion of the next segment.</p>
+ *
  * @author lazycece
  * @date 2023/9/11
  */
-public record BufferValue(AtomicInteger value, int step, int maxValue) {
+public record BufferValue(AtomicLong value, long start, int step, long maxValue, long watermark) {
+
+    /**
+     * Create buffer value with the expansion watermark precomputed.
+     *
+     * @param value     segment start value
+     * @param step      segment size
+     * @param limit     the max value of the cell registry, segment never goes beyond it
+     * @param threshold expansion threshold
+     * @return see ${@link BufferValue}
+     */
+    public static BufferValue of(long value, int step, long limit, double threshold) {
+        long maxValue = Math.min(value + step - 1, limit);
+        long watermark = value + (long) (step * threshold);
+        return new BufferValue(new AtomicLong(value), value, step, maxValue, Math.min(watermark, maxValue));
+    }
 
-    public int getAndIncrement() {
+    public long getAndIncrement() {
         return value.getAndIncrement();
     }
 
-    public int currentValue() {
-        return value.intValue();
+    public long getAndAdd(long delta) {
+        return value.getAndAdd(delta);
+    }
+
+    public long currentValue() {
+        return value.longValue();
+    }
+
+    /**
+     * Get the count of values not handed out yet.
+     *
+     * @return remaining count
+     */
+    public long remaining() {
+        return Math.max(maxValue - value.longValue() + 1, 0);
+    }
+
+    /**
+     * Get the count of values handed out.
+     *
+     * @return issued count
+     */
+    public long issued() {
+        return Math.max(Math.min(value.longValue(), maxValue + 1) - start, 0);
     }
 }
@@ -0,0 +1,86 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The built-in wait strategies.
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public enum BufferWaitStrategy implements WaitStrategy {
+
+    /**
+     * Spin a short while, then park until the expansion completes. It's the default strategy.
+     */
+    SPIN_THEN_PARK {
+        @Override
+        public void waitFor(CellBuffer cellBuffer, BooleanSupplier condition, long deadline) {
+            for (int i = 0; i < MAX_SPIN; i++) {
+                if (condition.getAsBoolean()) {
+                    return;
+                }
+                Thread.onSpinWait();
+            }
+            park(cellBuffer, condition, deadline);
+        }
+    },
+
+    /**
+     * Yield the cpu until the condition is satisfied, it never parks.
+     */
+    YIELD {
+        @Override
+        public void waitFor(CellBuffer cellBuffer, BooleanSupplier condition, long deadline) {
+            while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+                Thread.yield();
+            }
+        }
+    },
+
+    /**
+     * Park at once until the expansion completes.
+     */
+    BLOCKING {
+        @Override
+        public void waitFor(CellBuffer cellBuffer, BooleanSupplier condition, long deadline) {
+            park(cellBuffer, condition, deadline);
+        }
+    };
+
+    private static final int MAX_SPIN = 100;
+
+    private static void park(CellBuffer cellBuffer, BooleanSupplier condition, long deadline) {
+        Thread thread = Thread.currentThread();
+        cellBuffer.addWaiter(thread);
+        try {
+            // check again after registered, the expansion may complete before
+            while (!condition.getAsBoolean()) {
+                long waitTime = deadline - System.nanoTime();
+                if (waitTime <= 0 || thread.isInterrupted()) {
+                    return;
+                }
+                LockSupport.parkNanos(cellBuffer, waitTime);
+            }
+        } finally {
+            cellBuffer.removeWaiter(thread);
+        }
+    }
+}
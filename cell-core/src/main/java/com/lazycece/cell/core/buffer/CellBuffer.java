@@ -18,34 +18,102 @@ package com.lazycece.cell.core.buffer;
 
 import com.lazycece.cell.core.model.CellRegistry;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
+ * The cell buffer, it holds the current segment and a ring of the prefetched segments.
+ * <p>
+ * The current segment is published through a single volatile reference and swapped by CAS
+ * when it runs out, so getting a value never takes a lock.
+ * </p>
+ * <p>
+ * The prefetched segments are kept up to the target depth, which grows with the consumption rate,
+ * so a burst drains the prefetched segments instead of waiting for the db.
+ * </p>
+ *
  * @author lazycece
  * @date 2023/9/12
  */
 public class CellBuffer {
+
+    private static final VarHandle CURRENT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            CURRENT = lookup.findVarHandle(CellBuffer.class, "current", BufferValue.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     /**
      * cell name
      */
-    private String name;
+    private volatile String name;
 
     /**
      * current value
      */
-    private final BufferValue[] bufferValues = new BufferValue[2];
+    private volatile BufferValue current;
+
+    /**
+     * the prefetched values in order, the head is the next one
+     */
+    private final Queue<BufferValue> prefetched = new ConcurrentLinkedQueue<>();
+
+    /**
+     * the count of prefetched values
+     */
+    private final AtomicInteger prefetchedCount = new AtomicInteger(0);
+
+    /**
+     * the count of prefetched values to keep, at least 1
+     */
+    private volatile int targetDepth = 1;
+
+    /**
+     * the count of values handed out by the exhausted values
+     */
+    private final AtomicLong exhaustedIssued = new AtomicLong(0);
 
     /**
-     * value info array  position pointer
+     * the issued count reported last time, to keep it monotonic
      */
-    private volatile int pointer = 0;
+    private final AtomicLong reportedIssued = new AtomicLong(0);
 
     /**
-     * show expansion value ready or not
+     * the step of the last filled value
      */
-    private volatile boolean nextReady = false;
+    private volatile int lastStep = 0;
+
+    /**
+     * the learned step saved to the registry, 0 if not saved
+     */
+    private volatile int persistedStep = 0;
+
+    /**
+     * the time the current value begins to be used (milliseconds)
+     */
+    private volatile long switchTimestamp = 0;
+
+    /**
+     * how long the last exhausted value was used (milliseconds), without the time waited for the next one, 0 if unknown
+     */
+    private volatile long segmentLifetime = 0;
+
+    /**
+     * the time the current value was found exhausted with no next value ready (milliseconds),
+     * it's not after the switch time if not found yet
+     */
+    private volatile long exhaustedTimestamp = 0;
 
     /**
      * indicates the buffer is expanding or not.
@@ -55,41 +123,159 @@ public class CellBuffer {
     /**
      * buffer refresh time (milliseconds)
      */
-    private long refreshTimestamp = 0;
+    private volatile long refreshTimestamp = 0;
+
+    /**
+     * the value seen by the last activity check
+     */
+    private long seenValue = -1;
+
+    /**
+     * the time the buffer was seen active last time (milliseconds)
+     */
+    private long activeTimestamp = System.currentTimeMillis();
+
+    /**
+     * the threads parked for the expansion
+     */
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * the callbacks run once when the expansion completes
+     */
+    private final Queue<Runnable> listeners = new ConcurrentLinkedQueue<>();
+
+    /**
+     * the thread local leases, null if the lease mode is disabled
+     */
+    private final SequenceLeases leases;
 
     /**
-     * cell buffer lock
+     * the smoothed consumption rate
      */
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ConsumptionRate consumptionRate;
+
+    /**
+     * the recent refill latencies
+     */
+    private final RefillLatency refillLatency = new RefillLatency();
+
+    /**
+     * the refill circuit breaker
+     */
+    private final RefillBreaker refillBreaker = new RefillBreaker();
+
+    public CellBuffer() {
+        this(0);
+    }
+
+    public CellBuffer(int leaseSize) {
+        this(leaseSize, 0.5);
+    }
+
+    /**
+     * Create cell buffer.
+     *
+     * @param leaseSize     the size of the thread local lease, the lease mode is disabled if not positive
+     * @param rateSmoothing the weight of the new sample of the consumption rate, in (0,1]
+     */
+    public CellBuffer(int leaseSize, double rateSmoothing) {
+        this(null, leaseSize, rateSmoothing);
+    }
+
+    /**
+     * Create cell buffer of the cell name, it's not filled yet.
+     *
+     * @param name          cell name
+     * @param leaseSize     the size of the thread local lease, the lease mode is disabled if not positive
+     * @param rateSmoothing the weight of the new sample of the consumption rate, in (0,1]
+     */
+    public CellBuffer(String name, int leaseSize, double rateSmoothing) {
+        this.name = name;
+        this.leases = leaseSize > 0 ? new SequenceLeases(leaseSize) : null;
+        this.consumptionRate = new ConsumptionRate(rateSmoothing);
+    }
 
     /**
      * Fill the buffer with cell registry information.
+     * <p>The first fill becomes the current value, the following ones are appended to the prefetched values.</p>
      *
      * @param cellRegistry ${@link CellRegistry}
+     * @param threshold    expansion threshold
      */
-    public void fillBuffer(CellRegistry cellRegistry) {
+    public void fillBuffer(CellRegistry cellRegistry, double threshold) {
         name = cellRegistry.getName();
-        int pos = refreshTimestamp == 0 ? pointer : nextPointer();
-        int maxValue = cellRegistry.getValue() + cellRegistry.getStep() - 1;
-        bufferValues[pos] = new BufferValue(new AtomicInteger(cellRegistry.getValue()), cellRegistry.getStep(), maxValue);
+        long limit = cellRegistry.getLongMaxValue() == null ? Long.MAX_VALUE : cellRegistry.getLongMaxValue();
+        BufferValue bufferValue = BufferValue.of(cellRegistry.getLongValue(), cellRegistry.getStep(), limit, threshold);
         refreshTimestamp = System.currentTimeMillis();
+        lastStep = bufferValue.step();
+        if (current == null) {
+            switchTimestamp = refreshTimestamp;
+            synchronized (this) {
+                // the loading itself is not an activity
+                seenValue = bufferValue.currentValue();
+                activeTimestamp = refreshTimestamp;
+            }
+            current = bufferValue;
+        } else {
+            prefetchedCount.incrementAndGet();
+            prefetched.add(bufferValue);
+        }
     }
 
     /**
      * Get need to expansion or not.
      *
-     * @param threshold expansion threshold
      * @return true or false
      */
-    public boolean needExpansion(double threshold) {
-        if (nextReady) {
+    public boolean needExpansion() {
+        if (isPrefetched()) {
             return false;
         }
-        BufferValue bufferValue = currentBufferValue();
-        int value = bufferValue.currentValue();
-        int step = bufferValue.step();
-        double percentage = value % step / (double) step;
-        return percentage >= threshold;
+        BufferValue bufferValue = current;
+        return bufferValue != null && bufferValue.currentValue() >= bufferValue.watermark();
+    }
+
+    /**
+     * Get the ratio of the remaining values to the step of current value, 0 means exhausted.
+     *
+     * @return remaining ratio
+     */
+    public double remainingRatio() {
+        BufferValue bufferValue = current;
+        return bufferValue == null ? 0 : (double) bufferValue.remaining() / bufferValue.step();
+    }
+
+    /**
+     * Get the count of values not handed out in the prefetched values.
+     *
+     * @return remaining count
+     */
+    public long prefetchedRemaining() {
+        BufferValue currentValue = current;
+        long remaining = 0;
+        for (BufferValue bufferValue : prefetched) {
+            if (bufferValue != currentValue) {
+                remaining += bufferValue.remaining();
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Get the count of values handed out since the buffer created, including the ones leased by the threads.
+     * <p>It's computed from the progress of the values, so getting a value doesn't pay for the counting.</p>
+     *
+     * @return issued count
+     */
+    public long getIssuedCount() {
+        // read the exhausted count first, the current value is switched before it's counted
+        long issued = exhaustedIssued.get();
+        BufferValue currentValue = current;
+        if (currentValue != null) {
+            issued += currentValue.issued();
+        }
+        return reportedIssued.accumulateAndGet(issued, Math::max);
     }
 
     /**
@@ -98,24 +284,128 @@ public class CellBuffer {
      * @return see ${@link BufferValue}
      */
     public BufferValue currentBufferValue() {
-        return bufferValues[pointer];
+        return current;
     }
 
     /**
-     * Reset buffer value.
+     * Switch the exhausted current value to the next prefetched value.
+     * <p>
+     * The consumption rate is sampled with the real size of the exhausted value, which may be clamped by the max value,
+     * and the time it was in use, the time the callers waited for the next value is left out.
+     * </p>
+     *
+     * @param exhausted the exhausted buffer value
+     * @return true if the current value has been switched (by this or another thread), otherwise false
      */
-    public void reset() {
-        pointer = nextPointer();
-        setNextReady(false);
+    public boolean switchToNext(BufferValue exhausted) {
+        while (true) {
+            // read the time before the check, so a late mark is never after the switch
+            long checkTime = System.currentTimeMillis();
+            BufferValue currentValue = current;
+            if (currentValue != exhausted) {
+                return true;
+            }
+            BufferValue nextValue = prefetched.peek();
+            if (nextValue == null) {
+                if (exhaustedTimestamp <= switchTimestamp) {
+                    exhaustedTimestamp = checkTime;
+                }
+                return false;
+            }
+            if (nextValue == currentValue) {
+                // switched by another thread, but not removed from the prefetched values yet
+                removePrefetched(nextValue);
+                continue;
+            }
+            if (CURRENT.compareAndSet(this, exhausted, nextValue)) {
+                removePrefetched(nextValue);
+                exhaustedIssued.addAndGet(exhausted.issued());
+                long now = System.currentTimeMillis();
+                long lastSwitchTimestamp = switchTimestamp;
+                long exhaustedTime = exhaustedTimestamp;
+                // a mark not after the last switch was left by the value before
+                long endTime = exhaustedTime > lastSwitchTimestamp ? exhaustedTime : now;
+                segmentLifetime = endTime - lastSwitchTimestamp;
+                switchTimestamp = now;
+                consumptionRate.sample(exhausted.maxValue() - exhausted.start() + 1, segmentLifetime);
+                return true;
+            }
+        }
+    }
+
+    private void removePrefetched(BufferValue bufferValue) {
+        if (prefetched.remove(bufferValue)) {
+            prefetchedCount.decrementAndGet();
+        }
     }
 
     /**
-     * Get next pointer value.
+     * Check the buffer is active or not since the last check, by the progress of the current value.
+     * <p>It doesn't cost the sequence getting, the values handed out from the thread local leases are not seen.</p>
      *
-     * @return pointer value
+     * @param now current time (milliseconds)
+     * @return the time the buffer was seen active last time (milliseconds)
      */
-    private int nextPointer() {
-        return (pointer + 1) % 2;
+    public synchronized long checkActivity(long now) {
+        checkActive(now);
+        return activeTimestamp;
+    }
+
+    /**
+     * Check the buffer is active or not since the last check, same as ${@link #checkActivity(long)}.
+     *
+     * @param now current time (milliseconds)
+     * @return true if the current value progressed since the last check
+     */
+    public synchronized boolean checkActive(long now) {
+        BufferValue currentValue = current;
+        long value = currentValue == null ? -1 : currentValue.currentValue();
+        if (value == seenValue) {
+            return false;
+        }
+        seenValue = value;
+        activeTimestamp = now;
+        return true;
+    }
+
+    /**
+     * Register the thread to be unparked when the expansion completes.
+     *
+     * @param thread waiting thread
+     */
+    public void addWaiter(Thread thread) {
+        waiters.add(thread);
+    }
+
+    public void removeWaiter(Thread thread) {
+        waiters.remove(thread);
+    }
+
+    /**
+     * Register the callback to run once when the expansion completes.
+     *
+     * @param listener callback
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Unpark all the waiting threads, they remove themselves when stop waiting.
+     * And then run the registered callbacks in the current thread.
+     */
+    public void signalWaiters() {
+        for (Thread waiter : waiters) {
+            LockSupport.unpark(waiter);
+        }
+        Runnable listener;
+        while ((listener = listeners.poll()) != null) {
+            listener.run();
+        }
     }
 
     public String getName() {
@@ -127,18 +417,64 @@ public class CellBuffer {
     }
 
     public boolean isNextReady() {
-        return nextReady;
+        BufferValue nextValue = prefetched.peek();
+        return nextValue != null && nextValue != current;
+    }
+
+    /**
+     * Get the prefetched values reach the target depth or not.
+     *
+     * @return true or false
+     */
+    public boolean isPrefetched() {
+        return prefetchedCount.get() >= targetDepth && isNextReady();
+    }
+
+    public int getPrefetchedCount() {
+        return prefetchedCount.get();
+    }
+
+    public int getTargetDepth() {
+        return targetDepth;
+    }
+
+    public void setTargetDepth(int targetDepth) {
+        this.targetDepth = Math.max(targetDepth, 1);
+    }
+
+    public int getLastStep() {
+        return lastStep;
+    }
+
+    public int getPersistedStep() {
+        return persistedStep;
+    }
+
+    public void setPersistedStep(int persistedStep) {
+        this.persistedStep = persistedStep;
+    }
+
+    public ConsumptionRate getConsumptionRate() {
+        return consumptionRate;
+    }
+
+    public RefillLatency getRefillLatency() {
+        return refillLatency;
+    }
+
+    public RefillBreaker getRefillBreaker() {
+        return refillBreaker;
     }
 
-    public void setNextReady(boolean nextReady) {
-        this.nextReady = nextReady;
+    public long getSegmentLifetime() {
+        return segmentLifetime;
     }
 
     public AtomicBoolean getExpanding() {
         return expanding;
     }
 
-    public ReentrantReadWriteLock getLock() {
-        return lock;
+    SequenceLeases getLeases() {
+        return leases;
     }
-}
\ No newline at end of file
+}
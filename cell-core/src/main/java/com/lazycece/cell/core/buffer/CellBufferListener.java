@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+/**
+ * The listener of the cell buffer events, registered by ${@link CellBufferManager#addBufferListener(CellBufferListener)}.
+ * <p>
+ * The events are fired out of the sequence getting path, that's loading, eviction, refill and waiting,
+ * so a listener never costs the callers getting values from the buffer. The listener should be fast,
+ * it runs in the refresher thread or the waiting caller thread.
+ * </p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public interface CellBufferListener {
+
+    /**
+     * The cell buffer is loaded and becomes resident.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     */
+    default void onLoaded(CellBuffer cellBuffer) {
+    }
+
+    /**
+     * The cell buffer is evicted.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     */
+    default void onEvicted(CellBuffer cellBuffer) {
+    }
+
+    /**
+     * The cell buffer is refilled with a new segment.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @param step       the step of the new segment
+     * @param latency    the db latency of the refill (milliseconds)
+     */
+    default void onRefilled(CellBuffer cellBuffer, int step, long latency) {
+    }
+
+    /**
+     * The refill of the cell buffer fails.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @param e          the failure
+     */
+    default void onRefillFailed(CellBuffer cellBuffer, Exception e) {
+    }
+
+    /**
+     * A caller waited for the refill of the exhausted cell buffer.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @param waitTime   wait time (nanoseconds)
+     * @param timeout    the caller timeout or not
+     */
+    default void onWaited(CellBuffer cellBuffer, long waitTime, boolean timeout) {
+    }
+}
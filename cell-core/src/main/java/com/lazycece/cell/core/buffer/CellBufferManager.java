@@ -18,32 +18,62 @@ package com.lazycece.cell.core.buffer;
 
 import com.lazycece.cell.core.configuration.BufferConfiguration;
 import com.lazycece.cell.core.exception.CellAssert;
+import com.lazycece.cell.core.exception.CellException;
 import com.lazycece.cell.core.exception.CellTimeoutException;
+import com.lazycece.cell.core.exception.CellUnavailableException;
 import com.lazycece.cell.core.infra.repository.CellRegistryRepository;
 import com.lazycece.cell.core.model.CellRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.*;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * @author lazycece
  * @date 2023/9/9
  */
 @Component
-public class CellBufferManager implements InitializingBean {
+public class CellBufferManager implements InitializingBean, DisposableBean {
+
+    /**
+     * max time to wait for the running refills while shutdown (milliseconds)
+     */
+    private static final long SHUTDOWN_TIMEOUT = 10 * 1000L;
+
+    /**
+     * the percentile of the refill latency to prepare for
+     */
+    static final double LATENCY_PERCENTILE = 0.99;
 
     private final Logger log = LoggerFactory.getLogger(CellBufferManager.class);
     private static CellBufferManager INSTANCE;
     private final ConcurrentHashMap<String/*name*/, CellBuffer> CACHE_MAP = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String/*name*/, CompletableFuture<CellBuffer>> LOADING_MAP = new ConcurrentHashMap<>();
+    /**
+     * the resident cell buffers of the lazy loading mode in access order, the head is the least recently used
+     */
+    private final LinkedHashMap<String/*name*/, CellBuffer> accessOrder = new LinkedHashMap<>(16, 0.75f, true);
     private BufferConfiguration bufferConfig = new BufferConfiguration();
     private volatile boolean ready = false;
     private ExecutorService executorService;
+    private Executor refreshExecutor;
+    private CellBufferRefresher refresher;
+    private ScheduledExecutorService evictor;
+    private final List<CellBufferListener> bufferListeners = new CopyOnWriteArrayList<>();
     @Autowired
     private CellRegistryRepository cellRegistryRepository;
 
@@ -53,15 +83,73 @@ public class CellBufferManager implements InitializingBean {
      */
     @Override
     public void afterPropertiesSet() {
-        executorService = new ThreadPoolExecutor(
-                bufferConfig.getThreadPoolCoreSize(),
-                bufferConfig.getThreadPoolMaxSize(),
+        Executor executor = bufferConfig.getRefreshExecutor();
+        if (executor == null) {
+            executorService = createRefreshExecutor();
+            executor = executorService;
+        }
+        refreshExecutor = executor;
+        refresher = new CellBufferRefresher(executor, bufferConfig.getRefreshConcurrency(), bufferConfig.getRefreshCoalesceWindow(),
+                bufferConfig.getRefreshCoalesceMaxBatch(), this::refresh, this::discard);
+        if (bufferConfig.isLazyLoading() && bufferConfig.getIdleTimeout() > 0) {
+            long period = Math.max(bufferConfig.getIdleTimeout() / 2, 1);
+            evictor = Executors.newSingleThreadScheduledExecutor(new BufferThreadFactory("CellBufferEvictor", true));
+            evictor.scheduleWithFixedDelay(() -> {
+                try {
+                    evictIdleBuffers(System.currentTimeMillis());
+                } catch (Exception e) {
+                    log.warn("Evict idle cell buffers fail.", e);
+                }
+            }, period, period, TimeUnit.MILLISECONDS);
+        }
+        INSTANCE = this;
+    }
+
+    /**
+     * Cell buffer manager shutdown, the pending refills are discarded and the running ones are waited.
+     */
+    @Override
+    public void destroy() {
+        log.info("Begin to shutdown Cell Buffer Manager.");
+        ready = false;
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        if (!refresher.close(SHUTDOWN_TIMEOUT)) {
+            log.warn("Cell buffer refills not finished in {}ms while shutdown.", SHUTDOWN_TIMEOUT);
+        }
+        if (bufferConfig.isPersistLearnedStep()) {
+            CACHE_MAP.values().forEach(cellBuffer -> saveLearnedStep(cellBuffer, true));
+        }
+        if (executorService != null) {
+            executorService.shutdown();
+        }
+        log.info("Finish shutdown Cell Buffer Manager.");
+    }
+
+    /**
+     * Create the executor of the refresher, virtual threads are used if configured and supported.
+     *
+     * @return executor
+     */
+    private ExecutorService createRefreshExecutor() {
+        if (bufferConfig.isRefreshVirtualThreads()) {
+            try {
+                // virtual threads are available since java 21
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Virtual threads are not supported by current jvm, use platform threads for cell buffer refresher.");
+            }
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                bufferConfig.getRefreshConcurrency(),
+                bufferConfig.getRefreshConcurrency(),
                 bufferConfig.getThreadPoolKeepAliveTime(),
                 TimeUnit.SECONDS,
-                new SynchronousQueue<>(),
-                new BufferThreadFactory("CellBufferRefresher"),
-                new ThreadPoolExecutor.AbortPolicy());
-        INSTANCE = this;
+                new LinkedBlockingQueue<>(),
+                new BufferThreadFactory("CellBufferRefresher", true));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     /**
@@ -75,27 +163,418 @@ public class CellBufferManager implements InitializingBean {
 
     /**
      * initialize cell buffer cache.
+     * <p>The cells are filled by batches, and the batches run in parallel up to the refresh concurrency.</p>
      */
     public synchronized void initCache() {
         if (ready) {
             log.info("Cell Buffer Manager has already been initialized.");
             return;
         }
+        if (bufferConfig.isLazyLoading()) {
+            ready = true;
+            log.info("Finish init Cell Buffer Manager, the cell buffers are loaded on the first use.");
+            return;
+        }
         log.info("Begin to init Cell Buffer Manager.");
+        long startTime = System.currentTimeMillis();
 
         List<String> cellNameList = cellRegistryRepository.queryAllName();
         CellAssert.notEmpty(cellNameList, "Init cell buffer manager fail, no cell registry information.");
+        long queryTime = System.currentTimeMillis();
 
-        cellNameList.forEach(name -> {
-            CellRegistry cellRegistry = cellRegistryRepository.updateValueAndGet(name);
-            CellAssert.notNull(cellRegistry, "Cell registry (%s) not exist", name);
-            CellBuffer cellBuffer = new CellBuffer();
-            cellBuffer.fillBuffer(cellRegistry);
-            CACHE_MAP.put(name, cellBuffer);
+        Map<String/*name*/, CellBuffer> bufferMap = new HashMap<>();
+        cellNameList.forEach(name -> bufferMap.put(name, newCellBuffer(name)));
+
+        Map<String/*name*/, Integer> learnedSteps = new ConcurrentHashMap<>();
+        if (bufferConfig.isPersistLearnedStep()) {
+            runInBatches(cellNameList, names -> cellRegistryRepository.queryLearnedSteps(names).forEach(learned -> {
+                Integer learnedStep = loadLearnedStep(learned, bufferMap.get(learned.getName()));
+                if (learnedStep != null) {
+                    learnedSteps.put(learned.getName(), learnedStep);
+                }
+            }));
+        }
+        long learnTime = System.currentTimeMillis();
+
+        runInBatches(cellNameList, names -> {
+            Map<String/*name*/, Integer> steps = new HashMap<>();
+            names.forEach(name -> steps.put(name, learnedSteps.get(name)));
+            Map<String/*name*/, CellRegistry> cellRegistryMap = new HashMap<>();
+            cellRegistryRepository.updateValuesAndGet(steps).forEach(cellRegistry -> cellRegistryMap.put(cellRegistry.getName(), cellRegistry));
+            names.forEach(name -> {
+                CellRegistry cellRegistry = cellRegistryMap.get(name);
+                CellAssert.notNull(cellRegistry, "Cell registry (%s) not exist", name);
+                if (steps.get(name) != null) {
+                    cellRegistry.setStep(steps.get(name));
+                }
+                bufferMap.get(name).fillBuffer(cellRegistry, bufferConfig.getExpansionThreshold());
+            });
         });
+        CACHE_MAP.putAll(bufferMap);
+        bufferMap.values().forEach(cellBuffer -> fireEvent(listener -> listener.onLoaded(cellBuffer)));
+        long fillTime = System.currentTimeMillis();
 
         ready = true;
-        log.info("Finish init Cell Buffer Manager.");
+        log.info("Finish init Cell Buffer Manager, cells={}, queryNames={}ms, loadLearnedSteps={}ms, fillBuffers={}ms, total={}ms",
+                cellNameList.size(), queryTime - startTime, learnTime - queryTime, fillTime - learnTime, fillTime - startTime);
+    }
+
+    /**
+     * Run the task by batches of cell names, the batches run in parallel up to the refresh concurrency.
+     * <p>The caller thread runs batches too, and the first failure is thrown after all workers finished.</p>
+     *
+     * @param cellNameList cell names
+     * @param task         the task of one batch
+     */
+    private void runInBatches(List<String> cellNameList, Consumer<List<String>> task) {
+        Queue<List<String>> batches = new ConcurrentLinkedQueue<>();
+        int batchSize = bufferConfig.getInitBatchSize();
+        for (int i = 0; i < cellNameList.size(); i += batchSize) {
+            batches.add(cellNameList.subList(i, Math.min(cellNameList.size(), i + batchSize)));
+        }
+        Runnable worker = () -> {
+            List<String> batch;
+            while ((batch = batches.poll()) != null) {
+                try {
+                    task.accept(batch);
+                } catch (RuntimeException e) {
+                    // stop the other workers, it's failed anyway
+                    batches.clear();
+                    throw e;
+                }
+            }
+        };
+        int workers = Math.min(bufferConfig.getRefreshConcurrency(), batches.size());
+        CompletableFuture<?>[] futures = new CompletableFuture[workers];
+        for (int i = 0; i < workers - 1; i++) {
+            try {
+                futures[i] = CompletableFuture.runAsync(worker, refreshExecutor);
+            } catch (RejectedExecutionException e) {
+                futures[i] = CompletableFuture.completedFuture(null);
+            }
+        }
+        futures[workers - 1] = CompletableFuture.runAsync(worker, Runnable::run);
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private CellBuffer newCellBuffer(String name) {
+        int leaseSize = bufferConfig.getLeaseNames().contains(name) ? bufferConfig.getLeaseSize() : 0;
+        return new CellBuffer(name, leaseSize, bufferConfig.getRateSmoothing());
+    }
+
+    /**
+     * Get the cell buffer, it's loaded if absent in the lazy loading mode.
+     *
+     * @param name cell name
+     * @return see ${@link CellBuffer}
+     */
+    private CellBuffer getCellBuffer(String name) {
+        CellBuffer cellBuffer = CACHE_MAP.get(name);
+        if (cellBuffer == null && bufferConfig.isLazyLoading()) {
+            return awaitLoading(name, loadCellBuffer(name));
+        }
+        CellAssert.notNull(cellBuffer, "cell (%s) buffer is null.", name);
+        return cellBuffer;
+    }
+
+    /**
+     * Load the cell buffer in the refresher, so the registry update never joins the transaction of the caller
+     * and the loads are bounded by the refresh concurrency. Only one load of the same cell runs at the same time,
+     * the others share the future of it.
+     *
+     * @param name cell name
+     * @return the future of ${@link CellBuffer}
+     */
+    private CompletableFuture<CellBuffer> loadCellBuffer(String name) {
+        CompletableFuture<CellBuffer> loading = LOADING_MAP.get(name);
+        if (loading != null) {
+            return loading;
+        }
+        CompletableFuture<CellBuffer> created = new CompletableFuture<>();
+        loading = LOADING_MAP.putIfAbsent(name, created);
+        if (loading != null) {
+            return loading;
+        }
+        // it may be loaded just before
+        CellBuffer cellBuffer = CACHE_MAP.get(name);
+        if (cellBuffer != null) {
+            LOADING_MAP.remove(name, created);
+            created.complete(cellBuffer);
+            return created;
+        }
+        cellBuffer = newCellBuffer(name);
+        cellBuffer.getExpanding().set(true);
+        if (!refresher.submit(cellBuffer)) {
+            LOADING_MAP.remove(name, created);
+            created.completeExceptionally(new CellException(String.format("Load cell (%s) buffer rejected, the refresher is closed.", name)));
+        }
+        return created;
+    }
+
+    /**
+     * Load the cell buffer submitted by ${@link #loadCellBuffer(String)}, in the refresher.
+     *
+     * @param cellBuffer the ${@link CellBuffer} not filled yet
+     */
+    private void load(CellBuffer cellBuffer) {
+        String name = cellBuffer.getName();
+        CompletableFuture<CellBuffer> loading = LOADING_MAP.get(name);
+        RuntimeException failure = null;
+        try {
+            fillCellBuffer(cellBuffer);
+            evictIfFull();
+            CACHE_MAP.put(name, cellBuffer);
+            synchronized (accessOrder) {
+                accessOrder.put(name, cellBuffer);
+            }
+            fireEvent(listener -> listener.onLoaded(cellBuffer));
+            log.info("Load cell buffer ({}) completed, resident={}", name, CACHE_MAP.size());
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            cellBuffer.getExpanding().set(false);
+        }
+        if (loading == null) {
+            return;
+        }
+        // removed before completed, so a later load never gets the buffer evicted in the meantime
+        LOADING_MAP.remove(name, loading);
+        if (failure == null) {
+            loading.complete(cellBuffer);
+        } else {
+            loading.completeExceptionally(failure);
+        }
+    }
+
+    private CellBuffer awaitLoading(String name, CompletableFuture<CellBuffer> loading) {
+        long waitTimeout = bufferConfig.getWaitTimeout();
+        try {
+            return loading.get(waitTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            TimeoutEvent.commit(name, waitTimeout);
+            throw new CellTimeoutException(String.format("Load cell (%s) buffer timeout(%sms)", name, waitTimeout));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CellException(String.format("Load cell (%s) buffer fail", name), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CellException(String.format("Load cell (%s) buffer interrupted", name), e);
+        }
+    }
+
+    /**
+     * Chain on the loading future without blocking, it completes exceptionally with ${@link CellTimeoutException}
+     * if the load is not done within the wait timeout.
+     *
+     * @param name    cell name
+     * @param loading the future of ${@link CellBuffer}
+     * @return the future of ${@link CellBuffer}
+     */
+    private CompletableFuture<CellBuffer> withLoadingTimeout(String name, CompletableFuture<CellBuffer> loading) {
+        if (loading.isDone()) {
+            return loading;
+        }
+        CompletableFuture<CellBuffer> future = new CompletableFuture<>();
+        loading.whenComplete((cellBuffer, e) -> {
+            if (e != null) {
+                future.completeExceptionally(e);
+            } else {
+                future.complete(cellBuffer);
+            }
+        });
+        long waitTimeout = bufferConfig.getWaitTimeout();
+        CompletableFuture.delayedExecutor(waitTimeout, TimeUnit.MILLISECONDS).execute(() -> {
+            if (future.completeExceptionally(new CellTimeoutException(String.format("Load cell (%s) buffer timeout(%sms)", name, waitTimeout)))) {
+                TimeoutEvent.commit(name, waitTimeout);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Fill the cell buffer, start at the learned step if any.
+     *
+     * @param cellBuffer the ${@link CellBuffer} not filled yet
+     */
+    private void fillCellBuffer(CellBuffer cellBuffer) {
+        String name = cellBuffer.getName();
+        Integer learnedStep = null;
+        if (bufferConfig.isPersistLearnedStep()) {
+            for (CellRegistry learned : cellRegistryRepository.queryLearnedSteps(List.of(name))) {
+                learnedStep = loadLearnedStep(learned, cellBuffer);
+            }
+        }
+        CellRegistry cellRegistry = learnedStep == null
+                ? cellRegistryRepository.updateValueAndGet(name)
+                : cellRegistryRepository.updateValueAndGet(name, learnedStep);
+        CellAssert.notNull(cellRegistry, "Cell registry (%s) not exist", name);
+        if (learnedStep != null) {
+            cellRegistry.setStep(learnedStep);
+        }
+        cellBuffer.fillBuffer(cellRegistry, bufferConfig.getExpansionThreshold());
+    }
+
+    /**
+     * Evict the least recently used cell buffers until there is room for a new one.
+     * <p>
+     * The buffers are kept in the order they were loaded or refilled, the head one seen active since the last
+     * check gets a second chance at the tail, so a load doesn't scan all the resident buffers.
+     * </p>
+     */
+    private void evictIfFull() {
+        long now = System.currentTimeMillis();
+        while (CACHE_MAP.size() >= bufferConfig.getMaxResidentBuffers()) {
+            CellBuffer leastRecentlyUsed;
+            synchronized (accessOrder) {
+                leastRecentlyUsed = leastRecentlyUsed(now);
+            }
+            if (leastRecentlyUsed == null) {
+                return;
+            }
+            evict(leastRecentlyUsed, false);
+        }
+    }
+
+    private CellBuffer leastRecentlyUsed(long now) {
+        for (int chances = accessOrder.size(); chances > 0; chances--) {
+            Map.Entry<String, CellBuffer> head = accessOrder.entrySet().iterator().next();
+            if (!head.getValue().checkActive(now)) {
+                return head.getValue();
+            }
+            // move to the tail
+            accessOrder.get(head.getKey());
+        }
+        return accessOrder.isEmpty() ? null : accessOrder.values().iterator().next();
+    }
+
+    /**
+     * Move the cell buffer to the tail of the access order, as it's refilled.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     */
+    private void touch(CellBuffer cellBuffer) {
+        if (bufferConfig.isLazyLoading()) {
+            synchronized (accessOrder) {
+                accessOrder.get(cellBuffer.getName());
+            }
+        }
+    }
+
+    /**
+     * Evict the cell buffers idle longer than the idle timeout.
+     *
+     * @param now current time (milliseconds)
+     */
+    void evictIdleBuffers(long now) {
+        long idleTimeout = bufferConfig.getIdleTimeout();
+        for (CellBuffer cellBuffer : CACHE_MAP.values()) {
+            if (now - cellBuffer.checkActivity(now) >= idleTimeout) {
+                evict(cellBuffer, true);
+            }
+        }
+    }
+
+    /**
+     * Evict the cell buffer, the threads using it keep getting values from it until it's exhausted.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @param idle       evicted for idle or not, the learned step is saved with the consumption rate if idle
+     */
+    private void evict(CellBuffer cellBuffer, boolean idle) {
+        if (!CACHE_MAP.remove(cellBuffer.getName(), cellBuffer)) {
+            return;
+        }
+        synchronized (accessOrder) {
+            accessOrder.remove(cellBuffer.getName(), cellBuffer);
+        }
+        if (bufferConfig.isPersistLearnedStep()) {
+            saveLearnedStep(cellBuffer, idle);
+        }
+        fireEvent(listener -> listener.onEvicted(cellBuffer));
+        log.info("Evict cell buffer ({}) completed, idle={}, resident={}", cellBuffer.getName(), idle, CACHE_MAP.size());
+    }
+
+    /**
+     * Get the count of the resident cell buffers.
+     *
+     * @return count
+     */
+    public int getResidentBufferCount() {
+        return CACHE_MAP.size();
+    }
+
+    /**
+     * Get the resident cell buffers.
+     *
+     * @return the read only view of the cell buffers
+     */
+    public Collection<CellBuffer> getCellBuffers() {
+        return Collections.unmodifiableCollection(CACHE_MAP.values());
+    }
+
+    public CellBufferRefresher getRefresher() {
+        return refresher;
+    }
+
+    public Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    /**
+     * Add the listener of the cell buffer events.
+     *
+     * @param listener ${@link CellBufferListener}
+     */
+    public void addBufferListener(CellBufferListener listener) {
+        bufferListeners.add(listener);
+    }
+
+    public void removeBufferListener(CellBufferListener listener) {
+        bufferListeners.remove(listener);
+    }
+
+    /**
+     * Fire the cell buffer event to the listeners, the failure of a listener doesn't affect the others.
+     *
+     * @param event the event
+     */
+    private void fireEvent(Consumer<CellBufferListener> event) {
+        for (CellBufferListener listener : bufferListeners) {
+            try {
+                event.accept(listener);
+            } catch (Exception e) {
+                log.warn("Cell buffer listener ({}) fail.", listener.getClass().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Load the learned step of the cell, and seed the consumption rate with the learned one.
+     *
+     * @param learned    the learned step and consumption rate, see ${@link CellRegistry}
+     * @param cellBuffer ${@link CellBuffer}
+     * @return the learned step bounded by [expansionMinStep, expansionMaxStep], null if not learned yet
+     */
+    private Integer loadLearnedStep(CellRegistry learned, CellBuffer cellBuffer) {
+        if (learned.getLearnedStep() == null || learned.getLearnedStep() <= 0) {
+            return null;
+        }
+        if (learned.getConsumptionRate() != null) {
+            cellBuffer.getConsumptionRate().seed(learned.getConsumptionRate() / 1000);
+        }
+        cellBuffer.setPersistedStep(learned.getLearnedStep());
+        int step = Math.max(bufferConfig.getExpansionMinStep(), Math.min(bufferConfig.getExpansionMaxStep(), learned.getLearnedStep()));
+        log.info("Cell buffer ({}) starts at the learned step, step={}, rate={}/s", learned.getName(), step, learned.getConsumptionRate());
+        return step;
     }
 
     /**
@@ -103,15 +582,138 @@ public class CellBufferManager implements InitializingBean {
      *
      * @param name cell name
      * @return value
+     * @see #getLongSequence(String)
      */
     public int getSequence(String name) {
+        return toIntSequence(name, getLongSequence(name));
+    }
+
+    /**
+     * Get cell sequence value, for the cell registry with the BIGINT value columns.
+     *
+     * @param name cell name
+     * @return value
+     */
+    public long getLongSequence(String name) {
         CellAssert.isTrue(ready, "Cell Buffer Manager is not ready yet.");
 
+        CellBuffer cellBuffer = getCellBuffer(name);
+
+        if (cellBuffer.getLeases() != null) {
+            return getLeasedSequence(cellBuffer, cellBuffer.getLeases());
+        }
+        return getSequenceAndExpandIfNeed(cellBuffer);
+
+    }
+
+    /**
+     * Get cell sequence value asynchronously, the calling thread is never parked.
+     * <p>
+     * The future completes at once if the buffer has values, otherwise it completes in the refresher
+     * thread once the expansion is done, so the heavy dependent actions should run with an executor.
+     * It completes exceptionally with ${@link CellTimeoutException} if no value got within the wait timeout.
+     * </p>
+     *
+     * @param name cell name
+     * @return the future of value
+     */
+    public CompletableFuture<Long> getSequenceAsync(String name) {
+        CellAssert.isTrue(ready, "Cell Buffer Manager is not ready yet.");
+
+        CellBuffer cellBuffer = CACHE_MAP.get(name);
+        if (cellBuffer == null && bufferConfig.isLazyLoading()) {
+            return withLoadingTimeout(name, loadCellBuffer(name)).thenCompose(this::getSequenceAsync);
+        }
+        CellAssert.notNull(cellBuffer, "cell (%s) buffer is null.", name);
+        return getSequenceAsync(cellBuffer);
+    }
+
+    /**
+     * Get cell sequence value asynchronously, with the wait timeout.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @return the future of value
+     */
+    private CompletableFuture<Long> getSequenceAsync(CellBuffer cellBuffer) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        getSequenceAsync(cellBuffer, future);
+        if (!future.isDone()) {
+            long startTime = System.nanoTime();
+            future.whenComplete((value, e) -> fireEvent(listener ->
+                    listener.onWaited(cellBuffer, System.nanoTime() - startTime, e instanceof CellTimeoutException)));
+            long waitTimeout = bufferConfig.getWaitTimeout();
+            CompletableFuture.delayedExecutor(waitTimeout, TimeUnit.MILLISECONDS).execute(() -> {
+                if (future.completeExceptionally(new CellTimeoutException(String.format("Get sequence timeout(%sms)", waitTimeout)))) {
+                    TimeoutEvent.commit(cellBuffer.getName(), waitTimeout);
+                    log.warn("Get cell sequence asynchronously timeout ({}ms)", waitTimeout);
+                }
+            });
+        }
+        return future;
+    }
+
+    /**
+     * Get the count of values leased by the threads but not handed out yet.
+     *
+     * @param name cell name
+     * @return leftover count, 0 if the lease mode of the cell is disabled, -1 if the buffer is not loaded
+     */
+    public long getLeaseLeftover(String name) {
         CellBuffer cellBuffer = CACHE_MAP.get(name);
+        if (cellBuffer == null && bufferConfig.isLazyLoading()) {
+            return -1;
+        }
         CellAssert.notNull(cellBuffer, "cell (%s) buffer is null.", name);
+        return cellBuffer.getLeases() == null ? 0 : cellBuffer.getLeases().leftover();
+    }
 
-        return getSequenceAndExpandIfNeed(cellBuffer);
+    /**
+     * Get a batch of cell sequence values.
+     * <p>The values are reserved from the current buffer value as a contiguous run,
+     * and split across the next buffer value if the current one is not enough.</p>
+     *
+     * @param name  cell name
+     * @param count the count of values
+     * @return values
+     * @see #getLongSequences(String, int)
+     */
+    public int[] getSequences(String name, int count) {
+        long[] values = getLongSequences(name, count);
+        int[] sequences = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            sequences[i] = toIntSequence(name, values[i]);
+        }
+        return sequences;
+    }
 
+    /**
+     * Get a batch of cell sequence values, for the cell registry with the BIGINT value columns.
+     *
+     * @param name  cell name
+     * @param count the count of values
+     * @return values
+     * @see #getSequences(String, int)
+     */
+    public long[] getLongSequences(String name, int count) {
+        CellAssert.isTrue(ready, "Cell Buffer Manager is not ready yet.");
+        CellAssert.isTrue(count > 0, "The count (%s) of sequences must be positive.", count);
+
+        CellBuffer cellBuffer = getCellBuffer(name);
+
+        return getSequencesAndExpandIfNeed(cellBuffer, count);
+    }
+
+    /**
+     * Narrow the sequence value for the int API.
+     *
+     * @param name  cell name
+     * @param value sequence value
+     * @return int value
+     */
+    private int toIntSequence(String name, long value) {
+        CellAssert.isTrue(value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE,
+                "cell (%s) sequence (%s) out of int range, use the long sequence instead.", name, value);
+        return (int) value;
     }
 
     /**
@@ -120,53 +722,219 @@ public class CellBufferManager implements InitializingBean {
      * @param cellBuffer ${@link CellBuffer}
      * @return value
      */
-    private int getSequenceAndExpandIfNeed(CellBuffer cellBuffer) {
-        long startTime = System.currentTimeMillis();
-        long intervalTime = 0;
-        while (intervalTime < 200) {
-            // read lock
-            Lock rLock = cellBuffer.getLock().readLock();
-            rLock.lock();
-            try {
-                // may be expansion
-                if (cellBuffer.needExpansion(bufferConfig.getExpansionThreshold())
-                        && cellBuffer.getExpanding().compareAndSet(false, true)) {
-                    asyncExpand(cellBuffer);
+    private long getSequenceAndExpandIfNeed(CellBuffer cellBuffer) {
+        long startTime = System.nanoTime();
+        while (true) {
+            // get buffer value
+            BufferValue bufferValue = cellBuffer.currentBufferValue();
+            long nextVal = bufferValue.getAndIncrement();
+            if (nextVal <= bufferValue.maxValue()) {
+                // only the thread that gets the watermark value triggers the expansion
+                if (nextVal == bufferValue.watermark()) {
+                    expandIfNeed(cellBuffer);
                 }
-                // get buffer value
-                BufferValue bufferValue = cellBuffer.currentBufferValue();
-                int nextVal = bufferValue.getAndIncrement();
-                if (nextVal <= bufferValue.maxValue()) {
-                    return nextVal;
+                return nextVal;
+            }
+            waitNextBufferValue(cellBuffer, bufferValue, startTime);
+        }
+    }
+
+    /**
+     * Complete the future with cell sequence value, or register to the expansion if the buffer is exhausted.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @param future     the future of value
+     */
+    private void getSequenceAsync(CellBuffer cellBuffer, CompletableFuture<Long> future) {
+        while (!future.isDone()) {
+            BufferValue bufferValue = cellBuffer.currentBufferValue();
+            long nextVal = bufferValue.getAndIncrement();
+            if (nextVal <= bufferValue.maxValue()) {
+                if (nextVal == bufferValue.watermark()) {
+                    expandIfNeed(cellBuffer);
                 }
-            } finally {
-                rLock.unlock();
+                future.complete(nextVal);
+                return;
+            }
+            if (cellBuffer.switchToNext(bufferValue)) {
+                continue;
+            }
+            expandIfNeed(cellBuffer);
+            if (isUnavailable(cellBuffer)) {
+                future.completeExceptionally(unavailableException(cellBuffer));
+                return;
             }
 
-            // short wait
-            spinWaitAndSleep(cellBuffer);
+            // retry when the expansion completes, or now if it completed before registered
+            AtomicBoolean fired = new AtomicBoolean(false);
+            Runnable listener = () -> {
+                if (fired.compareAndSet(false, true)) {
+                    getSequenceAsync(cellBuffer, future);
+                }
+            };
+            cellBuffer.addListener(listener);
+            boolean completed = cellBuffer.isNextReady()
+                    || cellBuffer.currentBufferValue() != bufferValue
+                    || isRefillable(cellBuffer);
+            if (!completed || !fired.compareAndSet(false, true)) {
+                return;
+            }
+            cellBuffer.removeListener(listener);
+        }
+    }
 
+    /**
+     * Get cell sequence value from the lease of current thread, lease a new chunk if it runs out.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @param leases     ${@link SequenceLeases}
+     * @return value
+     */
+    private long getLeasedSequence(CellBuffer cellBuffer, SequenceLeases leases) {
+        SequenceLeases.Lease lease = leases.currentLease();
+        if (lease.hasRemaining()) {
+            return lease.nextValue();
+        }
+        long startTime = System.nanoTime();
+        while (true) {
+            // lease a chunk, no more than the rest of current buffer value
             BufferValue bufferValue = cellBuffer.currentBufferValue();
-            int nextVal = bufferValue.getAndIncrement();
-            if (nextVal <= bufferValue.maxValue()) {
-                return nextVal;
+            long start = bufferValue.getAndAdd(leases.getLeaseSize());
+            if (start <= bufferValue.maxValue()) {
+                long end = Math.min(bufferValue.maxValue(), start + leases.getLeaseSize() - 1);
+                lease.reset(start + 1, end);
+                if (start <= bufferValue.watermark() && bufferValue.watermark() <= end) {
+                    expandIfNeed(cellBuffer);
+                }
+                return start;
             }
-            // if next already
-            if (cellBuffer.isNextReady()) {
-                // lock and block other thread
-                Lock wLock = cellBuffer.getLock().writeLock();
-                try {
-                    if (cellBuffer.isNextReady()) {
-                        cellBuffer.reset();
-                    }
-                } finally {
-                    wLock.unlock();
+            waitNextBufferValue(cellBuffer, bufferValue, startTime);
+        }
+    }
+
+    /**
+     * Get a batch of cell sequence values, it will expand if necessary.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @param count      the count of values
+     * @return values
+     */
+    private long[] getSequencesAndExpandIfNeed(CellBuffer cellBuffer, int count) {
+        long startTime = System.nanoTime();
+        long[] values = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            // reserve the rest values at once
+            BufferValue bufferValue = cellBuffer.currentBufferValue();
+            long start = bufferValue.getAndAdd(count - filled);
+            if (start <= bufferValue.maxValue()) {
+                long end = Math.min(bufferValue.maxValue(), start + count - filled - 1);
+                for (long value = start; value <= end; value++) {
+                    values[filled++] = value;
                 }
+                if (start <= bufferValue.watermark() && bufferValue.watermark() <= end) {
+                    expandIfNeed(cellBuffer);
+                }
+                continue;
             }
-            intervalTime = System.currentTimeMillis() - startTime;
+            waitNextBufferValue(cellBuffer, bufferValue, startTime);
+        }
+        return values;
+    }
+
+    /**
+     * Switch to the next buffer value if ready, otherwise wait for the expansion.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @param exhausted  the exhausted buffer value
+     * @param startTime  the time start to get sequence, see ${@link System#nanoTime()}
+     */
+    private void waitNextBufferValue(CellBuffer cellBuffer, BufferValue exhausted, long startTime) {
+        // current value exhausted, switch to next if ready
+        if (cellBuffer.switchToNext(exhausted)) {
+            return;
+        }
+
+        // the expansion may be failed before, try again if the backoff elapsed
+        expandIfNeed(cellBuffer);
+        if (isUnavailable(cellBuffer)) {
+            throw unavailableException(cellBuffer);
+        }
+
+        // wait until the expansion completes, or a new one can be started
+        long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(bufferConfig.getWaitTimeout());
+        long waitTime = System.nanoTime();
+        WaitEvent event = new WaitEvent();
+        event.begin();
+        bufferConfig.getWaitStrategy().waitFor(cellBuffer, () -> cellBuffer.isNextReady()
+                || cellBuffer.currentBufferValue() != exhausted
+                || isRefillable(cellBuffer), deadline);
+        event.end();
+        long now = System.nanoTime();
+        boolean timeout = now >= deadline;
+        if (event.shouldCommit()) {
+            event.cell = cellBuffer.getName();
+            event.outcome = timeout ? WaitEvent.TIMEOUT
+                    : cellBuffer.isNextReady() || cellBuffer.currentBufferValue() != exhausted ? WaitEvent.SWITCHED : WaitEvent.REFILLABLE;
+            event.commit();
+        }
+        fireEvent(listener -> listener.onWaited(cellBuffer, now - waitTime, timeout));
+        // the park returns at once while interrupted, fail fast instead of spinning until the timeout
+        if (Thread.interrupted()) {
+            Thread.currentThread().interrupt();
+            throw new CellException(String.format("Get cell (%s) sequence interrupted", cellBuffer.getName()));
+        }
+        if (timeout) {
+            long intervalTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            TimeoutEvent.commit(cellBuffer.getName(), intervalTime);
+            log.warn("Get cell sequence timeout ({}ms)", intervalTime);
+            throw new CellTimeoutException(String.format("Get sequence timeout(%sms)", intervalTime));
+        }
+    }
+
+    /**
+     * To judge a new expansion can be started or not, that's no expansion is running and the backoff elapsed.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @return true or false
+     */
+    private boolean isRefillable(CellBuffer cellBuffer) {
+        return !cellBuffer.getExpanding().get() && cellBuffer.getRefillBreaker().allowRefill(System.currentTimeMillis());
+    }
+
+    /**
+     * To judge the exhausted cell buffer should fail fast or not, that's the refill circuit breaker is open
+     * and no expansion is running.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @return true or false
+     */
+    private boolean isUnavailable(CellBuffer cellBuffer) {
+        return !cellBuffer.getExpanding().get() && cellBuffer.getRefillBreaker().isOpen(System.currentTimeMillis());
+    }
+
+    private CellUnavailableException unavailableException(CellBuffer cellBuffer) {
+        return new CellUnavailableException(String.format("Cell (%s) is unavailable, refill failed %s times",
+                cellBuffer.getName(), cellBuffer.getRefillBreaker().getFailures()));
+    }
+
+    /**
+     * To expand cell buffer if the prefetched values are not enough, no expansion is running and the backoff
+     * after the failed refill elapsed.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     */
+    private void expandIfNeed(CellBuffer cellBuffer) {
+        if (cellBuffer.isPrefetched() || !cellBuffer.getRefillBreaker().allowRefill(System.currentTimeMillis())
+                || !cellBuffer.getExpanding().compareAndSet(false, true)) {
+            return;
+        }
+        // double check, the prefetched values may be filled by the expansion just finished
+        if (cellBuffer.isPrefetched()) {
+            cellBuffer.getExpanding().set(false);
+            return;
         }
-        log.warn("Get cell sequence timeout ({}ms)", intervalTime);
-        throw new CellTimeoutException(String.format("Get sequence timeout(%sms)", intervalTime));
+        asyncExpand(cellBuffer);
     }
 
     /**
@@ -175,79 +943,283 @@ public class CellBufferManager implements InitializingBean {
      * @param cellBuffer ${@link CellBuffer}
      */
     private void asyncExpand(CellBuffer cellBuffer) {
-        executorService.execute(() -> {
-            boolean update = false;
+        if (!refresher.submit(cellBuffer)) {
+            log.warn("Refresh cell buffer ({}) rejected, the refresher is closed.", cellBuffer.getName());
+            discard(cellBuffer);
+        }
+    }
+
+    /**
+     * Refill cell buffer in the refresher, or load it if not filled yet.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     */
+    private void refresh(CellBuffer cellBuffer) {
+        if (cellBuffer.currentBufferValue() == null) {
+            load(cellBuffer);
+            return;
+        }
+        try {
+            doExpand(cellBuffer, true);
+            cellBuffer.getRefillBreaker().onSuccess();
+            touch(cellBuffer);
+            topUp(cellBuffer);
+        } catch (Exception e) {
+            onRefillFailure(cellBuffer, e);
+        } finally {
+            cellBuffer.getExpanding().compareAndSet(true, false);
+            cellBuffer.signalWaiters();
+        }
+    }
+
+    /**
+     * Refill a batch of cell buffers in the refresher, in one transaction.
+     * <p>The cell buffers are refilled one by one if the batch fails, or with the same name (reloaded after eviction),
+     * and the ones not filled yet are loaded one by one.</p>
+     *
+     * @param cellBuffers the batch of ${@link CellBuffer}
+     */
+    private void refresh(List<CellBuffer> cellBuffers) {
+        if (cellBuffers.size() == 1) {
+            refresh(cellBuffers.get(0));
+            return;
+        }
+        Map<String/*name*/, CellBuffer> batch = new LinkedHashMap<>();
+        List<CellBuffer> others = new ArrayList<>();
+        cellBuffers.forEach(cellBuffer -> {
+            if (cellBuffer.currentBufferValue() == null || batch.putIfAbsent(cellBuffer.getName(), cellBuffer) != null) {
+                others.add(cellBuffer);
+            }
+        });
+        try {
+            if (!batch.isEmpty()) {
+                doExpand(batch);
+            }
+        } catch (Exception e) {
+            log.warn("Refresh cell buffers ({}) in batch fail, refresh them one by one.", batch.keySet(), e);
+            cellBuffers.forEach(this::refresh);
+            return;
+        }
+        batch.values().forEach(cellBuffer -> {
             try {
-                doExpand(cellBuffer);
-                update = true;
+                cellBuffer.getRefillBreaker().onSuccess();
+                touch(cellBuffer);
+                topUp(cellBuffer);
             } catch (Exception e) {
-                log.warn("Refresh cell buffer ({}) fail.", cellBuffer.getName(), e);
+                onRefillFailure(cellBuffer, e);
             } finally {
-                if (update) {
-                    Lock wLock = cellBuffer.getLock().writeLock();
-                    wLock.lock();
-                    cellBuffer.setNextReady(true);
-                    wLock.unlock();
-                }
                 cellBuffer.getExpanding().compareAndSet(true, false);
+                cellBuffer.signalWaiters();
             }
         });
+        others.forEach(this::refresh);
     }
 
     /**
-     * Expand cell buffer.
+     * Record the refill failure to the circuit breaker, and retry once the backoff elapses.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @param e          the failure
+     */
+    private void onRefillFailure(CellBuffer cellBuffer, Exception e) {
+        fireEvent(listener -> listener.onRefillFailed(cellBuffer, e));
+        RefillBreaker refillBreaker = cellBuffer.getRefillBreaker();
+        long backoff = refillBreaker.onFailure(System.currentTimeMillis(), bufferConfig.getRefillRetryInitialBackoff(),
+                bufferConfig.getRefillRetryMaxBackoff(), bufferConfig.getRefillFailureThreshold());
+        if (refillBreaker.getFailures() == 1) {
+            log.warn("Refresh cell buffer ({}) fail, retry in {}ms.", cellBuffer.getName(), backoff, e);
+        } else {
+            log.warn("Refresh cell buffer ({}) fail {} times, retry in {}ms, breakerOpen={}: {}", cellBuffer.getName(),
+                    refillBreaker.getFailures(), backoff, refillBreaker.isOpen(System.currentTimeMillis()), e.getMessage());
+        }
+        CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS).execute(() -> {
+            if (ready && CACHE_MAP.get(cellBuffer.getName()) == cellBuffer) {
+                expandIfNeed(cellBuffer);
+            }
+        });
+    }
+
+    /**
+     * Wake up the waiters of the refilled cell buffer at once, and then top up the prefetched values.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     */
+    private void topUp(CellBuffer cellBuffer) {
+        updateTargetDepth(cellBuffer);
+        cellBuffer.signalWaiters();
+        int targetDepth = cellBuffer.getTargetDepth();
+        for (int i = 1; i < targetDepth && cellBuffer.getPrefetchedCount() < targetDepth; i++) {
+            doExpand(cellBuffer, false);
+        }
+        if (bufferConfig.isPersistLearnedStep()) {
+            saveLearnedStep(cellBuffer, false);
+        }
+    }
+
+    /**
+     * Save the learned step and consumption rate of the cell buffer, the failure doesn't affect the buffer.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @param force      save even if the step is not changed, the consumption rate may be changed
+     */
+    private void saveLearnedStep(CellBuffer cellBuffer, boolean force) {
+        int step = cellBuffer.getLastStep();
+        if (step <= 0 || (!force && step == cellBuffer.getPersistedStep())) {
+            return;
+        }
+        double rate = cellBuffer.getConsumptionRate().get();
+        try {
+            cellRegistryRepository.saveLearnedStep(cellBuffer.getName(), step, rate > 0 ? rate * 1000 : null);
+            cellBuffer.setPersistedStep(step);
+        } catch (Exception e) {
+            log.warn("Save learned step of cell buffer ({}) fail.", cellBuffer.getName(), e);
+        }
+    }
+
+    /**
+     * The cell buffer is not refilled, release the expansion and wake up the waiters.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     */
+    private void discard(CellBuffer cellBuffer) {
+        if (cellBuffer.currentBufferValue() == null) {
+            CompletableFuture<CellBuffer> loading = LOADING_MAP.remove(cellBuffer.getName());
+            if (loading != null) {
+                loading.completeExceptionally(new CellException(String.format("Load cell (%s) buffer discarded, the refresher is closed.", cellBuffer.getName())));
+            }
+        }
+        cellBuffer.getExpanding().compareAndSet(true, false);
+        cellBuffer.signalWaiters();
+    }
+
+    /**
+     * Get the expansion threshold of the next segment.
+     * <p>
+     * With the adaptive threshold, the expansion starts as many values before the exhaustion as consumed
+     * during a slow refill, that's (p99 refill latency * consumption rate * safety factor), bounded by
+     * [expansionMinThreshold, expansionMaxThreshold]. The fixed expansion threshold is used until
+     * both of them are measured.
+     * </p>
      *
      * @param cellBuffer ${@link CellBuffer}
+     * @param step       the step of the next segment
+     * @return threshold
      */
-    private void doExpand(CellBuffer cellBuffer) {
-        int minStep = bufferConfig.getExpansionMinStep();
-        int maxStep = bufferConfig.getExpansionMaxStep();
-        long bufferExpansionInterval = bufferConfig.getExpansionInterval();
+    private double expansionThreshold(CellBuffer cellBuffer, int step) {
+        long latency = cellBuffer.getRefillLatency().percentile(LATENCY_PERCENTILE);
+        double rate = cellBuffer.getConsumptionRate().get();
+        return expansionThreshold(bufferConfig, latency, rate, step);
+    }
 
-        int step = cellBuffer.currentBufferValue().step();
-        long interval = System.currentTimeMillis() - cellBuffer.getRefreshTimestamp();
+    static double expansionThreshold(BufferConfiguration bufferConfig, long latency, double rate, int step) {
+        if (!bufferConfig.isAdaptiveThreshold() || latency < 0 || rate <= 0) {
+            return bufferConfig.getExpansionThreshold();
+        }
+        double lead = Math.max(latency, 1) * rate * bufferConfig.getLatencySafetyFactor();
+        double threshold = 1 - lead / step;
+        return Math.max(bufferConfig.getExpansionMinThreshold(), Math.min(bufferConfig.getExpansionMaxThreshold(), threshold));
+    }
 
-        // Dynamically adjust the expansion speed based on actual consumption
-        if (interval < bufferExpansionInterval) {
-            step = step * 2 <= maxStep ? step * 2 : step;
-        } else if (interval >= 2 * bufferExpansionInterval) {
-            step = step / 2 >= minStep ? step / 2 : step;
+    /**
+     * Update the target depth of the prefetched values, the values consumed while a refill
+     * is running should be prefetched. It's bounded by ${@link BufferConfiguration#getPrefetchMaxDepth()},
+     * and raised to ${@link BufferConfiguration#getEmergencyPrefetchDepth()} if the refills failed recently.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     */
+    private void updateTargetDepth(CellBuffer cellBuffer) {
+        long refillLatency = cellBuffer.getRefillLatency().percentile(LATENCY_PERCENTILE);
+        long lifetime = cellBuffer.getSegmentLifetime();
+        int maxDepth = bufferConfig.getPrefetchMaxDepth();
+        int depth = lifetime <= 0 ? 1 : (int) Math.min(maxDepth, refillLatency / lifetime + 1);
+        long failureTimestamp = cellBuffer.getRefillBreaker().getFailureTimestamp();
+        if (bufferConfig.getEmergencyPrefetchDepth() > 0 && failureTimestamp > 0
+                && System.currentTimeMillis() - failureTimestamp < bufferConfig.getEmergencyPrefetchDuration()) {
+            // the refills failed recently, prefetch deeply to ride out the next outage
+            depth = Math.max(depth, bufferConfig.getEmergencyPrefetchDepth());
         }
+        cellBuffer.setTargetDepth(depth);
+    }
 
+    /**
+     * Expand cell buffer.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @param adjustStep size the step by ${@link StepStrategy} or not, the top up expansion keeps the last step
+     */
+    private void doExpand(CellBuffer cellBuffer, boolean adjustStep) {
+        int step = adjustStep ? bufferConfig.getStepStrategy().nextStep(cellBuffer, bufferConfig) : cellBuffer.getLastStep();
+
+        RefillEvent event = new RefillEvent();
+        event.begin();
+        long startTime = System.currentTimeMillis();
         CellRegistry cellRegistry = cellRegistryRepository.updateValueAndGet(cellBuffer.getName(), step);
         CellAssert.notNull(cellRegistry, "Cell registry (%s) not exist", cellBuffer.getName());
-        cellRegistry.setStep(step);
+        fillBuffer(cellBuffer, cellRegistry, step, System.currentTimeMillis() - startTime, event, 1);
+    }
 
-        cellBuffer.fillBuffer(cellRegistry);
+    /**
+     * Expand a batch of cell buffers in one transaction, the step is sized by ${@link StepStrategy}.
+     *
+     * @param cellBuffers the batch of ${@link CellBuffer}, by name
+     */
+    private void doExpand(Map<String/*name*/, CellBuffer> cellBuffers) {
+        Map<String/*name*/, Integer> steps = new LinkedHashMap<>();
+        Map<String/*name*/, RefillEvent> events = new HashMap<>();
+        cellBuffers.forEach((name, cellBuffer) -> {
+            steps.put(name, bufferConfig.getStepStrategy().nextStep(cellBuffer, bufferConfig));
+            RefillEvent event = new RefillEvent();
+            event.begin();
+            events.put(name, event);
+        });
 
-        log.info("Expand cell buffer ({}) completed, step={}, interval={}, minStep={}, maxStep={}, bufferExpansionInterval={}",
-                cellBuffer.getName(), step, interval, minStep, maxStep, bufferExpansionInterval);
+        long startTime = System.currentTimeMillis();
+        Map<String/*name*/, CellRegistry> cellRegistryMap = new HashMap<>();
+        cellRegistryRepository.updateValuesAndGet(steps).forEach(cellRegistry -> cellRegistryMap.put(cellRegistry.getName(), cellRegistry));
+        long latency = System.currentTimeMillis() - startTime;
+        cellBuffers.keySet().forEach(name -> CellAssert.notNull(cellRegistryMap.get(name), "Cell registry (%s) not exist", name));
+
+        cellBuffers.forEach((name, cellBuffer) -> fillBuffer(cellBuffer, cellRegistryMap.get(name), steps.get(name), latency,
+                events.get(name), cellBuffers.size()));
     }
 
     /**
-     * Let current thread to spin wait while the cell buffer is expanding,
-     * but sleep with max spin.
+     * Fill the refilled segment to the cell buffer, and commit the refill event if enabled.
      *
-     * @param cellBuffer ${@link CellBuffer}
+     * @param cellBuffer   ${@link CellBuffer}
+     * @param cellRegistry the refilled ${@link CellRegistry}
+     * @param step         the step of the segment
+     * @param latency      the db latency (milliseconds)
+     * @param event        the refill event began before the db update
+     * @param rows         the registry rows updated by the refill
      */
-    private void spinWaitAndSleep(CellBuffer cellBuffer) {
-        int spinNum = 0;
-        long startTime = System.currentTimeMillis();
-        while (cellBuffer.getExpanding().get()) {
-            spinNum += 1;
-            if (spinNum > 10000) {
-                try {
-                    TimeUnit.MILLISECONDS.sleep(10);
-                } catch (InterruptedException e) {
-                    log.warn("Thread {} Interrupted", Thread.currentThread().getName());
-                }
-                break;
-            }
+    private void fillBuffer(CellBuffer cellBuffer, CellRegistry cellRegistry, int step, long latency, RefillEvent event, int rows) {
+        cellRegistry.setStep(step);
+        cellBuffer.getRefillLatency().record(latency);
+
+        int oldStep = cellBuffer.getLastStep();
+        cellBuffer.fillBuffer(cellRegistry, expansionThreshold(cellBuffer, step));
+        event.end();
+        if (event.shouldCommit()) {
+            event.cell = cellBuffer.getName();
+            event.oldStep = oldStep;
+            event.newStep = step;
+            event.dbLatency = latency;
+            event.rows = rows;
+            event.commit();
         }
-        log.debug("Get cell sequence thread spin and sleep wait time {}ms", System.currentTimeMillis() - startTime);
+        fireEvent(listener -> listener.onRefilled(cellBuffer, step, latency));
+
+        log.info("Expand cell buffer ({}) completed, step={}, rate={}/s, minStep={}, maxStep={}, bufferExpansionInterval={}",
+                cellBuffer.getName(), step, (long) (cellBuffer.getConsumptionRate().get() * 1000),
+                bufferConfig.getExpansionMinStep(), bufferConfig.getExpansionMaxStep(), bufferConfig.getExpansionInterval());
     }
 
     public void setBufferConfig(BufferConfiguration bufferConfig) {
         this.bufferConfig = bufferConfig;
     }
+
+    public void setCellRegistryRepository(CellRegistryRepository cellRegistryRepository) {
+        this.cellRegistryRepository = cellRegistryRepository;
+    }
 }
@@ -0,0 +1,318 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * The cell buffer refresher, it refills the cell buffers in the background.
+ * <p>
+ * A cell buffer is pending or refreshing at most once (single-flight), and at most {@code maxConcurrency} refills
+ * run at the same time, whatever the executor is. The pending buffer closest to exhaustion is refilled first.
+ * </p>
+ * <p>
+ * With the coalesce window, the refill waits for the window if the pending buffers are less than the max batch,
+ * and then the pending buffers are refilled together in one batch. The wait is scheduled, it doesn't hold a worker
+ * (or a concurrency slot) of it.
+ * </p>
+ * <p>
+ * The refills never run in the thread submitting them, a refill rejected by the executor is retried later.
+ * </p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class CellBufferRefresher {
+
+    /**
+     * the delay to dispatch again after rejected by the executor (milliseconds)
+     */
+    private static final long REJECTED_RETRY_DELAY = 10L;
+    private final Logger log = LoggerFactory.getLogger(CellBufferRefresher.class);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition idle = lock.newCondition();
+    private final Set<CellBuffer> pending = new LinkedHashSet<>();
+    private final Set<CellBuffer> refreshing = new HashSet<>();
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final long coalesceWindow;
+    private final int maxBatchSize;
+    private final Consumer<List<CellBuffer>> refresh;
+    private final Consumer<CellBuffer> discard;
+    private int running = 0;
+    private boolean coalescing = false;
+    private boolean closed = false;
+
+    /**
+     * Create refresher.
+     *
+     * @param executor       the executor to run the refills
+     * @param maxConcurrency max count of the refills at the same time
+     * @param refresh        refill the cell buffer
+     * @param discard        called with the cell buffer not refilled, as the refresher is closed
+     */
+    public CellBufferRefresher(Executor executor, int maxConcurrency, Consumer<CellBuffer> refresh, Consumer<CellBuffer> discard) {
+        this(executor, maxConcurrency, 0, 1, cellBuffers -> cellBuffers.forEach(refresh), discard);
+    }
+
+    /**
+     * Create refresher, which refills the cell buffers by batches.
+     *
+     * @param executor       the executor to run the refills
+     * @param maxConcurrency max count of the refills at the same time, a batch is counted as one
+     * @param coalesceWindow max time to wait for more pending cell buffers (milliseconds), no waiting if not positive
+     * @param maxBatchSize   max count of the cell buffers in one batch
+     * @param refresh        refill the batch of cell buffers
+     * @param discard        called with the cell buffer not refilled, as the refresher is closed
+     */
+    public CellBufferRefresher(Executor executor, int maxConcurrency, long coalesceWindow, int maxBatchSize,
+                               Consumer<List<CellBuffer>> refresh, Consumer<CellBuffer> discard) {
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.coalesceWindow = coalesceWindow;
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+        this.refresh = refresh;
+        this.discard = discard;
+    }
+
+    /**
+     * Submit the cell buffer to refill.
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @return false if the refresher is closed, otherwise true
+     */
+    public boolean submit(CellBuffer cellBuffer) {
+        boolean dispatch;
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            if (!pending.add(cellBuffer)) {
+                return true;
+            }
+            // the scheduled one takes it after the coalesce window, unless there is a full batch
+            dispatch = running < maxConcurrency && (!coalescing || pending.size() >= maxBatchSize);
+            if (dispatch) {
+                running++;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (dispatch) {
+            dispatch(false);
+        }
+        return true;
+    }
+
+    /**
+     * Close the refresher, the pending cell buffers are discarded, and wait for the running refills.
+     * <p>The executor is not shut down here, it's owned by the caller.</p>
+     *
+     * @param timeout max time to wait (milliseconds)
+     * @return true if all the refills finished, otherwise false
+     */
+    public boolean close(long timeout) {
+        List<CellBuffer> discarded;
+        lock.lock();
+        try {
+            closed = true;
+            discarded = new ArrayList<>(pending);
+            pending.clear();
+        } finally {
+            lock.unlock();
+        }
+        discarded.forEach(discard);
+
+        return awaitIdle(timeout);
+    }
+
+    /**
+     * Get the count of the cell buffers waiting for refill.
+     *
+     * @return pending count
+     */
+    public int pendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the count of the workers running refills.
+     *
+     * @return running count
+     */
+    public int runningCount() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatch(boolean coalesced) {
+        try {
+            executor.execute(() -> drain(coalesced));
+        } catch (RejectedExecutionException e) {
+            // never refill in the caller, release the slot and dispatch again later
+            boolean retry;
+            lock.lock();
+            try {
+                running--;
+                idle.signalAll();
+                retry = !closed;
+            } finally {
+                lock.unlock();
+            }
+            log.warn("Refresh cell buffers rejected, retry after {}ms.", REJECTED_RETRY_DELAY);
+            if (retry) {
+                schedule(REJECTED_RETRY_DELAY, false);
+            }
+        }
+    }
+
+    /**
+     * Dispatch a worker after the delay, if there is a pending cell buffer and a free concurrency slot.
+     * Otherwise, the running workers take the pending ones.
+     *
+     * @param delay     delay (milliseconds)
+     * @param coalesced the coalesce window is over or not
+     */
+    private void schedule(long delay, boolean coalesced) {
+        CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+            lock.lock();
+            try {
+                if (coalesced) {
+                    coalescing = false;
+                }
+                if (closed || pending.isEmpty() || running >= maxConcurrency) {
+                    return;
+                }
+                running++;
+            } finally {
+                lock.unlock();
+            }
+            dispatch(coalesced);
+        });
+    }
+
+    private void drain(boolean coalesced) {
+        while (true) {
+            List<CellBuffer> batch = nextBatch(coalesced);
+            if (batch == null) {
+                return;
+            }
+            coalesced = false;
+            try {
+                refresh.accept(batch);
+            } catch (RuntimeException e) {
+                log.warn("Refresh cell buffers ({}) fail.", batch.stream().map(CellBuffer::getName).collect(Collectors.toList()), e);
+            } finally {
+                lock.lock();
+                try {
+                    batch.forEach(refreshing::remove);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Take the next batch of the pending cell buffers, in order of urgency.
+     *
+     * @param coalesced waited for the coalesce window or not
+     * @return the batch, or null if nothing to refill now, the worker releases its slot then
+     */
+    private List<CellBuffer> nextBatch(boolean coalesced) {
+        List<CellBuffer> batch;
+        boolean wait = false;
+        lock.lock();
+        try {
+            // the refreshing one is picked again by its worker after the refill
+            // the remaining ratio is changing, sort by the snapshot of it
+            batch = pending.stream()
+                    .filter(buffer -> !refreshing.contains(buffer))
+                    .map(buffer -> Map.entry(buffer, buffer.remainingRatio()))
+                    .sorted(Map.Entry.comparingByValue())
+                    .limit(maxBatchSize)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            if (!batch.isEmpty() && !coalesced && coalesceWindow > 0 && batch.size() < maxBatchSize) {
+                // wait for more pending cell buffers to coalesce with, out of the slot
+                wait = !coalescing;
+                coalescing = true;
+                batch = Collections.emptyList();
+            }
+            if (batch.isEmpty()) {
+                running--;
+                idle.signalAll();
+                batch = null;
+            } else {
+                batch.forEach(pending::remove);
+                refreshing.addAll(batch);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (wait) {
+            schedule(coalesceWindow, true);
+        }
+        return batch;
+    }
+
+    private boolean awaitIdle(long timeout) {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+        lock.lock();
+        try {
+            while (running > 0) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = idle.awaitNanos(nanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
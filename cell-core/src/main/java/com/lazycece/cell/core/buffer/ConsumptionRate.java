@@ -0,0 +1,73 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+/**
+ * The exponentially weighted moving average of the consumption rate (values per millisecond).
+ * <p>It's sampled once a segment is used up, by the thread switching the segment.</p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class ConsumptionRate {
+
+    /**
+     * the weight of the new sample, in (0,1]
+     */
+    private final double smoothing;
+
+    /**
+     * 0 if not sampled yet
+     */
+    private volatile double rate = 0;
+
+    public ConsumptionRate(double smoothing) {
+        this.smoothing = smoothing;
+    }
+
+    /**
+     * Sample the rate.
+     *
+     * @param values  the count of values consumed
+     * @param elapsed the time they were consumed in (milliseconds)
+     */
+    public void sample(long values, long elapsed) {
+        double sample = (double) values / Math.max(elapsed, 1);
+        double last = rate;
+        rate = last <= 0 ? sample : smoothing * sample + (1 - smoothing) * last;
+    }
+
+    /**
+     * Seed the rate with the one learned before, it's smoothed with the following samples.
+     *
+     * @param rate values per millisecond
+     */
+    public void seed(double rate) {
+        if (rate > 0) {
+            this.rate = rate;
+        }
+    }
+
+    /**
+     * Get the smoothed rate.
+     *
+     * @return values per millisecond, 0 if not sampled yet
+     */
+    public double get() {
+        return rate;
+    }
+}
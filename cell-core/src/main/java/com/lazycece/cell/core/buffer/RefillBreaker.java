@@ -0,0 +1,100 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+/**
+ * The refill circuit breaker of a cell buffer.
+ * <p>
+ * After a refill fails, no refill is started until the backoff elapses, the backoff doubles with each consecutive
+ * failure. The breaker opens once the consecutive failures reach the threshold, then the callers fail fast while
+ * the buffer is exhausted. A refill is tried again once the backoff elapses (half-open), and the breaker closes
+ * if it succeeds.
+ * </p>
+ * <p>Only the refresher running the refill of the buffer updates it, the callers read it.</p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class RefillBreaker {
+
+    private volatile int failures = 0;
+    private volatile boolean open = false;
+    private volatile long retryTimestamp = 0;
+    private volatile long failureTimestamp = 0;
+
+    /**
+     * Record a failed refill.
+     *
+     * @param now              current time (milliseconds)
+     * @param initialBackoff   the backoff after the first failure (milliseconds)
+     * @param maxBackoff       the max backoff (milliseconds)
+     * @param failureThreshold the consecutive failures to open the breaker
+     * @return the backoff (milliseconds)
+     */
+    public synchronized long onFailure(long now, long initialBackoff, long maxBackoff, int failureThreshold) {
+        int count = failures + 1;
+        long backoff = initialBackoff << Math.min(count - 1, 30);
+        backoff = backoff <= 0 ? maxBackoff : Math.min(backoff, maxBackoff);
+        failures = count;
+        open = count >= failureThreshold;
+        failureTimestamp = now;
+        retryTimestamp = now + backoff;
+        return backoff;
+    }
+
+    /**
+     * Record a successful refill, the breaker closes.
+     */
+    public synchronized void onSuccess() {
+        failures = 0;
+        open = false;
+        retryTimestamp = 0;
+    }
+
+    /**
+     * To judge a refill can be started or not, that's the backoff has elapsed.
+     *
+     * @param now current time (milliseconds)
+     * @return true or false
+     */
+    public boolean allowRefill(long now) {
+        return now >= retryTimestamp;
+    }
+
+    /**
+     * To judge the breaker is open or not, it's half-open once the backoff elapses.
+     *
+     * @param now current time (milliseconds)
+     * @return true or false
+     */
+    public boolean isOpen(long now) {
+        return open && now < retryTimestamp;
+    }
+
+    /**
+     * Get the time of the last failure.
+     *
+     * @return time (milliseconds), 0 if never failed
+     */
+    public long getFailureTimestamp() {
+        return failureTimestamp;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The JFR event of a completed cell buffer refill, the duration covers the db update and the buffer fill.
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+@Name("com.lazycece.cell.Refill")
+@Label("Cell Refill")
+@Category({"Cell", "Buffer"})
+@Description("A segment of the cell is allocated from the db and filled to the buffer")
+@StackTrace(false)
+class RefillEvent extends Event {
+
+    @Label("Cell")
+    String cell;
+
+    @Label("Old Step")
+    @Description("The step of the last filled segment, 0 if not filled yet")
+    int oldStep;
+
+    @Label("New Step")
+    int newStep;
+
+    @Label("DB Latency")
+    @Timespan(Timespan.MILLISECONDS)
+    long dbLatency;
+
+    @Label("Rows")
+    @Description("The registry rows updated by the refill, more than 1 if refilled in batch")
+    int rows;
+}
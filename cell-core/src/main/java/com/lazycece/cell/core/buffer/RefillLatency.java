@@ -0,0 +1,62 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import java.util.Arrays;
+
+/**
+ * The recent refill latencies of a cell buffer, to estimate the high percentile of them.
+ * <p>It keeps the last {@value #SIZE} samples in a ring.</p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class RefillLatency {
+
+    private static final int SIZE = 128;
+
+    private final long[] samples = new long[SIZE];
+    private int count = 0;
+    private int index = 0;
+
+    /**
+     * Record a refill latency.
+     *
+     * @param latency refill latency (milliseconds)
+     */
+    public synchronized void record(long latency) {
+        samples[index] = latency;
+        index = (index + 1) % SIZE;
+        count = Math.min(count + 1, SIZE);
+    }
+
+    /**
+     * Get the percentile of the recent latencies.
+     *
+     * @param percentile percentile, in (0,1]
+     * @return latency (milliseconds), -1 if no sample yet
+     */
+    public synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile * count) - 1;
+        return sorted[Math.max(0, Math.min(rank, count - 1))];
+    }
+}
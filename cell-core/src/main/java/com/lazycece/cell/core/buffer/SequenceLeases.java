@@ -0,0 +1,138 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The thread local leases of one cell buffer.
+ * <p>
+ * Each thread leases a chunk of values from the current buffer value with one {@code getAndAdd},
+ * and then hands out the values of the chunk without any shared write. The values are unique,
+ * but not in global order between threads.
+ * </p>
+ * <p>
+ * All leases are tracked, so the values leased but not handed out yet (the leftover) can be measured.
+ * The leftover of a dead thread is never handed out, it's counted as abandoned.
+ * </p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+class SequenceLeases {
+
+    private final int leaseSize;
+    private final ThreadLocal<Lease> localLease = ThreadLocal.withInitial(this::newLease);
+    private final Queue<Lease> leases = new ConcurrentLinkedQueue<>();
+    private final AtomicLong abandoned = new AtomicLong();
+
+    SequenceLeases(int leaseSize) {
+        this.leaseSize = leaseSize;
+    }
+
+    int getLeaseSize() {
+        return leaseSize;
+    }
+
+    /**
+     * Get the lease of current thread.
+     *
+     * @return see ${@link Lease}
+     */
+    Lease currentLease() {
+        return localLease.get();
+    }
+
+    /**
+     * Get the count of values leased but not handed out, including the abandoned ones.
+     * <p>It's a snapshot, the leases are changing while counting.</p>
+     *
+     * @return leftover count
+     */
+    long leftover() {
+        long leftover = 0;
+        Iterator<Lease> iterator = leases.iterator();
+        while (iterator.hasNext()) {
+            Lease lease = iterator.next();
+            Thread owner = lease.owner.get();
+            if (owner == null || !owner.isAlive()) {
+                iterator.remove();
+                abandoned.addAndGet(lease.remaining());
+                continue;
+            }
+            leftover += lease.remaining();
+        }
+        return leftover + abandoned.get();
+    }
+
+    private Lease newLease() {
+        Lease lease = new Lease(Thread.currentThread());
+        leases.add(lease);
+        return lease;
+    }
+
+    /**
+     * The leased chunk of one thread, range is [next, end].
+     * <p>Only the owner thread writes it, the others read it for measuring.</p>
+     */
+    static final class Lease {
+
+        private static final VarHandle NEXT;
+
+        static {
+            try {
+                NEXT = MethodHandles.lookup().findVarHandle(Lease.class, "next", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final WeakReference<Thread> owner;
+        private long next = 1;
+        private long end = 0;
+
+        private Lease(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+
+        boolean hasRemaining() {
+            return next <= end;
+        }
+
+        long nextValue() {
+            long value = next;
+            NEXT.setRelease(this, value + 1);
+            return value;
+        }
+
+        void reset(long next, long end) {
+            this.end = end;
+            NEXT.setRelease(this, next);
+        }
+
+        long remaining() {
+            long value = (long) NEXT.getAcquire(this);
+            return Math.max(end - value + 1, 0);
+        }
+    }
+}
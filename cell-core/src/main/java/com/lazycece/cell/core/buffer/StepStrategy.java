@@ -0,0 +1,38 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import com.lazycece.cell.core.configuration.BufferConfiguration;
+
+/**
+ * The strategy to size the step of the next segment, that's the count of values allocated from db at once.
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ * @see BufferStepStrategy
+ */
+public interface StepStrategy {
+
+    /**
+     * Compute the step of the next segment.
+     *
+     * @param cellBuffer   ${@link CellBuffer}, with the last step and the consumption rate
+     * @param bufferConfig ${@link BufferConfiguration}
+     * @return step
+     */
+    int nextStep(CellBuffer cellBuffer, BufferConfiguration bufferConfig);
+}
@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The JFR event of a ${@link com.lazycece.cell.core.exception.CellTimeoutException} thrown.
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+@Name("com.lazycece.cell.Timeout")
+@Label("Cell Timeout")
+@Category({"Cell", "Buffer"})
+@Description("Getting the cell sequence timeout")
+class TimeoutEvent extends Event {
+
+    @Label("Cell")
+    String cell;
+
+    @Label("Wait Time")
+    @Timespan(Timespan.MILLISECONDS)
+    long waitTime;
+
+    /**
+     * Commit the event if enabled, nothing is done otherwise.
+     *
+     * @param cell     cell name
+     * @param waitTime wait time (milliseconds)
+     */
+    static void commit(String cell, long waitTime) {
+        TimeoutEvent event = new TimeoutEvent();
+        if (event.shouldCommit()) {
+            event.cell = cell;
+            event.waitTime = waitTime;
+            event.commit();
+        }
+    }
+}
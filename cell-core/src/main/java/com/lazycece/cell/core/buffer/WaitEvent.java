@@ -0,0 +1,47 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The JFR event of a caller waiting for the refill of the exhausted cell buffer, the duration is the wait time.
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+@Name("com.lazycece.cell.Wait")
+@Label("Cell Wait")
+@Category({"Cell", "Buffer"})
+@Description("A caller waits for the refill of the exhausted cell buffer")
+class WaitEvent extends Event {
+
+    static final String SWITCHED = "switched";
+    static final String REFILLABLE = "refillable";
+    static final String TIMEOUT = "timeout";
+
+    @Label("Cell")
+    String cell;
+
+    @Label("Outcome")
+    @Description("switched: the next segment is ready, refillable: a new refill can be started, timeout: the caller timeout")
+    String outcome;
+}
@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * The strategy to wait for the cell buffer, while the current value is exhausted and the next is expanding.
+ * <p>
+ * The waiting thread can register itself to the cell buffer and park, it will be unparked
+ * once the expansion completes (whether succeeds or not).
+ * </p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ * @see BufferWaitStrategy
+ */
+public interface WaitStrategy {
+
+    /**
+     * Wait until the condition is satisfied, or the deadline is reached.
+     * <p>It may return before both of them, the caller should check the condition again.</p>
+     *
+     * @param cellBuffer ${@link CellBuffer}
+     * @param condition  the condition to wait for
+     * @param deadline   the deadline, see ${@link System#nanoTime()}
+     */
+    void waitFor(CellBuffer cellBuffer, BooleanSupplier condition, long deadline);
+}
@@ -16,6 +16,15 @@
 
 package com.lazycece.cell.core.configuration;
 
+import com.lazycece.cell.core.buffer.BufferStepStrategy;
+import com.lazycece.cell.core.buffer.BufferWaitStrategy;
+import com.lazycece.cell.core.buffer.StepStrategy;
+import com.lazycece.cell.core.buffer.WaitStrategy;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
 /**
  * @author lazycece
  * @date 2023/10/21
@@ -28,7 +37,28 @@ public class BufferConfiguration {
     private double expansionThreshold = 0.75;
 
     /**
-     * Cell buffer refresh interval time (milliseconds)
+     * Adapt the expansion threshold per cell by the refill latency and the consumption rate or not,
+     * default value is true
+     */
+    private boolean adaptiveThreshold = true;
+
+    /**
+     * The lower bound of the adaptive expansion threshold, default value is 0.5
+     */
+    private double expansionMinThreshold = 0.5;
+
+    /**
+     * The upper bound of the adaptive expansion threshold, default value is 0.9
+     */
+    private double expansionMaxThreshold = 0.9;
+
+    /**
+     * The values consumed during a p99 refill are multiplied by it to start the expansion, default value is 2
+     */
+    private double latencySafetyFactor = 2;
+
+    /**
+     * Cell buffer refresh interval time (milliseconds), that's the target lifetime of a segment.
      * <p>
      * Compute by qps and default step, for example
      * <li>condition: step=6000, qps=10</li>
@@ -37,6 +67,16 @@ public class BufferConfiguration {
      */
     private long expansionInterval = 10 * 60 * 1000;
 
+    /**
+     * The strategy to size the step of the next segment, default value is ${@link BufferStepStrategy#RATE}
+     */
+    private StepStrategy stepStrategy = BufferStepStrategy.RATE;
+
+    /**
+     * The weight of the new sample of the consumption rate, in (0,1], default value is 0.5
+     */
+    private double rateSmoothing = 0.5;
+
     /**
      * Cell buffer expansion min step.
      */
@@ -47,14 +87,32 @@ public class BufferConfiguration {
      */
     private int expansionMaxStep = 24000;
 
+    /**
+     * Save the learned step and consumption rate of each cell to the registry or not, the buffer starts at
+     * the learned step after restart. It needs the learned_step and consumption_rate columns, default value is false
+     */
+    private boolean persistLearnedStep = false;
+
+    /**
+     * Max count of the prefetched segments per cell, the target depth grows with the consumption rate
+     * up to it. Default value is 1, only the next segment is prefetched.
+     */
+    private int prefetchMaxDepth = 1;
+
     /**
      * Cell buffer thread pool core size, default value is 5
+     *
+     * @deprecated not used, the refresher threads are bounded by ${@link #refreshConcurrency}
      */
+    @Deprecated
     private int threadPoolCoreSize = 5;
 
     /**
      * Cell buffer thread pool max size, default value is ${@code Integer.MAX_VALUE}
+     *
+     * @deprecated not used, the refresher threads are bounded by ${@link #refreshConcurrency}
      */
+    @Deprecated
     private int threadPoolMaxSize = Integer.MAX_VALUE;
 
     /**
@@ -62,6 +120,110 @@ public class BufferConfiguration {
      */
     private long threadPoolKeepAliveTime = 60L;
 
+    /**
+     * Max count of the cell buffer refills at the same time, that's also the max concurrent
+     * transactions to db. Default value is 5
+     */
+    private int refreshConcurrency = 5;
+
+    /**
+     * Refresher runs with virtual threads or not, it works on java 21 or later, default value is false
+     */
+    private boolean refreshVirtualThreads = false;
+
+    /**
+     * Max time to wait for more cell buffers to refill together in one transaction (milliseconds),
+     * no waiting if not positive. Default value is 0
+     */
+    private long refreshCoalesceWindow = 0;
+
+    /**
+     * Max count of the cell buffers refilled together in one transaction, default value is 50
+     */
+    private int refreshCoalesceMaxBatch = 50;
+
+    /**
+     * The node id to pick the preferred registry shard of the sharded cells, random if null
+     */
+    private Integer nodeId;
+
+    /**
+     * The custom executor of the refresher, can be null. It's not shut down by the refresher.
+     */
+    private Executor refreshExecutor;
+
+    /**
+     * Max count of cells filled by one batch of statements while the buffer manager initializing, the batches
+     * run in parallel up to ${@link #refreshConcurrency}. Default value is 200
+     */
+    private int initBatchSize = 200;
+
+    /**
+     * Load the cell buffer on the first use instead of initializing all of them, default value is false
+     */
+    private boolean lazyLoading = false;
+
+    /**
+     * The lazy loaded cell buffer is evicted if idle longer than it (milliseconds), no eviction if not positive.
+     * Default value is 30min
+     */
+    private long idleTimeout = 30 * 60 * 1000;
+
+    /**
+     * Max count of the lazy loaded cell buffers, the least active one is evicted while loading a new one if reached.
+     * Default value is ${@code Integer.MAX_VALUE}
+     */
+    private int maxResidentBuffers = Integer.MAX_VALUE;
+
+    /**
+     * The strategy to wait for the expansion while the buffer is exhausted, default value is
+     * ${@link BufferWaitStrategy#SPIN_THEN_PARK}
+     */
+    private WaitStrategy waitStrategy = BufferWaitStrategy.SPIN_THEN_PARK;
+
+    /**
+     * The max time to wait for a sequence (milliseconds), default value is 200
+     */
+    private long waitTimeout = 200;
+
+    /**
+     * The backoff after a refill failure (milliseconds), it doubles with each consecutive failure.
+     * Default value is 50
+     */
+    private long refillRetryInitialBackoff = 50;
+
+    /**
+     * The max backoff after refill failures (milliseconds), default value is 5000
+     */
+    private long refillRetryMaxBackoff = 5000;
+
+    /**
+     * The consecutive refill failures to open the circuit breaker of the cell, the callers fail fast
+     * while it's open and the buffer is exhausted. Default value is 3
+     */
+    private int refillFailureThreshold = 3;
+
+    /**
+     * The depth of the prefetched values once the refill failures are seen, to ride out the next outage,
+     * disabled if not positive. Default value is 0
+     */
+    private int emergencyPrefetchDepth = 0;
+
+    /**
+     * How long the emergency prefetch lasts after the last refill failure (milliseconds), default value is 10min
+     */
+    private long emergencyPrefetchDuration = 10 * 60 * 1000;
+
+    /**
+     * The size of the chunk each thread leases from the cell buffer, default value is 256.
+     */
+    private int leaseSize = 256;
+
+    /**
+     * The cell names that use the thread local lease, the values of them are unique
+     * but not in global order. Empty by default.
+     */
+    private Set<String> leaseNames = new HashSet<>();
 
     public double getExpansionThreshold() {
         return expansionThreshold;
@@ -71,6 +233,38 @@ public class BufferConfiguration {
         this.expansionThreshold = expansionThreshold;
     }
 
+    public boolean isAdaptiveThreshold() {
+        return adaptiveThreshold;
+    }
+
+    public void setAdaptiveThreshold(boolean adaptiveThreshold) {
+        this.adaptiveThreshold = adaptiveThreshold;
+    }
+
+    public double getExpansionMinThreshold() {
+        return expansionMinThreshold;
+    }
+
+    public void setExpansionMinThreshold(double expansionMinThreshold) {
+        this.expansionMinThreshold = expansionMinThreshold;
+    }
+
+    public double getExpansionMaxThreshold() {
+        return expansionMaxThreshold;
+    }
+
+    public void setExpansionMaxThreshold(double expansionMaxThreshold) {
+        this.expansionMaxThreshold = expansionMaxThreshold;
+    }
+
+    public double getLatencySafetyFactor() {
+        return latencySafetyFactor;
+    }
+
+    public void setLatencySafetyFactor(double latencySafetyFactor) {
+        this.latencySafetyFactor = latencySafetyFactor;
+    }
+
     public long getExpansionInterval() {
         return expansionInterval;
     }
@@ -79,6 +273,22 @@ public class BufferConfiguration {
         this.expansionInterval = expansionInterval;
     }
 
+    public StepStrategy getStepStrategy() {
+        return stepStrategy;
+    }
+
+    public void setStepStrategy(StepStrategy stepStrategy) {
+        this.stepStrategy = stepStrategy;
+    }
+
+    public double getRateSmoothing() {
+        return rateSmoothing;
+    }
+
+    public void setRateSmoothing(double rateSmoothing) {
+        this.rateSmoothing = rateSmoothing;
+    }
+
     public int getExpansionMinStep() {
         return expansionMinStep;
     }
@@ -95,18 +305,38 @@ public class BufferConfiguration {
         this.expansionMaxStep = expansionMaxStep;
     }
 
+    public boolean isPersistLearnedStep() {
+        return persistLearnedStep;
+    }
+
+    public void setPersistLearnedStep(boolean persistLearnedStep) {
+        this.persistLearnedStep = persistLearnedStep;
+    }
+
+    public int getPrefetchMaxDepth() {
+        return prefetchMaxDepth;
+    }
+
+    public void setPrefetchMaxDepth(int prefetchMaxDepth) {
+        this.prefetchMaxDepth = prefetchMaxDepth;
+    }
+
+    @Deprecated
     public int getThreadPoolCoreSize() {
         return threadPoolCoreSize;
     }
 
+    @Deprecated
     public void setThreadPoolCoreSize(int threadPoolCoreSize) {
         this.threadPoolCoreSize = threadPoolCoreSize;
     }
 
+    @Deprecated
     public int getThreadPoolMaxSize() {
         return threadPoolMaxSize;
     }
 
+    @Deprecated
     public void setThreadPoolMaxSize(int threadPoolMaxSize) {
         this.threadPoolMaxSize = threadPoolMaxSize;
     }
@@ -118,4 +348,156 @@ public class BufferConfiguration {
     public void setThreadPoolKeepAliveTime(long threadPoolKeepAliveTime) {
         this.threadPoolKeepAliveTime = threadPoolKeepAliveTime;
     }
+
+    public int getRefreshConcurrency() {
+        return refreshConcurrency;
+    }
+
+    public void setRefreshConcurrency(int refreshConcurrency) {
+        this.refreshConcurrency = refreshConcurrency;
+    }
+
+    public boolean isRefreshVirtualThreads() {
+        return refreshVirtualThreads;
+    }
+
+    public void setRefreshVirtualThreads(boolean refreshVirtualThreads) {
+        this.refreshVirtualThreads = refreshVirtualThreads;
+    }
+
+    public long getRefreshCoalesceWindow() {
+        return refreshCoalesceWindow;
+    }
+
+    public void setRefreshCoalesceWindow(long refreshCoalesceWindow) {
+        this.refreshCoalesceWindow = refreshCoalesceWindow;
+    }
+
+    public int getRefreshCoalesceMaxBatch() {
+        return refreshCoalesceMaxBatch;
+    }
+
+    public void setRefreshCoalesceMaxBatch(int refreshCoalesceMaxBatch) {
+        this.refreshCoalesceMaxBatch = refreshCoalesceMaxBatch;
+    }
+
+    public Integer getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(Integer nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    public void setRefreshExecutor(Executor refreshExecutor) {
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    public int getInitBatchSize() {
+        return initBatchSize;
+    }
+
+    public void setInitBatchSize(int initBatchSize) {
+        this.initBatchSize = initBatchSize;
+    }
+
+    public boolean isLazyLoading() {
+        return lazyLoading;
+    }
+
+    public void setLazyLoading(boolean lazyLoading) {
+        this.lazyLoading = lazyLoading;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public int getMaxResidentBuffers() {
+        return maxResidentBuffers;
+    }
+
+    public void setMaxResidentBuffers(int maxResidentBuffers) {
+        this.maxResidentBuffers = maxResidentBuffers;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    public long getWaitTimeout() {
+        return waitTimeout;
+    }
+
+    public void setWaitTimeout(long waitTimeout) {
+        this.waitTimeout = waitTimeout;
+    }
+
+    public long getRefillRetryInitialBackoff() {
+        return refillRetryInitialBackoff;
+    }
+
+    public void setRefillRetryInitialBackoff(long refillRetryInitialBackoff) {
+        this.refillRetryInitialBackoff = refillRetryInitialBackoff;
+    }
+
+    public long getRefillRetryMaxBackoff() {
+        return refillRetryMaxBackoff;
+    }
+
+    public void setRefillRetryMaxBackoff(long refillRetryMaxBackoff) {
+        this.refillRetryMaxBackoff = refillRetryMaxBackoff;
+    }
+
+    public int getRefillFailureThreshold() {
+        return refillFailureThreshold;
+    }
+
+    public void setRefillFailureThreshold(int refillFailureThreshold) {
+        this.refillFailureThreshold = refillFailureThreshold;
+    }
+
+    public int getEmergencyPrefetchDepth() {
+        return emergencyPrefetchDepth;
+    }
+
+    public void setEmergencyPrefetchDepth(int emergencyPrefetchDepth) {
+        this.emergencyPrefetchDepth = emergencyPrefetchDepth;
+    }
+
+    public long getEmergencyPrefetchDuration() {
+        return emergencyPrefetchDuration;
+    }
+
+    public void setEmergencyPrefetchDuration(long emergencyPrefetchDuration) {
+        this.emergencyPrefetchDuration = emergencyPrefetchDuration;
+    }
+
+    public int getLeaseSize() {
+        return leaseSize;
+    }
+
+    public void setLeaseSize(int leaseSize) {
+        this.leaseSize = leaseSize;
+    }
+
+    public Set<String> getLeaseNames() {
+        return leaseNames;
+    }
+
+    public void setLeaseNames(Set<String> leaseNames) {
+        this.leaseNames = leaseNames;
+    }
 }
@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.exception;
+
+/**
+ * The cell can't provide sequence for now, since the refills keep failing (the circuit breaker is open).
+ * It's thrown at once instead of waiting for the timeout.
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class CellUnavailableException extends CellException {
+
+    public CellUnavailableException() {
+        super();
+    }
+
+    public CellUnavailableException(String message) {
+        super(message);
+    }
+
+    public CellUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public CellUnavailableException(Throwable cause) {
+        super(cause);
+    }
+}
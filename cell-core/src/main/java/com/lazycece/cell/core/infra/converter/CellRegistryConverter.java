@@ -33,10 +33,12 @@ public class CellRegistryConverter {
         }
         CellRegistryPO po = new CellRegistryPO();
         po.setName(model.getName());
-        po.setValue(model.getValue());
-        po.setMinValue(model.getMinValue());
-        po.setMaxValue(model.getMaxValue());
+        po.setLongValue(model.getLongValue());
+        po.setLongMinValue(model.getLongMinValue());
+        po.setLongMaxValue(model.getLongMaxValue());
         po.setStep(model.getStep());
+        po.setLearnedStep(model.getLearnedStep());
+        po.setConsumptionRate(model.getConsumptionRate());
         po.setCreateTime(new Date());
         po.setUpdateTime(new Date());
         return po;
@@ -48,10 +50,12 @@ public class CellRegistryConverter {
         }
         CellRegistry model = new CellRegistry();
         model.setName(po.getName());
-        model.setValue(po.getValue());
-        model.setMinValue(po.getMinValue());
-        model.setMaxValue(po.getMaxValue());
+        model.setValue(po.getLongValue());
+        model.setMinValue(po.getLongMinValue());
+        model.setMaxValue(po.getLongMaxValue());
         model.setStep(po.getStep());
+        model.setLearnedStep(po.getLearnedStep());
+        model.setConsumptionRate(po.getConsumptionRate());
         model.setCreateTime(po.getCreateTime());
         model.setUpdateTime(po.getUpdateTime());
         return model;
@@ -0,0 +1,57 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.infra.dal.dialect;
+
+import com.lazycece.cell.core.exception.CellAssert;
+import org.apache.ibatis.mapping.DatabaseIdProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The MyBatis database id provider, it detects the cell dialect from the {@code DataSource} metadata.
+ * <p>The database id is null if no dialect supports the database, then the default dialect is used.</p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class CellDatabaseIdProvider implements DatabaseIdProvider {
+
+    private final Logger log = LoggerFactory.getLogger(CellDatabaseIdProvider.class);
+
+    /**
+     * @see DatabaseIdProvider#getDatabaseId(DataSource)
+     */
+    @Override
+    public String getDatabaseId(DataSource dataSource) throws SQLException {
+        CellAssert.notNull(dataSource, "DataSource is null.");
+        String databaseProductName;
+        try (Connection connection = dataSource.getConnection()) {
+            databaseProductName = connection.getMetaData().getDatabaseProductName();
+        }
+        CellDialect dialect = CellDialects.resolve(databaseProductName);
+        if (dialect == null) {
+            log.warn("Cell dialect of database ({}) not found, use the default one.", databaseProductName);
+            return null;
+        }
+        log.info("Cell dialect of database ({}) is {}.", databaseProductName, dialect.getDatabaseId());
+        return dialect.getDatabaseId();
+    }
+}
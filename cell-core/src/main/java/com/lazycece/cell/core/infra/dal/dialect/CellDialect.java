@@ -0,0 +1,84 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.infra.dal.dialect;
+
+/**
+ * The database dialect of the cell registry, it supplies the statements differ between the databases.
+ * <p>
+ * The dialect is selected by the MyBatis database id, which is detected from the {@code DataSource} metadata
+ * by ${@link CellDatabaseIdProvider}. The built-in dialects are MySQL, PostgreSQL and H2, the others can be
+ * plugged in by the {@code java.util.ServiceLoader}, see ${@link CellDialects}.
+ * </p>
+ * <p>
+ * The statements use the MyBatis parameters of the mapper, see the methods.
+ * </p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public interface CellDialect {
+
+    /**
+     * Get the database id of the dialect, such as {@code mysql}.
+     *
+     * @return database id
+     */
+    String getDatabaseId();
+
+    /**
+     * To judge the dialect supports the database or not.
+     *
+     * @param databaseProductName the database product name of the {@code DataSource} metadata
+     * @return true or false
+     */
+    boolean supports(String databaseProductName);
+
+    /**
+     * The statement to count the cell registry table in the current schema.
+     *
+     * @return sql
+     */
+    String existCellRegistry();
+
+    /**
+     * The statement to insert the cell registries in one statement, the existing names are skipped.
+     * <p>It's a MyBatis script, the parameter is the list {@code pos} of the cell registry.</p>
+     *
+     * @return sql
+     */
+    String insertIfAbsent();
+
+    /**
+     * The statement to allocate a segment, by parameter {@code name} and {@code step}.
+     * <p>
+     * The value is increased by the step of the last segment, {@code COALESCE(segment_step, step)}, and the given step
+     * is saved to {@code segment_step} as the step of this one.
+     * It returns the new value as the only column if ${@link #isAllocationReturning()}, otherwise it's an update
+     * returns the new value as the generated key.
+     * </p>
+     *
+     * @return sql
+     */
+    String allocateSegment();
+
+    /**
+     * To judge the segment allocation statement returns the new value as a result set or not.
+     *
+     * @return true or false
+     */
+    boolean isAllocationReturning();
+}
@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.infra.dal.dialect;
+
+import org.apache.ibatis.builder.annotation.ProviderContext;
+
+/**
+ * The MyBatis sql provider of the dialect statements, by the database id of the configuration.
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public final class CellDialectSqlProvider {
+
+    private CellDialectSqlProvider() {
+    }
+
+    public static String existCellRegistry(ProviderContext context) {
+        return CellDialects.of(context.getDatabaseId()).existCellRegistry();
+    }
+
+    public static String insertIfAbsent(ProviderContext context) {
+        return CellDialects.of(context.getDatabaseId()).insertIfAbsent();
+    }
+
+    public static String allocateSegment(ProviderContext context) {
+        return CellDialects.of(context.getDatabaseId()).allocateSegment();
+    }
+}
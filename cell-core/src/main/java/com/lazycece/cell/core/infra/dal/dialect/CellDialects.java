@@ -0,0 +1,117 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.infra.dal.dialect;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registered cell dialects.
+ * <p>
+ * The dialects declared in {@code META-INF/services/com.lazycece.cell.core.infra.dal.dialect.CellDialect}
+ * go before the built-in ones, so they can take over a built-in database.
+ * </p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public final class CellDialects {
+
+    private static final Logger log = LoggerFactory.getLogger(CellDialects.class);
+    private static final CellDialect DEFAULT_DIALECT = new MySqlDialect();
+    private static final List<CellDialect> DIALECTS = loadDialects();
+    private static final ConcurrentHashMap<String/*database id*/, CellDialect> CACHE_MAP = new ConcurrentHashMap<>();
+
+    private CellDialects() {
+    }
+
+    private static List<CellDialect> loadDialects() {
+        List<CellDialect> dialects = new ArrayList<>();
+        ServiceLoader.load(CellDialect.class, CellDialects.class.getClassLoader()).forEach(dialects::add);
+        dialects.add(DEFAULT_DIALECT);
+        dialects.add(new PostgreSqlDialect());
+        dialects.add(new H2Dialect());
+        return Collections.unmodifiableList(dialects);
+    }
+
+    /**
+     * Get all the registered dialects.
+     *
+     * @return see ${@link CellDialect}
+     */
+    public static List<CellDialect> getDialects() {
+        return DIALECTS;
+    }
+
+    /**
+     * Get the dialect supports the database.
+     *
+     * @param databaseProductName the database product name of the {@code DataSource} metadata
+     * @return see ${@link CellDialect}, null if not supported
+     */
+    public static CellDialect resolve(String databaseProductName) {
+        for (CellDialect dialect : DIALECTS) {
+            if (dialect.supports(databaseProductName)) {
+                return dialect;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the dialect of the MyBatis database id.
+     * <p>
+     * The database id is matched with the id of the dialect, and then the database product name, as it's
+     * returned by the MyBatis {@code VendorDatabaseIdProvider} without properties. The default (MySQL)
+     * dialect is used if the database id is null or unknown.
+     * </p>
+     *
+     * @param databaseId database id, nullable
+     * @return see ${@link CellDialect}
+     */
+    public static CellDialect of(String databaseId) {
+        if (databaseId == null) {
+            return DEFAULT_DIALECT;
+        }
+        CellDialect dialect = CACHE_MAP.get(databaseId);
+        if (dialect == null) {
+            dialect = CACHE_MAP.computeIfAbsent(databaseId, CellDialects::lookup);
+        }
+        return dialect;
+    }
+
+    private static CellDialect lookup(String databaseId) {
+        for (CellDialect dialect : DIALECTS) {
+            if (dialect.getDatabaseId().equalsIgnoreCase(databaseId)) {
+                return dialect;
+            }
+        }
+        CellDialect dialect = resolve(databaseId);
+        if (dialect == null) {
+            log.warn("Cell dialect of database id ({}) not found, use the default one ({}).",
+                    databaseId, DEFAULT_DIALECT.getDatabaseId());
+            return DEFAULT_DIALECT;
+        }
+        return dialect;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.infra.dal.dialect;
+
+/**
+ * The H2 dialect, the {@code VALUE} keyword should be disabled by {@code NON_KEYWORDS=VALUE} in the url.
+ * <p>The new value of the allocation is returned by {@code SELECT ... FROM FINAL TABLE (UPDATE ...)}.</p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class H2Dialect implements CellDialect {
+
+    @Override
+    public String getDatabaseId() {
+        return "h2";
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "H2".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public String existCellRegistry() {
+        return "SELECT count(*) FROM information_schema.tables WHERE table_schema = CURRENT_SCHEMA AND LOWER(table_name) = 'cell_registry'";
+    }
+
+    @Override
+    public String insertIfAbsent() {
+        return "<script>"
+                + "MERGE INTO cell_registry t USING (VALUES "
+                + "<foreach collection='pos' item='po' separator=','>"
+                + "(#{po.name},#{po.longValue},#{po.longMinValue},#{po.longMaxValue},#{po.step},#{po.createTime},#{po.updateTime})"
+                + "</foreach>"
+                + ") s(name, value, min_value, max_value, step, create_time, update_time) ON t.name = s.name"
+                + " WHEN NOT MATCHED THEN INSERT (name, value, min_value, max_value, step, create_time, update_time)"
+                + " VALUES (s.name, s.value, s.min_value, s.max_value, s.step, s.create_time, s.update_time)"
+                + "</script>";
+    }
+
+    @Override
+    public String allocateSegment() {
+        return "SELECT value FROM FINAL TABLE (UPDATE cell_registry SET value = value + COALESCE(segment_step, step), segment_step = #{step} WHERE name = #{name})";
+    }
+
+    @Override
+    public boolean isAllocationReturning() {
+        return true;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.infra.dal.dialect;
+
+/**
+ * The MySQL dialect, it's also the default one if the database id is unknown.
+ * <p>The new value of the allocation is returned by {@code LAST_INSERT_ID(expr)} as the generated key.</p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class MySqlDialect implements CellDialect {
+
+    @Override
+    public String getDatabaseId() {
+        return "mysql";
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "MySQL".equalsIgnoreCase(databaseProductName) || "MariaDB".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public String existCellRegistry() {
+        return "SELECT count(*) FROM information_schema.TABLES WHERE table_schema = DATABASE() AND table_name = 'cell_registry'";
+    }
+
+    @Override
+    public String insertIfAbsent() {
+        return "<script>"
+                + "INSERT INTO cell_registry(name, value, min_value, max_value, step, create_time, update_time) VALUES "
+                + "<foreach collection='pos' item='po' separator=','>"
+                + "(#{po.name},#{po.longValue},#{po.longMinValue},#{po.longMaxValue},#{po.step},#{po.createTime},#{po.updateTime})"
+                + "</foreach>"
+                + " ON DUPLICATE KEY UPDATE name = name"
+                + "</script>";
+    }
+
+    @Override
+    public String allocateSegment() {
+        return "UPDATE cell_registry SET value = LAST_INSERT_ID(value + COALESCE(segment_step, step)), segment_step = #{step} WHERE name = #{name}";
+    }
+
+    @Override
+    public boolean isAllocationReturning() {
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.infra.dal.dialect;
+
+/**
+ * The PostgreSQL dialect.
+ * <p>The new value of the allocation is returned by {@code UPDATE ... RETURNING}.</p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class PostgreSqlDialect implements CellDialect {
+
+    @Override
+    public String getDatabaseId() {
+        return "postgresql";
+    }
+
+    @Override
+    public boolean supports(String databaseProductName) {
+        return "PostgreSQL".equalsIgnoreCase(databaseProductName);
+    }
+
+    @Override
+    public String existCellRegistry() {
+        return "SELECT count(*) FROM information_schema.tables WHERE table_schema = current_schema() AND table_name = 'cell_registry'";
+    }
+
+    @Override
+    public String insertIfAbsent() {
+        return "<script>"
+                + "INSERT INTO cell_registry(name, value, min_value, max_value, step, create_time, update_time) VALUES "
+                + "<foreach collection='pos' item='po' separator=','>"
+                + "(#{po.name},#{po.longValue},#{po.longMinValue},#{po.longMaxValue},#{po.step},#{po.createTime},#{po.updateTime})"
+                + "</foreach>"
+                + " ON CONFLICT (name) DO NOTHING"
+                + "</script>";
+    }
+
+    @Override
+    public String allocateSegment() {
+        return "UPDATE cell_registry SET value = value + COALESCE(segment_step, step), segment_step = #{step} WHERE name = #{name} RETURNING value";
+    }
+
+    @Override
+    public boolean isAllocationReturning() {
+        return true;
+    }
+}
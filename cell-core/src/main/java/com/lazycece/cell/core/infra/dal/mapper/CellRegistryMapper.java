@@ -16,10 +16,13 @@
 
 package com.lazycece.cell.core.infra.dal.mapper;
 
+import com.lazycece.cell.core.infra.dal.dialect.CellDialect;
+import com.lazycece.cell.core.infra.dal.dialect.CellDialectSqlProvider;
 import com.lazycece.cell.core.infra.dal.po.CellRegistryPO;
 import org.apache.ibatis.annotations.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author lazycece
@@ -31,7 +34,7 @@ public interface CellRegistryMapper {
     /**
      * To judge cell registry table exist or not.
      */
-    @Select("SELECT count(*) FROM information_schema.TABLES WHERE table_name ='cell_registry'")
+    @SelectProvider(type = CellDialectSqlProvider.class, method = "existCellRegistry")
     int existCellRegistry();
 
     /**
@@ -40,9 +43,18 @@ public interface CellRegistryMapper {
      * @param po ${@link CellRegistryPO}
      */
     @Insert({"INSERT INTO cell_registry(name, value, min_value, max_value, step, create_time, update_time) ",
-            "VALUES (#{name},#{value},#{minValue},#{maxValue},#{step},#{createTime},#{updateTime})"})
+            "VALUES (#{name},#{longValue},#{longMinValue},#{longMaxValue},#{step},#{createTime},#{updateTime})"})
     void insert(CellRegistryPO po);
 
+    /**
+     * Insert cell registries in one statement, the existing names are skipped.
+     *
+     * @param pos ${@link CellRegistryPO}
+     * @return result
+     */
+    @InsertProvider(type = CellDialectSqlProvider.class, method = "insertIfAbsent")
+    int insertIfAbsent(@Param("pos") List<CellRegistryPO> pos);
+
     /**
      * Find cell registry by cell's name.
      *
@@ -53,9 +65,9 @@ public interface CellRegistryMapper {
     @Results(value = {
             @Result(column = "id", property = "id"),
             @Result(column = "name", property = "name"),
-            @Result(column = "value", property = "value"),
-            @Result(column = "min_value", property = "minValue"),
-            @Result(column = "max_value", property = "maxValue"),
+            @Result(column = "value", property = "longValue"),
+            @Result(column = "min_value", property = "longMinValue"),
+            @Result(column = "max_value", property = "longMaxValue"),
             @Result(column = "step", property = "step"),
             @Result(column = "create_time", property = "createTime"),
             @Result(column = "update_time", property = "updateTime")
@@ -63,24 +75,64 @@ public interface CellRegistryMapper {
     CellRegistryPO findByName(String name);
 
     /**
-     * Find cell registry by cell's name.
+     * Find cell registry by cell's name with lock, and the step of the last segment.
      *
      * @param name cell name
      * @return see ${@link CellRegistryPO}
      */
-    @Select("SELECT id, name, value, min_value, max_value, step, create_time, update_time FROM cell_registry WHERE name = #{name} FOR UPDATE")
+    @Select("SELECT id, name, value, min_value, max_value, step, segment_step, create_time, update_time FROM cell_registry WHERE name = #{name} FOR UPDATE")
     @Results(value = {
             @Result(column = "id", property = "id"),
             @Result(column = "name", property = "name"),
-            @Result(column = "value", property = "value"),
-            @Result(column = "min_value", property = "minValue"),
-            @Result(column = "max_value", property = "maxValue"),
+            @Result(column = "value", property = "longValue"),
+            @Result(column = "min_value", property = "longMinValue"),
+            @Result(column = "max_value", property = "longMaxValue"),
             @Result(column = "step", property = "step"),
+            @Result(column = "segment_step", property = "segmentStep"),
             @Result(column = "create_time", property = "createTime"),
             @Result(column = "update_time", property = "updateTime")
     })
     CellRegistryPO lockFindByName(String name);
 
+    /**
+     * Find cell registry by cell's names.
+     *
+     * @param names cell names
+     * @return see ${@link CellRegistryPO}
+     */
+    @Select({"<script>",
+            "SELECT id, name, value, min_value, max_value, step, create_time, update_time FROM cell_registry WHERE name IN",
+            "<foreach collection='names' item='name' open='(' separator=',' close=')'>#{name}</foreach>",
+            "</script>"})
+    @Results(value = {
+            @Result(column = "id", property = "id"),
+            @Result(column = "name", property = "name"),
+            @Result(column = "value", property = "longValue"),
+            @Result(column = "min_value", property = "longMinValue"),
+            @Result(column = "max_value", property = "longMaxValue"),
+            @Result(column = "step", property = "step"),
+            @Result(column = "create_time", property = "createTime"),
+            @Result(column = "update_time", property = "updateTime")
+    })
+    List<CellRegistryPO> findByNames(@Param("names") List<String> names);
+
+    /**
+     * Find the learned step of the cell registry by cell's names.
+     *
+     * @param names cell names
+     * @return see ${@link CellRegistryPO}, only name, learned step and consumption rate
+     */
+    @Select({"<script>",
+            "SELECT name, learned_step, consumption_rate FROM cell_registry WHERE name IN",
+            "<foreach collection='names' item='name' open='(' separator=',' close=')'>#{name}</foreach>",
+            "</script>"})
+    @Results(value = {
+            @Result(column = "name", property = "name"),
+            @Result(column = "learned_step", property = "learnedStep"),
+            @Result(column = "consumption_rate", property = "consumptionRate")
+    })
+    List<CellRegistryPO> findLearnedStepByNames(@Param("names") List<String> names);
+
     /**
      * Find all cell registry name.
      *
@@ -89,21 +141,53 @@ public interface CellRegistryMapper {
     @Select("SELECT name FROM cell_registry")
     List<String> findAllName();
 
+    /**
+     * Find the registry names may be the shards of the cell, they need to be filtered since the name may contain
+     * the wildcard of {@code LIKE}.
+     *
+     * @param name cell name
+     * @return cell registry name list
+     */
+    @Select("SELECT name FROM cell_registry WHERE name LIKE CONCAT(#{name}, '#%')")
+    List<String> findShardNames(String name);
+
     /**
      * Update by cell registry name.
+     * <p>The value is increased by the step of the last segment, and the step is saved as the step of this one.</p>
      *
      * @return result
      */
-    @Update("UPDATE cell_registry SET value = value + step WHERE name = #{name}")
+    @Update("UPDATE cell_registry SET value = value + COALESCE(segment_step, step), segment_step = step WHERE name = #{name}")
     int updateValueByName(String name);
 
     /**
-     * Update by cell registry name, use custom step.
+     * Update by cell registry name, use custom step, and get the new value in the same statement.
+     * <p>
+     * The value is increased by the step of the last segment ({@code segment_step}, or {@code step} if not allocated
+     * yet), and the custom step is saved as the step of this one, so the segments are contiguous even if the step
+     * changes. The configured {@code step} is not changed. The new value is returned as the generated key
+     * (such as MySQL's {@code LAST_INSERT_ID(expr)}), and set to ${@link CellRegistryPO#getLongValue()}.
+     * </p>
+     * <p>Only for the dialect whose allocation is not returning, see ${@link CellDialect#isAllocationReturning()}.</p>
      *
+     * @param po ${@link CellRegistryPO}, with name and step
      * @return result
      */
-    @Update("UPDATE cell_registry SET value = value + #{step} WHERE name = #{name}")
-    int updateValueByNameWithGivenStep(@Param("name") String name, @Param("step") Integer step);
+    @UpdateProvider(type = CellDialectSqlProvider.class, method = "allocateSegment")
+    @Options(useGeneratedKeys = true, keyProperty = "longValue")
+    int updateValueByNameWithGivenStep(CellRegistryPO po);
+
+    /**
+     * Update by cell registry name, use custom step, and return the new value in the same statement,
+     * such as PostgreSQL's {@code UPDATE ... RETURNING}.
+     * <p>Only for the dialect whose allocation is returning, see ${@link CellDialect#isAllocationReturning()}.</p>
+     *
+     * @param po ${@link CellRegistryPO}, with name and step
+     * @return the new value
+     */
+    @SelectProvider(type = CellDialectSqlProvider.class, method = "allocateSegment")
+    @Options(flushCache = Options.FlushCachePolicy.TRUE, useCache = false)
+    Long updateValueAndGetByNameWithGivenStep(CellRegistryPO po);
 
     /**
      * Update by cell registry name, to reset value.
@@ -112,4 +196,49 @@ public interface CellRegistryMapper {
      */
     @Update("UPDATE cell_registry SET value = min_value WHERE name = #{name}")
     int updateValueByReset(String name);
+
+    /**
+     * Update by cell registry name, to reset value, only if the value is not updated after the given one.
+     *
+     * @return result
+     */
+    @Update("UPDATE cell_registry SET value = min_value WHERE name = #{name} AND value = #{value}")
+    int updateValueByResetIfMatch(@Param("name") String name, @Param("value") Long value);
+
+    /**
+     * Update by cell registry names, use the given step of each name, or the origin step if the given one is null.
+     * <p>The value is increased by the step of the last segment, and the given step is saved as the step of this one.</p>
+     *
+     * @param steps the step of each name
+     * @return result
+     */
+    @Update({"<script>",
+            "UPDATE cell_registry SET value = value + COALESCE(segment_step, step), segment_step = CASE name",
+            "<foreach collection='steps' index='name' item='step'>WHEN #{name} THEN COALESCE(#{step,jdbcType=INTEGER}, step) </foreach>",
+            "END WHERE name IN",
+            "<foreach collection='steps' index='name' open='(' separator=',' close=')'>#{name}</foreach>",
+            "</script>"})
+    int updateValueByNames(@Param("steps") Map<String, Integer> steps);
+
+    /**
+     * Update by cell registry names, to reset value.
+     *
+     * @param names cell names
+     * @return result
+     */
+    @Update({"<script>",
+            "UPDATE cell_registry SET value = min_value WHERE name IN",
+            "<foreach collection='names' item='name' open='(' separator=',' close=')'>#{name}</foreach>",
+            "</script>"})
+    int updateValueByResetNames(@Param("names") List<String> names);
+
+    /**
+     * Update the learned step by cell registry name, the consumption rate is kept if not given.
+     *
+     * @return result
+     */
+    @Update({"UPDATE cell_registry SET learned_step = #{learnedStep}, ",
+            "consumption_rate = COALESCE(#{consumptionRate,jdbcType=DOUBLE}, consumption_rate) WHERE name = #{name}"})
+    int updateLearnedStepByName(@Param("name") String name, @Param("learnedStep") Integer learnedStep,
+                                @Param("consumptionRate") Double consumptionRate);
 }
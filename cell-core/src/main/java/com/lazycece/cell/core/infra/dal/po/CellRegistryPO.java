@@ -35,19 +35,31 @@ public class CellRegistryPO {
     /**
      * current value
      */
-    private Integer value;
+    private Long value;
     /**
      * min value
      */
-    private Integer minValue;
+    private Long minValue;
     /**
      * max value
      */
-    private Integer maxValue;
+    private Long maxValue;
     /**
      * the step, that the interval size of the value.
      */
     private Integer step;
+    /**
+     * the step of the last allocated segment, null if not allocated yet.
+     */
+    private Integer segmentStep;
+    /**
+     * the step learned by the cell buffer, null if not learned yet.
+     */
+    private Integer learnedStep;
+    /**
+     * the consumption rate learned by the cell buffer (values per second), null if not learned yet.
+     */
+    private Double consumptionRate;
     /**
      * create time
      */
@@ -74,26 +86,50 @@ public class CellRegistryPO {
     }
 
     public Integer getValue() {
-        return value;
+        return value == null ? null : Math.toIntExact(value);
     }
 
     public void setValue(Integer value) {
+        this.value = value == null ? null : value.longValue();
+    }
+
+    public Long getLongValue() {
+        return value;
+    }
+
+    public void setLongValue(Long value) {
         this.value = value;
     }
 
     public Integer getMinValue() {
-        return minValue;
+        return minValue == null ? null : Math.toIntExact(minValue);
     }
 
     public void setMinValue(Integer minValue) {
+        this.minValue = minValue == null ? null : minValue.longValue();
+    }
+
+    public Long getLongMinValue() {
+        return minValue;
+    }
+
+    public void setLongMinValue(Long minValue) {
         this.minValue = minValue;
     }
 
     public Integer getMaxValue() {
-        return maxValue;
+        return maxValue == null ? null : Math.toIntExact(maxValue);
     }
 
     public void setMaxValue(Integer maxValue) {
+        this.maxValue = maxValue == null ? null : maxValue.longValue();
+    }
+
+    public Long getLongMaxValue() {
+        return maxValue;
+    }
+
+    public void setLongMaxValue(Long maxValue) {
         this.maxValue = maxValue;
     }
 
@@ -105,6 +141,30 @@ public class CellRegistryPO {
         this.step = step;
     }
 
+    public Integer getSegmentStep() {
+        return segmentStep;
+    }
+
+    public void setSegmentStep(Integer segmentStep) {
+        this.segmentStep = segmentStep;
+    }
+
+    public Integer getLearnedStep() {
+        return learnedStep;
+    }
+
+    public void setLearnedStep(Integer learnedStep) {
+        this.learnedStep = learnedStep;
+    }
+
+    public Double getConsumptionRate() {
+        return consumptionRate;
+    }
+
+    public void setConsumptionRate(Double consumptionRate) {
+        this.consumptionRate = consumptionRate;
+    }
+
     public Date getCreateTime() {
         return createTime;
     }
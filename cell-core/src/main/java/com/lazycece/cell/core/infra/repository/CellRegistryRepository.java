@@ -19,6 +19,8 @@ package com.lazycece.cell.core.infra.repository;
 import com.lazycece.cell.core.model.CellRegistry;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
 
 /**
  * @author lazycece
@@ -41,12 +43,44 @@ public interface CellRegistryRepository {
     void save(CellRegistry cellRegistry);
 
     /**
-     * Query all cell registry name.
+     * Save the cell registries in one statement, the existing names are skipped.
+     *
+     * @param cellRegistries ${@link CellRegistry}
+     * @return the count of saved cell registries
+     */
+    int saveIfAbsent(List<CellRegistry> cellRegistries);
+
+    /**
+     * Save the shards of the cell in one transaction, the row of the cell (if any) is locked meanwhile so no segment
+     * is allocated from it, and the shards start after its last allocated segment, the existing names are skipped.
+     * <p>
+     * The nodes that have not sharded the cell keep allocating from the row of the cell after the lock is released,
+     * so all nodes must be stopped before the cell is sharded.
+     * </p>
+     *
+     * @param name          cell name
+     * @param minValue      the start value of the shards if the cell has no row
+     * @param shardsBuilder build the shards from the start value
+     * @return the count of saved shards
+     */
+    int saveShardsIfAbsent(String name, long minValue, LongFunction<List<CellRegistry>> shardsBuilder);
+
+    /**
+     * Query all cell name, the shards of a cell are merged into the cell name.
      *
      * @return cell registry name list
      */
     List<String> queryAllName();
 
+    /**
+     * Query the registry names of the cell's shards, the preferred one of this node first.
+     * <p>It's the cell name itself only, if the cell is not sharded.</p>
+     *
+     * @param name name
+     * @return registry name list
+     */
+    List<String> queryShardNames(String name);
+
     /**
      * Query cell registry.
      *
@@ -74,10 +108,36 @@ public interface CellRegistryRepository {
 
     /**
      * Update cell's value , and get cell registry information.
-     * <p>using given step value</p>
+     * <p>using given step value, the segment is contiguous with the last one even if the step changes</p>
      *
      * @param name name
      * @return see ${@link CellRegistry}
      */
     CellRegistry updateValueAndGet(String name, Integer step);
+
+    /**
+     * Update the values of cells in one transaction, and get cell registry information.
+     * <p>using the given step of each name, or the origin step if the given one is null</p>
+     *
+     * @param steps the step of each name
+     * @return see ${@link CellRegistry}
+     */
+    List<CellRegistry> updateValuesAndGet(Map<String, Integer> steps);
+
+    /**
+     * Query the learned step and consumption rate of the cells.
+     *
+     * @param names names
+     * @return see ${@link CellRegistry}, only name, learned step and consumption rate
+     */
+    List<CellRegistry> queryLearnedSteps(List<String> names);
+
+    /**
+     * Save the learned step and consumption rate of the cell.
+     *
+     * @param name            name
+     * @param learnedStep     the learned step
+     * @param consumptionRate the consumption rate (values per second), the saved one is kept if null
+     */
+    void saveLearnedStep(String name, Integer learnedStep, Double consumptionRate);
 }
@@ -18,18 +18,38 @@ package com.lazycece.cell.core.infra.repository;
 
 import com.lazycece.cell.core.exception.CellAssert;
 import com.lazycece.cell.core.infra.converter.CellRegistryConverter;
+import com.lazycece.cell.core.infra.dal.dialect.CellDialect;
+import com.lazycece.cell.core.infra.dal.dialect.CellDialects;
 import com.lazycece.cell.core.infra.dal.mapper.CellRegistryMapper;
 import com.lazycece.cell.core.infra.dal.po.CellRegistryPO;
 import com.lazycece.cell.core.model.CellRegistry;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
 
 /**
+ * The cell registry repository.
+ * <p>
+ * A sharded cell has several registry rows named by ${@link CellRegistry#shardName(String, int)}, each one owns
+ * a disjoint sub-range. The values of the cell are allocated from the preferred shard of this node (by the node id),
+ * and the other shards in turn if it fails, so the nodes don't contend for the same row.
+ * </p>
+ *
  * @author lazycece
  * @date 2023/9/9
  */
@@ -37,10 +57,16 @@ import java.util.List;
 public class CellRegistryRepositoryImpl implements CellRegistryRepository {
 
     private Logger log = LoggerFactory.getLogger(CellRegistryRepositoryImpl.class);
+    private final ConcurrentHashMap<String/*name*/, CellRegistry> LIMIT_MAP = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String/*name*/, List<String>/*shard names*/> SHARD_MAP = new ConcurrentHashMap<>();
+    private volatile int nodeId = ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
     @Autowired
     private CellRegistryMapper cellRegistryMapper;
     @Autowired
     private TransactionTemplate transactionTemplate;
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+    private volatile CellDialect dialect;
 
     /**
      * @see CellRegistryRepository#existCellRegistry()
@@ -59,12 +85,113 @@ public class CellRegistryRepositoryImpl implements CellRegistryRepository {
         cellRegistryMapper.insert(po);
     }
 
+    /**
+     * @see CellRegistryRepository#saveIfAbsent(List)
+     */
+    @Override
+    public int saveIfAbsent(List<CellRegistry> cellRegistries) {
+        if (cellRegistries.isEmpty()) {
+            return 0;
+        }
+        List<CellRegistryPO> pos = cellRegistries.stream()
+                .map(CellRegistryConverter::toCellRegistryPO)
+                .collect(Collectors.toList());
+        int result = cellRegistryMapper.insertIfAbsent(pos);
+        cellRegistries.forEach(cellRegistry -> SHARD_MAP.remove(CellRegistry.cellName(cellRegistry.getName())));
+        return result;
+    }
+
+    /**
+     * @see CellRegistryRepository#saveShardsIfAbsent(String, long, LongFunction)
+     */
+    @Override
+    public int saveShardsIfAbsent(String name, long minValue, LongFunction<List<CellRegistry>> shardsBuilder) {
+        return transactionTemplate.execute(status -> {
+            CellRegistryPO po = cellRegistryMapper.lockFindByName(name);
+            // the last segment is [value, value + segment_step), the step column may be smaller than it
+            long startValue = po == null ? minValue
+                    : po.getLongValue() + (po.getSegmentStep() != null ? po.getSegmentStep() : po.getStep());
+            return saveIfAbsent(shardsBuilder.apply(startValue));
+        });
+    }
+
     /**
      * @see CellRegistryRepository#queryAllName()
      */
     @Override
     public List<String> queryAllName() {
-        return cellRegistryMapper.findAllName();
+        Map<String, List<String>> shardNameMap = new LinkedHashMap<>();
+        for (String registryName : cellRegistryMapper.findAllName()) {
+            List<String> shardNames = shardNameMap.computeIfAbsent(CellRegistry.cellName(registryName), key -> new ArrayList<>());
+            if (!registryName.equals(CellRegistry.cellName(registryName))) {
+                shardNames.add(registryName);
+            }
+        }
+        shardNameMap.forEach((name, shardNames) -> SHARD_MAP.put(name, preferredOrder(name, shardNames)));
+        return new ArrayList<>(shardNameMap.keySet());
+    }
+
+    /**
+     * @see CellRegistryRepository#queryShardNames(String)
+     */
+    @Override
+    public List<String> queryShardNames(String name) {
+        List<String> shardNames = SHARD_MAP.get(name);
+        if (shardNames == null) {
+            List<String> found = cellRegistryMapper.findShardNames(name).stream()
+                    .filter(registryName -> name.equals(CellRegistry.cellName(registryName)))
+                    .collect(Collectors.toList());
+            shardNames = preferredOrder(name, found);
+            SHARD_MAP.put(name, shardNames);
+        }
+        return shardNames;
+    }
+
+    /**
+     * Order the shards from the preferred one of this node, the row of the cell name is ignored if sharded.
+     *
+     * @param name       cell name
+     * @param shardNames shard names
+     * @return shard names in order, or the cell name only if not sharded
+     */
+    private List<String> preferredOrder(String name, List<String> shardNames) {
+        if (shardNames.isEmpty()) {
+            return List.of(name);
+        }
+        List<String> ordered = new ArrayList<>(shardNames);
+        ordered.sort(Comparator.comparingInt(CellRegistry::shardIndex));
+        Collections.rotate(ordered, -Math.floorMod(nodeId, ordered.size()));
+        return Collections.unmodifiableList(ordered);
+    }
+
+    /**
+     * Allocate from the shards of the cell in order, until one succeeds.
+     *
+     * @param name       cell name
+     * @param allocation allocate from the registry row of the given name
+     * @return see ${@link CellRegistry}, named by the cell name
+     */
+    private CellRegistry allocateFromShards(String name, Function<String, CellRegistry> allocation) {
+        List<String> shardNames = queryShardNames(name);
+        RuntimeException failure = null;
+        for (String shardName : shardNames) {
+            try {
+                CellRegistry cellRegistry = allocation.apply(shardName);
+                cellRegistry.setName(name);
+                return cellRegistry;
+            } catch (RuntimeException e) {
+                if (shardNames.size() == 1) {
+                    throw e;
+                }
+                log.warn("Cell registry shard ({}) allocation fail, try the next one: {}", shardName, e.getMessage());
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    private String preferredShardName(String name) {
+        return queryShardNames(name).get(0);
     }
 
     /**
@@ -90,6 +217,10 @@ public class CellRegistryRepositoryImpl implements CellRegistryRepository {
      */
     @Override
     public CellRegistry updateValueAndGet(String name) {
+        return allocateFromShards(name, this::updateShardValueAndGet);
+    }
+
+    private CellRegistry updateShardValueAndGet(String name) {
         return transactionTemplate.execute(status -> {
             int result = cellRegistryMapper.updateValueByName(name);
             CellAssert.isTrue(result > 0, "To update cell's value fail (%s)", name);
@@ -114,10 +245,160 @@ public class CellRegistryRepositoryImpl implements CellRegistryRepository {
      */
     @Override
     public CellRegistry updateValueAndGet(String name, Integer step) {
+        return allocateFromShards(name, shardName -> updateShardValueAndGet(shardName, step));
+    }
+
+    private CellRegistry updateShardValueAndGet(String name, Integer step) {
+        CellRegistry limit = queryLimit(name);
         return transactionTemplate.execute(status -> {
-            int result = cellRegistryMapper.updateValueByNameWithGivenStep(name, step);
-            CellAssert.isTrue(result > 0, "To update cell's value fail (%s)", name);
-            return queryCellRegistryAndResetIfNeed(name);
+            while (true) {
+                Long value = allocateSegment(name, step);
+                CellRegistry cellRegistry = new CellRegistry();
+                cellRegistry.setName(name);
+                cellRegistry.setValue(value);
+                cellRegistry.setMinValue(limit.getLongMinValue());
+                cellRegistry.setMaxValue(limit.getLongMaxValue());
+                cellRegistry.setStep(step);
+                if (!cellRegistry.needReset()) {
+                    return cellRegistry;
+                }
+                // wrap around, allocate again if another one has updated the value after it
+                if (cellRegistryMapper.updateValueByResetIfMatch(name, value) > 0) {
+                    log.info("Cell registry ({}) reset successful. ", name);
+                    cellRegistry.setValue(limit.getLongMinValue());
+                    return cellRegistry;
+                }
+            }
         });
     }
+
+    /**
+     * Allocate a segment in one statement of the dialect.
+     *
+     * @param name name
+     * @param step step of the segment
+     * @return the new value
+     */
+    private Long allocateSegment(String name, Integer step) {
+        CellRegistryPO po = new CellRegistryPO();
+        po.setName(name);
+        po.setStep(step);
+        if (getDialect().isAllocationReturning()) {
+            Long value = cellRegistryMapper.updateValueAndGetByNameWithGivenStep(po);
+            CellAssert.notNull(value, "To update cell's value fail (%s)", name);
+            return value;
+        }
+        int result = cellRegistryMapper.updateValueByNameWithGivenStep(po);
+        CellAssert.isTrue(result > 0, "To update cell's value fail (%s)", name);
+        CellAssert.notNull(po.getLongValue(), "To update cell's value fail (%s), the new value is not returned", name);
+        return po.getLongValue();
+    }
+
+    private CellDialect getDialect() {
+        CellDialect cellDialect = dialect;
+        if (cellDialect == null) {
+            cellDialect = CellDialects.of(sqlSessionFactory.getConfiguration().getDatabaseId());
+            dialect = cellDialect;
+        }
+        return cellDialect;
+    }
+
+    /**
+     * Get the min and max value of the cell registry, they are cached since rarely changed.
+     *
+     * @param name name
+     * @return see ${@link CellRegistry}
+     */
+    private CellRegistry queryLimit(String name) {
+        CellRegistry limit = LIMIT_MAP.get(name);
+        if (limit == null) {
+            limit = queryByName(name);
+            CellAssert.notNull(limit, "Cell registry (%s) is null", name);
+            LIMIT_MAP.put(name, limit);
+        }
+        return limit;
+    }
+
+    /**
+     * @see CellRegistryRepository#updateValuesAndGet(Map)
+     */
+    @Override
+    public List<CellRegistry> updateValuesAndGet(Map<String, Integer> steps) {
+        Map<String/*shard name*/, String/*name*/> nameMap = new LinkedHashMap<>();
+        Map<String/*shard name*/, Integer> shardSteps = new LinkedHashMap<>();
+        steps.forEach((name, step) -> {
+            String shardName = preferredShardName(name);
+            nameMap.put(shardName, name);
+            shardSteps.put(shardName, step);
+        });
+        List<String> names = new ArrayList<>(shardSteps.keySet());
+        List<CellRegistry> cellRegistries = transactionTemplate.execute(status -> {
+            int result = cellRegistryMapper.updateValueByNames(shardSteps);
+            CellAssert.isTrue(result == names.size(), "To update cells' value fail (%s)", names);
+            return queryCellRegistriesAndResetIfNeed(names);
+        });
+        cellRegistries.forEach(cellRegistry -> {
+            // the segment is of the given step, the step column is the configured one
+            Integer step = shardSteps.get(cellRegistry.getName());
+            if (step != null) {
+                cellRegistry.setStep(step);
+            }
+            cellRegistry.setName(nameMap.get(cellRegistry.getName()));
+        });
+        return cellRegistries;
+    }
+
+    private List<CellRegistry> queryCellRegistriesAndResetIfNeed(List<String> names) {
+        Map<String, CellRegistry> cellRegistryMap = queryByNames(names);
+        List<String> resetNames = cellRegistryMap.values().stream()
+                .filter(CellRegistry::needReset)
+                .map(CellRegistry::getName)
+                .collect(Collectors.toList());
+        if (!resetNames.isEmpty()) {
+            int result = cellRegistryMapper.updateValueByResetNames(resetNames);
+            CellAssert.isTrue(result == resetNames.size(), "To reset cells' value fail (%s)", resetNames);
+            log.info("Cell registry ({}) reset successful. ", resetNames);
+            cellRegistryMap.putAll(queryByNames(resetNames));
+        }
+        return new ArrayList<>(cellRegistryMap.values());
+    }
+
+    private Map<String, CellRegistry> queryByNames(List<String> names) {
+        Map<String, CellRegistry> cellRegistryMap = new LinkedHashMap<>();
+        cellRegistryMapper.findByNames(names).forEach(po -> cellRegistryMap.put(po.getName(), CellRegistryConverter.toCellRegistry(po)));
+        return cellRegistryMap;
+    }
+
+    /**
+     * @see CellRegistryRepository#queryLearnedSteps(List)
+     */
+    @Override
+    public List<CellRegistry> queryLearnedSteps(List<String> names) {
+        Map<String/*shard name*/, String/*name*/> nameMap = new LinkedHashMap<>();
+        names.forEach(name -> nameMap.put(preferredShardName(name), name));
+        List<CellRegistry> cellRegistries = cellRegistryMapper.findLearnedStepByNames(new ArrayList<>(nameMap.keySet())).stream()
+                .map(CellRegistryConverter::toCellRegistry)
+                .collect(Collectors.toList());
+        cellRegistries.forEach(cellRegistry -> cellRegistry.setName(nameMap.get(cellRegistry.getName())));
+        return cellRegistries;
+    }
+
+    /**
+     * @see CellRegistryRepository#saveLearnedStep(String, Integer, Double)
+     */
+    @Override
+    public void saveLearnedStep(String name, Integer learnedStep, Double consumptionRate) {
+        int result = cellRegistryMapper.updateLearnedStepByName(preferredShardName(name), learnedStep, consumptionRate);
+        CellAssert.isTrue(result > 0, "To save cell's learned step fail (%s)", name);
+    }
+
+    /**
+     * Set the node id, to pick the preferred shard of the sharded cells. It's random by default.
+     *
+     * @param nodeId node id
+     */
+    public void setNodeId(int nodeId) {
+        this.nodeId = nodeId;
+        SHARD_MAP.clear();
+    }
 }
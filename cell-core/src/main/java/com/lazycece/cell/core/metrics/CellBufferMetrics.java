@@ -0,0 +1,216 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.metrics;
+
+import com.lazycece.cell.core.buffer.BufferValue;
+import com.lazycece.cell.core.buffer.CellBuffer;
+import com.lazycece.cell.core.buffer.CellBufferListener;
+import com.lazycece.cell.core.buffer.CellBufferManager;
+import com.lazycece.cell.core.buffer.CellBufferRefresher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The Micrometer metrics of the cell buffers.
+ * <p>
+ * Per cell (tagged by {@code cell}):
+ * <ul>
+ *     <li>{@code cell.buffer.issued}: the values handed out, the rate of it is the ids per second</li>
+ *     <li>{@code cell.buffer.remaining}: the values not handed out, in the current segment ({@code segment=current})
+ *     and the prefetched ones ({@code segment=next})</li>
+ *     <li>{@code cell.buffer.step}: the step of the current segment</li>
+ *     <li>{@code cell.buffer.refill}: the db latency of the refills, with the percentile histogram</li>
+ *     <li>{@code cell.buffer.refill.failures}: the failed refills</li>
+ *     <li>{@code cell.buffer.wait}: the time the callers waited for the refill of the exhausted buffer</li>
+ *     <li>{@code cell.buffer.wait.timeouts}: the callers timeout</li>
+ * </ul>
+ * Per pool: {@code cell.buffer.refresher.pending} and {@code cell.buffer.refresher.running} of the refresher,
+ * and {@code cell.buffer.executor.queued} and {@code cell.buffer.executor.active} if the refresh executor is a
+ * ${@link ThreadPoolExecutor}.
+ * </p>
+ * <p>
+ * The gauges read the buffers while scraping, and the others are recorded by the ${@link CellBufferListener}
+ * events, so getting a value never pays for the metrics.
+ * </p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class CellBufferMetrics implements MeterBinder, CellBufferListener {
+
+    private static final String PREFIX = "cell.buffer";
+
+    private final CellBufferManager cellBufferManager;
+    private final Iterable<Tag> tags;
+    private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+    private final Map<CellBuffer, List<Meter>> bufferMeters = new ConcurrentHashMap<>();
+    private final AtomicBoolean listening = new AtomicBoolean(false);
+
+    public CellBufferMetrics(CellBufferManager cellBufferManager) {
+        this(cellBufferManager, Tags.empty());
+    }
+
+    /**
+     * Create the cell buffer metrics.
+     *
+     * @param cellBufferManager ${@link CellBufferManager}
+     * @param tags              the tags added to all the meters
+     */
+    public CellBufferMetrics(CellBufferManager cellBufferManager, Iterable<Tag> tags) {
+        this.cellBufferManager = cellBufferManager;
+        this.tags = tags;
+    }
+
+    /**
+     * @see MeterBinder#bindTo(MeterRegistry)
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        registries.add(registry);
+        Gauge.builder(PREFIX + ".refresher.pending", cellBufferManager, manager -> refresherCount(manager, true))
+                .tags(tags).description("The cell buffers waiting for refill").register(registry);
+        Gauge.builder(PREFIX + ".refresher.running", cellBufferManager, manager -> refresherCount(manager, false))
+                .tags(tags).description("The workers running refills").register(registry);
+        Executor executor = cellBufferManager.getRefreshExecutor();
+        if (executor instanceof ThreadPoolExecutor threadPoolExecutor) {
+            Gauge.builder(PREFIX + ".executor.queued", threadPoolExecutor, pool -> pool.getQueue().size())
+                    .tags(tags).description("The tasks queued in the refresh executor").register(registry);
+            Gauge.builder(PREFIX + ".executor.active", threadPoolExecutor, ThreadPoolExecutor::getActiveCount)
+                    .tags(tags).description("The threads running tasks in the refresh executor").register(registry);
+        }
+        // listen first, the buffers loaded while binding are registered twice at most, that's harmless
+        if (listening.compareAndSet(false, true)) {
+            cellBufferManager.addBufferListener(this);
+        }
+        cellBufferManager.getCellBuffers().forEach(cellBuffer -> registerBufferMeters(registry, cellBuffer));
+    }
+
+    private static double refresherCount(CellBufferManager manager, boolean pending) {
+        CellBufferRefresher refresher = manager.getRefresher();
+        if (refresher == null) {
+            return 0;
+        }
+        return pending ? refresher.pendingCount() : refresher.runningCount();
+    }
+
+    /**
+     * Register the gauges of the cell buffer, they are removed when the buffer is evicted.
+     *
+     * @param registry   ${@link MeterRegistry}
+     * @param cellBuffer ${@link CellBuffer}
+     */
+    private void registerBufferMeters(MeterRegistry registry, CellBuffer cellBuffer) {
+        Tags cellTags = cellTags(cellBuffer);
+        List<Meter> meters = bufferMeters.computeIfAbsent(cellBuffer, key -> new CopyOnWriteArrayList<>());
+        meters.add(FunctionCounter.builder(PREFIX + ".issued", cellBuffer, CellBuffer::getIssuedCount)
+                .tags(cellTags).baseUnit("ids").description("The values handed out").register(registry));
+        meters.add(Gauge.builder(PREFIX + ".remaining", cellBuffer, CellBufferMetrics::currentRemaining)
+                .tags(cellTags.and("segment", "current")).description("The values not handed out").register(registry));
+        meters.add(Gauge.builder(PREFIX + ".remaining", cellBuffer, CellBuffer::prefetchedRemaining)
+                .tags(cellTags.and("segment", "next")).description("The values not handed out").register(registry));
+        meters.add(Gauge.builder(PREFIX + ".step", cellBuffer, CellBufferMetrics::currentStep)
+                .tags(cellTags).description("The step of the current segment").register(registry));
+    }
+
+    private static double currentRemaining(CellBuffer cellBuffer) {
+        BufferValue bufferValue = cellBuffer.currentBufferValue();
+        return bufferValue == null ? 0 : bufferValue.remaining();
+    }
+
+    private static double currentStep(CellBuffer cellBuffer) {
+        BufferValue bufferValue = cellBuffer.currentBufferValue();
+        return bufferValue == null ? 0 : bufferValue.step();
+    }
+
+    private Tags cellTags(CellBuffer cellBuffer) {
+        return Tags.concat(tags, "cell", cellBuffer.getName());
+    }
+
+    /**
+     * @see CellBufferListener#onLoaded(CellBuffer)
+     */
+    @Override
+    public void onLoaded(CellBuffer cellBuffer) {
+        registries.forEach(registry -> registerBufferMeters(registry, cellBuffer));
+    }
+
+    /**
+     * @see CellBufferListener#onEvicted(CellBuffer)
+     */
+    @Override
+    public void onEvicted(CellBuffer cellBuffer) {
+        List<Meter> meters = bufferMeters.remove(cellBuffer);
+        if (meters != null) {
+            meters.forEach(meter -> registries.forEach(registry -> registry.remove(meter)));
+        }
+    }
+
+    /**
+     * @see CellBufferListener#onRefilled(CellBuffer, int, long)
+     */
+    @Override
+    public void onRefilled(CellBuffer cellBuffer, int step, long latency) {
+        for (MeterRegistry registry : registries) {
+            Timer.builder(PREFIX + ".refill").tags(cellTags(cellBuffer)).publishPercentileHistogram()
+                    .description("The db latency of the refills").register(registry)
+                    .record(latency, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @see CellBufferListener#onRefillFailed(CellBuffer, Exception)
+     */
+    @Override
+    public void onRefillFailed(CellBuffer cellBuffer, Exception e) {
+        for (MeterRegistry registry : registries) {
+            Counter.builder(PREFIX + ".refill.failures").tags(cellTags(cellBuffer))
+                    .description("The failed refills").register(registry).increment();
+        }
+    }
+
+    /**
+     * @see CellBufferListener#onWaited(CellBuffer, long, boolean)
+     */
+    @Override
+    public void onWaited(CellBuffer cellBuffer, long waitTime, boolean timeout) {
+        for (MeterRegistry registry : registries) {
+            Timer.builder(PREFIX + ".wait").tags(cellTags(cellBuffer))
+                    .description("The time the callers waited for the refill").register(registry)
+                    .record(waitTime, TimeUnit.NANOSECONDS);
+            if (timeout) {
+                Counter.builder(PREFIX + ".wait.timeouts").tags(cellTags(cellBuffer))
+                        .description("The callers timeout").register(registry).increment();
+            }
+        }
+    }
+}
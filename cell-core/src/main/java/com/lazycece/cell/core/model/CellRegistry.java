@@ -16,6 +16,8 @@
 
 package com.lazycece.cell.core.model;
 
+import com.lazycece.cell.core.exception.CellAssert;
+
 import java.util.Date;
 
 /**
@@ -26,6 +28,11 @@ import java.util.Date;
  */
 public class CellRegistry {
 
+    /**
+     * the separator between the cell name and the shard index in the registry name of a shard, such as {@code order#0}
+     */
+    public static final String SHARD_SEPARATOR = "#";
+
     /**
      * cell name
      */
@@ -33,19 +40,27 @@ public class CellRegistry {
     /**
      * current value
      */
-    private Integer value;
+    private Long value;
     /**
      * min value
      */
-    private Integer minValue;
+    private Long minValue;
     /**
      * max value
      */
-    private Integer maxValue;
+    private Long maxValue;
     /**
      * the step, that the interval size of the value.
      */
     private Integer step;
+    /**
+     * the step learned by the cell buffer, null if not learned yet.
+     */
+    private Integer learnedStep;
+    /**
+     * the consumption rate learned by the cell buffer (values per second), null if not learned yet.
+     */
+    private Double consumptionRate;
     /**
      * create time
      */
@@ -55,6 +70,59 @@ public class CellRegistry {
      */
     private Date updateTime;
 
+    /**
+     * Get the registry name of the cell's shard.
+     *
+     * @param name  cell name
+     * @param shard shard index
+     * @return shard name
+     */
+    public static String shardName(String name, int shard) {
+        return name + SHARD_SEPARATOR + shard;
+    }
+
+    /**
+     * Get the shard index of the registry name.
+     *
+     * @param registryName registry name
+     * @return shard index, -1 if it's not a shard
+     */
+    public static int shardIndex(String registryName) {
+        int index = registryName.lastIndexOf(SHARD_SEPARATOR);
+        if (index <= 0 || index == registryName.length() - 1) {
+            return -1;
+        }
+        for (int i = index + 1; i < registryName.length(); i++) {
+            if (!Character.isDigit(registryName.charAt(i))) {
+                return -1;
+            }
+        }
+        try {
+            return Integer.parseInt(registryName.substring(index + 1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Get the cell name of the registry name.
+     *
+     * @param registryName registry name
+     * @return cell name, the registry name itself if it's not a shard
+     */
+    public static String cellName(String registryName) {
+        return shardIndex(registryName) < 0 ? registryName : registryName.substring(0, registryName.lastIndexOf(SHARD_SEPARATOR));
+    }
+
+    private static Integer intValue(Long value) {
+        if (value == null) {
+            return null;
+        }
+        CellAssert.isTrue(value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE,
+                "cell registry value (%s) out of int range, use the long value instead.", value);
+        return value.intValue();
+    }
+
     public boolean needReset() {
         if (value >= maxValue) {
             return true;
@@ -70,27 +138,66 @@ public class CellRegistry {
         this.name = name;
     }
 
+    /**
+     * Get the current value, use ${@link #getLongValue()} in the 64-bit mode.
+     *
+     * @return current value
+     */
     public Integer getValue() {
+        return intValue(value);
+    }
+
+    public Long getLongValue() {
         return value;
     }
 
     public void setValue(Integer value) {
+        this.value = value == null ? null : value.longValue();
+    }
+
+    public void setValue(Long value) {
         this.value = value;
     }
 
+    /**
+     * Get the min value, use ${@link #getLongMinValue()} in the 64-bit mode.
+     *
+     * @return min value
+     */
     public Integer getMinValue() {
+        return intValue(minValue);
+    }
+
+    public Long getLongMinValue() {
         return minValue;
     }
 
     public void setMinValue(Integer minValue) {
+        this.minValue = minValue == null ? null : minValue.longValue();
+    }
+
+    public void setMinValue(Long minValue) {
         this.minValue = minValue;
     }
 
+    /**
+     * Get the max value, use ${@link #getLongMaxValue()} in the 64-bit mode.
+     *
+     * @return max value
+     */
     public Integer getMaxValue() {
+        return intValue(maxValue);
+    }
+
+    public Long getLongMaxValue() {
         return maxValue;
     }
 
     public void setMaxValue(Integer maxValue) {
+        this.maxValue = maxValue == null ? null : maxValue.longValue();
+    }
+
+    public void setMaxValue(Long maxValue) {
         this.maxValue = maxValue;
     }
 
@@ -102,6 +209,22 @@ public class CellRegistry {
         this.step = step;
     }
 
+    public Integer getLearnedStep() {
+        return learnedStep;
+    }
+
+    public void setLearnedStep(Integer learnedStep) {
+        this.learnedStep = learnedStep;
+    }
+
+    public Double getConsumptionRate() {
+        return consumptionRate;
+    }
+
+    public void setConsumptionRate(Double consumptionRate) {
+        this.consumptionRate = consumptionRate;
+    }
+
     public Date getCreateTime() {
         return createTime;
     }
@@ -20,8 +20,11 @@ import com.lazycece.cell.specification.CellFacade;
 import com.lazycece.cell.spring.boot.sample.model.CellEnum;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 /**
  * @author lazycece
  * @date 2023/11/6
@@ -41,4 +44,9 @@ public class CellSpringSampleController {
     public String getGoodsId() {
         return cellFacade.generateId(CellEnum.GOODS);
     }
+
+    @GetMapping("/cell-spec/orderIds")
+    public List<String> getOrderIds(@RequestParam(defaultValue = "10") int count) {
+        return cellFacade.generateIds(CellEnum.ORDER, count);
+    }
 }
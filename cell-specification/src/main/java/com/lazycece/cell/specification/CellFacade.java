@@ -18,6 +18,9 @@ package com.lazycece.cell.specification;
 
 import com.lazycece.cell.specification.model.CellType;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Cell facade service.
  *
@@ -34,4 +37,23 @@ public interface CellFacade {
      */
     String generateId(CellType cellType);
 
+    /**
+     * Generate a batch of id.
+     *
+     * @param cellType ${@link CellType}
+     * @param count    the count of id
+     * @return cell id list
+     */
+    List<String> generateIds(CellType cellType, int count);
+
+    /**
+     * Generate id asynchronously, the calling thread is never blocked.
+     * <p>It completes exceptionally with {@code CellTimeoutException} if the buffer is exhausted
+     * and not expanded within the wait timeout.</p>
+     *
+     * @param cellType ${@link CellType}
+     * @return the future of cell id
+     */
+    CompletableFuture<String> generateIdAsync(CellType cellType);
+
 }
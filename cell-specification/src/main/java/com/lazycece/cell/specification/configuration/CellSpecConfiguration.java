@@ -51,6 +51,17 @@ public class CellSpecConfiguration {
      */
     private Integer maxValue = Integer.MAX_VALUE;
 
+    /**
+     * max value of the 64-bit mode, it overrides the max value if set, and it can be larger than
+     * ${@code Integer.MAX_VALUE} with a longer sequence length and the BIGINT cell_registry columns.
+     */
+    private Long longMaxValue;
+
+    /**
+     * The sequence length of cell id, default value is 10
+     */
+    private Integer sequenceLength = 10;
+
     /**
      * the step, that the interval size of the value.
      */
@@ -96,6 +107,22 @@ public class CellSpecConfiguration {
         this.maxValue = maxValue;
     }
 
+    public Long getLongMaxValue() {
+        return longMaxValue;
+    }
+
+    public void setLongMaxValue(Long longMaxValue) {
+        this.longMaxValue = longMaxValue;
+    }
+
+    public Integer getSequenceLength() {
+        return sequenceLength;
+    }
+
+    public void setSequenceLength(Integer sequenceLength) {
+        this.sequenceLength = sequenceLength;
+    }
+
     public Integer getStep() {
         return step;
     }
@@ -16,11 +16,14 @@
 
 package com.lazycece.cell.specification.factory;
 
+import com.lazycece.cell.core.exception.CellAssert;
 import com.lazycece.cell.core.model.CellRegistry;
 import com.lazycece.cell.specification.configuration.CellSpecConfiguration;
 import com.lazycece.cell.specification.model.CellType;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 /**
  * @author lazycece
@@ -33,10 +36,44 @@ public class CellRegistryFactory {
         cellRegistry.setName(cellType.getName());
         cellRegistry.setValue(configuration.getMinValue());
         cellRegistry.setMinValue(configuration.getMinValue());
-        cellRegistry.setMaxValue(configuration.getMaxValue());
+        cellRegistry.setMaxValue(maxValue(configuration));
         cellRegistry.setStep(configuration.getStep());
         cellRegistry.setCreateTime(new Date());
         cellRegistry.setUpdateTime(new Date());
         return cellRegistry;
     }
+
+    /**
+     * Build the shards of the cell, the range [startValue, maxValue] is split into disjoint sub-ranges.
+     *
+     * @param cellType      ${@link CellType}
+     * @param configuration ${@link CellSpecConfiguration}
+     * @param startValue    the first value of the shards, to skip the values allocated before sharding
+     * @return the shards
+     */
+    public static List<CellRegistry> buildShards(CellType cellType, CellSpecConfiguration configuration, long startValue) {
+        int shards = cellType.getShards();
+        long maxValue = maxValue(configuration);
+        long span = (maxValue - startValue + 1) / shards;
+        CellAssert.isTrue(span >= 2L * configuration.getStep(),
+                "The range of cell (%s) is too small for %s shards.", cellType.getName(), shards);
+        List<CellRegistry> cellRegistries = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            CellRegistry cellRegistry = build(cellType, configuration);
+            long minValue = startValue + i * span;
+            cellRegistry.setName(CellRegistry.shardName(cellType.getName(), i));
+            cellRegistry.setValue(minValue);
+            cellRegistry.setMinValue(minValue);
+            cellRegistry.setMaxValue(i == shards - 1 ? maxValue : minValue + span - 1);
+            cellRegistries.add(cellRegistry);
+        }
+        return cellRegistries;
+    }
+
+    /**
+     * Get the max value, the one of the 64-bit mode if set.
+     */
+    private static long maxValue(CellSpecConfiguration configuration) {
+        return configuration.getLongMaxValue() != null ? configuration.getLongMaxValue() : configuration.getMaxValue();
+    }
 }
@@ -23,21 +23,19 @@ import com.lazycece.cell.core.model.CellRegistry;
 import com.lazycece.cell.specification.CellFacade;
 import com.lazycece.cell.specification.configuration.CellSpecConfiguration;
 import com.lazycece.cell.specification.factory.CellRegistryFactory;
-import com.lazycece.cell.specification.model.Cell;
-import com.lazycece.cell.specification.model.CellBuilder;
+import com.lazycece.cell.specification.model.CellSpec;
 import com.lazycece.cell.specification.model.CellType;
+import com.lazycece.cell.specification.model.SequenceSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.TransactionStatus;
-import org.springframework.transaction.support.TransactionCallbackWithoutResult;
-import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Arrays;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Cell facade service implement.
@@ -50,11 +48,11 @@ public class CellFacadeImpl implements CellFacade, ApplicationListener<ContextRe
 
     private final Logger log = LoggerFactory.getLogger(CellFacadeImpl.class);
     private CellSpecConfiguration configuration = new CellSpecConfiguration();
+    private CellPrefixCache prefixCache = new CellPrefixCache(configuration);
+    private TimeSequenceGenerator timeSequenceGenerator = new TimeSequenceGenerator(configuration);
     private Class<? extends CellType> cellTypeClass;
     @Autowired
     private CellRegistryRepository cellRegistryRepository;
-    @Autowired
-    private TransactionTemplate transactionTemplate;
 
     /**
      * @see CellFacade#generateId
@@ -62,16 +60,63 @@ public class CellFacadeImpl implements CellFacade, ApplicationListener<ContextRe
     @Override
     public String generateId(CellType cellType) {
         CellAssert.notNull(cellType, "invalid cell type.");
-        int value = CellBufferManager.getInstance().getSequence(cellType.getName());
-        Cell cell = CellBuilder.builder()
-                .pattern(configuration.getPattern())
-                .code(cellType.getCode())
-                .date(new Date())
-                .dataCenter(configuration.getDataCenter())
-                .machine(configuration.getMachine())
-                .sequence(value)
-                .build();
-        return cell.toString();
+        if (cellType.getSequenceSource() == SequenceSource.TIME) {
+            return timeCellId(cellType);
+        }
+        long value = CellBufferManager.getInstance().getLongSequence(cellType.getName());
+        return CellSpec.getInstance().cellId(prefixCache.getPrefix(cellType), value, configuration.getSequenceLength());
+    }
+
+    /**
+     * Get the cell id with the time based sequence, the prefix is of the time bucket of the sequence.
+     *
+     * @param cellType ${@link CellType}
+     * @return cell id
+     */
+    private String timeCellId(CellType cellType) {
+        long value = timeSequenceGenerator.next(cellType.getName());
+        String prefix = prefixCache.getPrefix(cellType.getCode(), timeSequenceGenerator.timeOf(value));
+        return CellSpec.getInstance().cellId(prefix, timeSequenceGenerator.sequenceOf(value), configuration.getSequenceLength());
+    }
+
+    /**
+     * @see CellFacade#generateIds
+     */
+    @Override
+    public List<String> generateIds(CellType cellType, int count) {
+        CellAssert.notNull(cellType, "invalid cell type.");
+        if (cellType.getSequenceSource() == SequenceSource.TIME) {
+            CellAssert.isTrue(count > 0, "The count (%s) of sequences must be positive.", count);
+            List<String> cellIds = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                cellIds.add(timeCellId(cellType));
+            }
+            return cellIds;
+        }
+        long[] values = CellBufferManager.getInstance().getLongSequences(cellType.getName(), count);
+        String prefix = prefixCache.getPrefix(cellType);
+        List<String> cellIds = new ArrayList<>(count);
+        for (long value : values) {
+            cellIds.add(CellSpec.getInstance().cellId(prefix, value, configuration.getSequenceLength()));
+        }
+        return cellIds;
+    }
+
+    /**
+     * @see CellFacade#generateIdAsync
+     */
+    @Override
+    public CompletableFuture<String> generateIdAsync(CellType cellType) {
+        CellAssert.notNull(cellType, "invalid cell type.");
+        if (cellType.getSequenceSource() == SequenceSource.TIME) {
+            try {
+                return CompletableFuture.completedFuture(timeCellId(cellType));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CellBufferManager.getInstance().getSequenceAsync(cellType.getName())
+                .thenApply(value -> CellSpec.getInstance().cellId(prefixCache.getPrefix(cellType), value, configuration.getSequenceLength()));
     }
 
     /**
@@ -79,6 +124,10 @@ public class CellFacadeImpl implements CellFacade, ApplicationListener<ContextRe
      */
     @Override
     public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (allTimeSequence()) {
+            log.info("Cell started successfully, all cells are of the time sequence, the cell registry is not used.");
+            return;
+        }
         boolean exist = cellRegistryRepository.existCellRegistry();
         CellAssert.isTrue(exist, "The expected table(cell_registry) not exist in db.");
         autoRegisterCell();
@@ -86,6 +135,23 @@ public class CellFacadeImpl implements CellFacade, ApplicationListener<ContextRe
         log.info("Cell started successfully.");
     }
 
+    /**
+     * Whether all cell types are of the time sequence, then neither the cell registry nor the cell buffers are needed.
+     *
+     * @return false if the cell types are unknown (not registered automatically)
+     */
+    private boolean allTimeSequence() {
+        if (cellTypeClass == null || !cellTypeClass.isEnum()) {
+            return false;
+        }
+        for (CellType cellType : cellTypeClass.getEnumConstants()) {
+            if (cellType.getSequenceSource() != SequenceSource.TIME) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Register cell to db.
      */
@@ -95,20 +161,50 @@ public class CellFacadeImpl implements CellFacade, ApplicationListener<ContextRe
             return;
         }
         CellAssert.isTrue(cellTypeClass.isEnum(), "Cell type class not enum.");
-        Arrays.asList(cellTypeClass.getEnumConstants())
-                .forEach(cellType ->
-                        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
-                            @Override
-                            protected void doInTransactionWithoutResult(TransactionStatus status) {
-                                CellRegistry cellRegistry = cellRegistryRepository.lockQueryByName(cellType.getName());
-                                if (cellRegistry == null) {
-                                    cellRegistry = CellRegistryFactory.build(cellType, configuration);
-                                    cellRegistryRepository.save(cellRegistry);
-                                }
-                            }
-                        })
-                );
-        log.info("Cell register automatically finish.");
+        List<CellRegistry> cellRegistries = new ArrayList<>();
+        int count = 0;
+        int total = 0;
+        for (CellType cellType : cellTypeClass.getEnumConstants()) {
+            if (cellType.getSequenceSource() == SequenceSource.TIME) {
+                // generated locally, no registry
+                continue;
+            }
+            if (cellType.getShards() > 1) {
+                count += saveShardsIfAbsent(cellType);
+                total += cellType.getShards();
+            } else {
+                cellRegistries.add(CellRegistryFactory.build(cellType, configuration));
+            }
+        }
+        count += cellRegistryRepository.saveIfAbsent(cellRegistries);
+        total += cellRegistries.size();
+        log.info("Cell register automatically finish, {} of {} cells are new.", count, total);
+    }
+
+    /**
+     * Save the shards of the cell type, if not sharded yet. The values allocated from the cell's row are skipped.
+     * <p>
+     * Sharding a cell requires all nodes stopped first: a running node that has not sharded the cell keeps
+     * allocating from the cell's row, while the shards start after its last segment read at the sharding.
+     * </p>
+     *
+     * @return the count of saved shards
+     */
+    private int saveShardsIfAbsent(CellType cellType) {
+        List<String> shardNames = cellRegistryRepository.queryShardNames(cellType.getName());
+        if (CellRegistry.shardIndex(shardNames.get(0)) >= 0) {
+            if (shardNames.size() != cellType.getShards()) {
+                log.warn("Cell ({}) has been sharded into {} shards, the shard count {} is ignored.",
+                        cellType.getName(), shardNames.size(), cellType.getShards());
+            }
+            return 0;
+        }
+        log.warn("Cell ({}) is being sharded into {} shards, all other nodes must have been stopped.",
+                cellType.getName(), cellType.getShards());
+        return cellRegistryRepository.saveShardsIfAbsent(cellType.getName(), configuration.getMinValue(), startValue -> {
+            log.info("Cell ({}) is sharded into {} shards from value {}.", cellType.getName(), cellType.getShards(), startValue);
+            return CellRegistryFactory.buildShards(cellType, configuration, startValue);
+        });
     }
 
     public void setCellTypeClass(Class<? extends CellType> cellTypeClass) {
@@ -117,6 +213,8 @@ public class CellFacadeImpl implements CellFacade, ApplicationListener<ContextRe
 
     public void setConfiguration(CellSpecConfiguration configuration) {
         this.configuration = configuration;
+        this.prefixCache = new CellPrefixCache(configuration);
+        this.timeSequenceGenerator = new TimeSequenceGenerator(configuration);
     }
 
 }
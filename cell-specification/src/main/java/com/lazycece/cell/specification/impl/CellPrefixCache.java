@@ -0,0 +1,146 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.specification.impl;
+
+import com.lazycece.cell.specification.configuration.CellSpecConfiguration;
+import com.lazycece.cell.specification.model.CellBuilder;
+import com.lazycece.cell.specification.model.CellSpec;
+import com.lazycece.cell.specification.model.CellType;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The cell id prefix cache, per cell code and time bucket (day, hour or minute according to the pattern).
+ * <p>
+ * The prefix of the next time bucket is prepared a little before the current one ends, so the callers
+ * don't recompute it together at the rollover.
+ * </p>
+ * <p>
+ * The cached time bucket only rolls forward. A time before it (clock moved back, or a caller given time that is
+ * not monotonic across threads) gets its prefix computed without caching, so it never evicts the current one.
+ * </p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+class CellPrefixCache {
+
+    /**
+     * prepare the next prefix ahead of the time bucket end (milliseconds)
+     */
+    private static final long PREPARE_AHEAD_TIME = 1000L;
+
+    private final ConcurrentHashMap<String/*code*/, PrefixHolder> CACHE_MAP = new ConcurrentHashMap<>();
+    private final CellSpecConfiguration configuration;
+
+    CellPrefixCache(CellSpecConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    /**
+     * Get the cell id prefix of the cell type at now.
+     *
+     * @param cellType ${@link CellType}
+     * @return cell id prefix
+     */
+    String getPrefix(CellType cellType) {
+        return getPrefix(cellType.getCode(), System.currentTimeMillis());
+    }
+
+    /**
+     * Get the cell id prefix of the cell code at the given time.
+     *
+     * @param code cell code
+     * @param now  current time (milliseconds)
+     * @return cell id prefix
+     */
+    String getPrefix(String code, long now) {
+        PrefixHolder holder = CACHE_MAP.get(code);
+        if (holder == null) {
+            holder = CACHE_MAP.computeIfAbsent(code, key -> new PrefixHolder(createPrefix(key, now)));
+        }
+        Prefix current = holder.current.get();
+        if (current.contains(now)) {
+            if (now >= current.endTime() - PREPARE_AHEAD_TIME) {
+                prepareNext(holder, current);
+            }
+            return current.value();
+        }
+        if (now < current.startTime()) {
+            return createPrefix(code, now).value();
+        }
+        return roll(holder, current, code, now);
+    }
+
+    private void prepareNext(PrefixHolder holder, Prefix current) {
+        if (holder.next == null && holder.preparing.compareAndSet(false, true)) {
+            try {
+                if (holder.next == null && holder.current.get() == current) {
+                    holder.next = createPrefix(current.code(), current.endTime());
+                }
+            } finally {
+                holder.preparing.set(false);
+            }
+        }
+    }
+
+    private String roll(PrefixHolder holder, Prefix current, String code, long now) {
+        Prefix next = holder.next;
+        Prefix prefix = next != null && next.contains(now) ? next : createPrefix(code, now);
+        // only forward, a concurrent roller may have moved it further already
+        if (holder.current.compareAndSet(current, prefix)) {
+            holder.next = null;
+        }
+        return prefix.value();
+    }
+
+    private Prefix createPrefix(String code, long startTime) {
+        String value = CellSpec.getInstance().cellIdPrefix(CellBuilder.builder()
+                .pattern(configuration.getPattern())
+                .code(code)
+                .date(new Date(startTime))
+                .dataCenter(configuration.getDataCenter())
+                .machine(configuration.getMachine())
+                .build());
+        long endTime = CellSpec.getInstance().cellIdPrefixEndTime(configuration.getPattern(), startTime);
+        return new Prefix(code, value, startTime, endTime);
+    }
+
+    /**
+     * The prefix of the time bucket [startTime, endTime).
+     */
+    private record Prefix(String code, String value, long startTime, long endTime) {
+
+        boolean contains(long time) {
+            return time >= startTime && time < endTime;
+        }
+    }
+
+    private static class PrefixHolder {
+
+        private final AtomicReference<Prefix> current;
+        private volatile Prefix next;
+        private final AtomicBoolean preparing = new AtomicBoolean(false);
+
+        PrefixHolder(Prefix current) {
+            this.current = new AtomicReference<>(current);
+        }
+    }
+}
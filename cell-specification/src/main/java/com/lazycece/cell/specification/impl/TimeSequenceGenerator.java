@@ -0,0 +1,182 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.specification.impl;
+
+import com.lazycece.cell.core.exception.CellAssert;
+import com.lazycece.cell.core.exception.CellTimeoutException;
+import com.lazycece.cell.specification.configuration.CellSpecConfiguration;
+import com.lazycece.cell.specification.model.CellPattern;
+import com.lazycece.cell.specification.model.CellSpec;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * The time based sequence generator, it generates the sequences locally without db.
+ * <p>
+ * Each millisecond has a run of sequences, so a value is (time * perMillis + counter), and it's increased by CAS
+ * for each cell. The sequence is the offset of the value in the cell id prefix of its time, counted by the time
+ * elapsed in the prefix, so it's unique in the prefix. The local time repeated at a zone offset transition has the
+ * same prefix, its offsets continue after the first run instead of restarting.
+ * </p>
+ * <p>
+ * Clock rollback: the values run ahead of the clock if a millisecond runs out, or the clock moves backwards.
+ * They are issued ahead within {@value #MAX_DRIFT}ms, otherwise the callers wait for the clock to catch up,
+ * and get ${@link CellTimeoutException} after {@value #WAIT_TIMEOUT}ms. The values never go back in the process,
+ * so the sequences are still unique after the rollback, and the time of a value (not the clock) selects its
+ * cell id prefix, which only rolls forward in ${@link CellPrefixCache}. The last values are not persisted, a
+ * restarted node starts from the clock, so a node must not be restarted while its clock is behind the time it
+ * issued before (e.g. stepped back by NTP), or it may issue the same sequences again; slewing the clock avoids it.
+ * </p>
+ * <p>
+ * Node uniqueness: the sequences are only unique in the node, the ids of the nodes differ by the data center and
+ * machine of the cell id prefix. It's not coordinated, each node must be configured with a distinct combination
+ * of them (the default is the same for all nodes).
+ * </p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+class TimeSequenceGenerator {
+
+    /**
+     * the max sequences per millisecond, the value must not overflow
+     */
+    private static final long MAX_PER_MILLIS = 1000000L;
+
+    /**
+     * the max time the values run ahead of the clock (milliseconds)
+     */
+    private static final long MAX_DRIFT = 10L;
+
+    /**
+     * the max time to wait for the clock to catch up (milliseconds)
+     */
+    private static final long WAIT_TIMEOUT = 1000L;
+
+    /**
+     * the max local time repeated by a zone offset transition (milliseconds), a prefix lasts up to its time bucket
+     * plus the repeated part
+     */
+    private static final long MAX_REPEATED_TIME = TimeUnit.HOURS.toMillis(2);
+
+    private final ConcurrentHashMap<String/*name*/, AtomicLong> LAST_MAP = new ConcurrentHashMap<>();
+    private final CellPattern pattern;
+    private final long perMillis;
+    private final LongSupplier clock;
+    private final long maxDrift;
+    private final long waitTimeout;
+    private volatile Bucket bucket;
+
+    TimeSequenceGenerator(CellSpecConfiguration configuration) {
+        this(configuration, System::currentTimeMillis, MAX_DRIFT, WAIT_TIMEOUT);
+    }
+
+    TimeSequenceGenerator(CellSpecConfiguration configuration, LongSupplier clock, long maxDrift, long waitTimeout) {
+        this.pattern = configuration.getPattern();
+        long bucketSize = switch (pattern) {
+            case HOUR -> TimeUnit.HOURS.toMillis(1);
+            case MINUTE -> TimeUnit.MINUTES.toMillis(1);
+            default -> TimeUnit.DAYS.toMillis(1);
+        };
+        long capacity = 1;
+        for (int i = 0; i < configuration.getSequenceLength() && capacity <= Long.MAX_VALUE / 10; i++) {
+            capacity *= 10;
+        }
+        long maxPrefixTime = bucketSize + Math.min(bucketSize, MAX_REPEATED_TIME);
+        this.perMillis = Math.min(capacity / maxPrefixTime, MAX_PER_MILLIS);
+        CellAssert.isTrue(perMillis > 0, "Sequence length (%s) is too short for the time based sequence.",
+                configuration.getSequenceLength());
+        this.clock = clock;
+        this.maxDrift = maxDrift;
+        this.waitTimeout = waitTimeout;
+    }
+
+    /**
+     * Get the next value of the cell.
+     *
+     * @param name cell name
+     * @return value, see ${@link #timeOf(long)} and ${@link #sequenceOf(long)}
+     */
+    long next(String name) {
+        AtomicLong last = LAST_MAP.get(name);
+        if (last == null) {
+            last = LAST_MAP.computeIfAbsent(name, key -> new AtomicLong(0));
+        }
+        long deadline = 0;
+        while (true) {
+            long now = clock.getAsLong();
+            long prev = last.get();
+            long value = Math.max(prev + 1, now * perMillis);
+            if (value / perMillis - now > maxDrift) {
+                // the clock moves backwards, or the values run out too fast, wait for the clock
+                if (deadline == 0) {
+                    deadline = now + waitTimeout;
+                } else if (now >= deadline) {
+                    throw new CellTimeoutException(String.format("Get cell (%s) time sequence timeout(%sms), the clock is %sms behind",
+                            name, waitTimeout, value / perMillis - now));
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                continue;
+            }
+            if (last.compareAndSet(prev, value)) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Get the time of the value, the cell id prefix of it should be used.
+     *
+     * @param value value
+     * @return time (milliseconds)
+     */
+    long timeOf(long value) {
+        return value / perMillis;
+    }
+
+    /**
+     * Get the sequence of the value, that's the offset in the cell id prefix of its time.
+     *
+     * @param value value
+     * @return sequence
+     */
+    long sequenceOf(long value) {
+        long time = value / perMillis;
+        Bucket current = bucket;
+        if (current == null || !current.contains(time)) {
+            current = new Bucket(time, CellSpec.getInstance().cellIdPrefixEndTime(pattern, time),
+                    CellSpec.getInstance().cellIdPrefixElapsedTime(pattern, time));
+            bucket = current;
+        }
+        return (current.elapsedTime() + time - current.startTime()) * perMillis + value % perMillis;
+    }
+
+    /**
+     * The time bucket [startTime, endTime) of the same prefix and zone offset, the start time is the first time seen
+     * in it, and the elapsed time is of the start time in the prefix.
+     */
+    private record Bucket(long startTime, long endTime, long elapsedTime) {
+
+        boolean contains(long time) {
+            return time >= startTime && time < endTime;
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.lazycece.cell.specification.model;
 
+import com.lazycece.cell.specification.exception.CellSpecException;
+
 import java.util.Date;
 
 /**
@@ -49,7 +51,7 @@ public class Cell {
     /**
      * The sequence
      */
-    private Integer sequence;
+    private Long sequence;
 
     public CellPattern getPattern() {
         return pattern;
@@ -91,14 +93,33 @@ public class Cell {
         this.machine = machine;
     }
 
+    /**
+     * Get the sequence, use ${@link #getLongSequence()} for the sequence of the 64-bit mode.
+     *
+     * @return sequence
+     */
     public Integer getSequence() {
+        if (sequence == null) {
+            return null;
+        }
+        if (sequence < Integer.MIN_VALUE || sequence > Integer.MAX_VALUE) {
+            throw new CellSpecException(String.format("cell sequence (%s) out of int range, use the long sequence instead.", sequence));
+        }
+        return sequence.intValue();
+    }
+
+    public Long getLongSequence() {
         return sequence;
     }
 
-    public void setSequence(Integer sequence) {
+    public void setSequence(Long sequence) {
         this.sequence = sequence;
     }
 
+    public void setSequence(Integer sequence) {
+        this.sequence = sequence == null ? null : sequence.longValue();
+    }
+
     @Override
     public String toString() {
         return CellSpec.getInstance().cellId(this);
@@ -64,6 +64,11 @@ public class CellBuilder {
         return this;
     }
 
+    public CellBuilder sequence(Long sequence) {
+        cell.setSequence(sequence);
+        return this;
+    }
+
     public Cell build() {
         return cell;
     }
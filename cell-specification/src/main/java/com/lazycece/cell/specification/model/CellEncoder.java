@@ -0,0 +1,355 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.specification.model;
+
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * The cell id encoder.
+ * <p>
+ * It writes the fixed-width elements straight into one pre-sized Latin-1 buffer with digit lookup tables,
+ * so the only allocation is the buffer and the result string. The output is the same as the
+ * <code>SimpleDateFormat</code> and <code>String.format</code> based one, the elements are not validated here,
+ * see {@link CellSpec}.
+ * </p>
+ * <p>
+ * The shared instance follows the JVM default time zone, it is resolved per call as <code>SimpleDateFormat</code>
+ * does, and the zone rules are only rebuilt when the default zone changes.
+ * </p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ * @see CellSpec
+ */
+class CellEncoder {
+
+    private static final byte[] DIGIT_TENS = new byte[100];
+    private static final byte[] DIGIT_ONES = new byte[100];
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+    private static final int MILLIS_PER_HOUR = 60 * 60 * 1000;
+    private static final int MILLIS_PER_MINUTE = 60 * 1000;
+    /**
+     * The year range computed by proleptic gregorian calendar, out of it fall back to <code>SimpleDateFormat</code>.
+     */
+    private static final int MIN_YEAR = 1583;
+    private static final int MAX_YEAR = 9999;
+
+    static {
+        for (int i = 0; i < 100; i++) {
+            DIGIT_TENS[i] = (byte) ('0' + i / 10);
+            DIGIT_ONES[i] = (byte) ('0' + i % 10);
+        }
+    }
+
+    private static volatile CellEncoder instance = new CellEncoder(TimeZone.getDefault());
+
+    /**
+     * The time zone of this encoder, the zone rules are resolved once instead of per id.
+     */
+    private final TimeZone timeZone;
+    private final ZoneRules zoneRules;
+
+    CellEncoder(TimeZone timeZone) {
+        this.timeZone = timeZone;
+        this.zoneRules = timeZone.toZoneId().getRules();
+    }
+
+    /**
+     * Get the encoder of the current JVM default time zone.
+     *
+     * @return cell encoder
+     */
+    static CellEncoder getInstance() {
+        CellEncoder encoder = instance;
+        TimeZone timeZone = TimeZone.getDefault();
+        if (!encoder.timeZone.getID().equals(timeZone.getID())) {
+            encoder = new CellEncoder(timeZone);
+            instance = encoder;
+        }
+        return encoder;
+    }
+
+    /**
+     * Encode cell id.
+     *
+     * @param pattern    cell pattern
+     * @param timestamp  the production time (milliseconds)
+     * @param code       cell code
+     * @param dataCenter data center
+     * @param machine    machine
+     * @param sequence   sequence
+     * @return cell id
+     */
+    String encode(CellPattern pattern, long timestamp, String code, int dataCenter, int machine, long sequence) {
+        int timeLen = timeLength(pattern);
+        int codeLen = code.length();
+        byte[] buf = new byte[CellSpec.CELL_DATE_LEN + codeLen + CellSpec.CELL_DATA_CENTER_LEN
+                + CellSpec.CELL_MACHINE_LEN + timeLen + CellSpec.CELL_SEQUENCE_LEN];
+        if (!writeDateTime(buf, 0, codeLen, timestamp, timeLen)) {
+            return legacyEncode(pattern, timestamp, code, dataCenter, machine, sequence);
+        }
+        int pos = CellSpec.CELL_DATE_LEN;
+        if (!writeLatin1(buf, pos, code)) {
+            return legacyEncode(pattern, timestamp, code, dataCenter, machine, sequence);
+        }
+        pos += codeLen;
+        pos = writeElement(buf, pos, dataCenter, CellSpec.CELL_DATA_CENTER_LEN);
+        pos = writeElement(buf, pos, machine, CellSpec.CELL_MACHINE_LEN);
+        pos += timeLen;
+        writeElement(buf, pos, sequence, CellSpec.CELL_SEQUENCE_LEN);
+        return new String(buf, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Encode cell id prefix, that the cell id without sequence.
+     *
+     * @param pattern    cell pattern
+     * @param timestamp  the production time (milliseconds)
+     * @param code       cell code
+     * @param dataCenter data center
+     * @param machine    machine
+     * @return cell id prefix
+     */
+    String encodePrefix(CellPattern pattern, long timestamp, String code, int dataCenter, int machine) {
+        String cellId = encode(pattern, timestamp, code, dataCenter, machine, 0);
+        return cellId.substring(0, cellId.length() - CellSpec.CELL_SEQUENCE_LEN);
+    }
+
+    /**
+     * Encode cell id with the prefix computed by {@link #encodePrefix}.
+     *
+     * @param prefix         cell id prefix
+     * @param sequence       sequence
+     * @param sequenceLength sequence length
+     * @return cell id
+     */
+    String encode(String prefix, long sequence, int sequenceLength) {
+        int prefixLen = prefix.length();
+        byte[] buf = new byte[prefixLen + sequenceLength];
+        writeElement(buf, prefixLen, sequence, sequenceLength);
+        if (!writeLatin1(buf, 0, prefix)) {
+            return prefix.concat(new String(buf, prefixLen, sequenceLength, StandardCharsets.ISO_8859_1));
+        }
+        return new String(buf, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Get the time when the cell id prefix of the given time changes, that the end of the day, hour or minute
+     * (exclusive) according to the pattern, or the next zone offset transition if earlier.
+     *
+     * @param pattern   cell pattern
+     * @param timestamp the production time (milliseconds)
+     * @return the end time of the prefix (milliseconds)
+     */
+    long prefixEndTime(CellPattern pattern, long timestamp) {
+        long size = prefixSize(pattern);
+        long localMillis = timestamp + timeZone.getOffset(timestamp);
+        long endTime = timestamp - Math.floorMod(localMillis, size) + size;
+        ZoneOffsetTransition transition = zoneRules.nextTransition(Instant.ofEpochMilli(timestamp));
+        if (transition != null) {
+            endTime = Math.min(endTime, transition.getInstant().toEpochMilli());
+        }
+        return endTime;
+    }
+
+    /**
+     * Get the time elapsed in the cell id prefix of the given time, that the total time before it with the same
+     * prefix. It's less than the day, hour or minute unless the local time repeats at a zone offset transition,
+     * then the repeated part continues after the first one, so the elapsed time is unique in the prefix.
+     *
+     * @param pattern   cell pattern
+     * @param timestamp the production time (milliseconds)
+     * @return the elapsed time in the prefix (milliseconds)
+     */
+    long prefixElapsedTime(CellPattern pattern, long timestamp) {
+        long size = prefixSize(pattern);
+        long localStart = Math.floorDiv(timestamp + timeZone.getOffset(timestamp), size) * size;
+        // no time before it has the same local time under any offset
+        long lowerBound = localStart - ZoneOffset.MAX.getTotalSeconds() * 1000L;
+        long elapsed = 0;
+        long cursor = timestamp;
+        while (cursor > lowerBound) {
+            // the run of the same offset before the cursor
+            ZoneOffsetTransition transition = zoneRules.previousTransition(Instant.ofEpochMilli(cursor));
+            long start = transition == null ? lowerBound : Math.max(lowerBound, transition.getInstant().toEpochMilli());
+            long offset = timeZone.getOffset(cursor - 1);
+            long from = Math.max(start, localStart - offset);
+            long to = Math.min(cursor, localStart + size - offset);
+            if (to > from) {
+                elapsed += to - from;
+            }
+            cursor = start;
+        }
+        return elapsed;
+    }
+
+    private static long prefixSize(CellPattern pattern) {
+        return switch (pattern) {
+            case HOUR -> MILLIS_PER_HOUR;
+            case MINUTE -> MILLIS_PER_MINUTE;
+            default -> MILLIS_PER_DAY;
+        };
+    }
+
+    /**
+     * The string length of the value, include the minus sign.
+     *
+     * @param value value
+     * @return length
+     */
+    static int stringLength(long value) {
+        if (value == Long.MIN_VALUE) {
+            return 20;
+        }
+        long abs = Math.abs(value);
+        int len = value < 0 ? 2 : 1;
+        for (long p = 10; p <= abs; p *= 10) {
+            len++;
+            if (p > Long.MAX_VALUE / 10) {
+                break;
+            }
+        }
+        return len;
+    }
+
+    private static int timeLength(CellPattern pattern) {
+        return switch (pattern) {
+            case HOUR -> CellSpec.CELL_HOUR_LEN;
+            case MINUTE -> CellSpec.CELL_MINUTE_LEN;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Write date(yyyyMMdd) at the start, and time(HH or HHmm) after the code, data center and machine.
+     *
+     * @return false if the year out of supported range
+     */
+    private boolean writeDateTime(byte[] buf, int pos, int codeLen, long timestamp, int timeLen) {
+        long localMillis = timestamp + timeZone.getOffset(timestamp);
+        long epochDay = Math.floorDiv(localMillis, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(localMillis, MILLIS_PER_DAY);
+
+        // civil date from epoch day, proleptic gregorian calendar
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long doe = z - era * 146097;
+        long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        long mp = (5 * doy + 2) / 153;
+        int day = (int) (doy - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < MIN_YEAR || year > MAX_YEAR) {
+            return false;
+        }
+
+        writeTwoDigits(buf, pos, (int) year / 100);
+        writeTwoDigits(buf, pos + 2, (int) year % 100);
+        writeTwoDigits(buf, pos + 4, month);
+        writeTwoDigits(buf, pos + 6, day);
+
+        int timePos = pos + CellSpec.CELL_DATE_LEN + codeLen + CellSpec.CELL_DATA_CENTER_LEN + CellSpec.CELL_MACHINE_LEN;
+        if (timeLen >= CellSpec.CELL_HOUR_LEN) {
+            writeTwoDigits(buf, timePos, millisOfDay / MILLIS_PER_HOUR);
+        }
+        if (timeLen >= CellSpec.CELL_MINUTE_LEN) {
+            writeTwoDigits(buf, timePos + 2, millisOfDay / MILLIS_PER_MINUTE % 60);
+        }
+        return true;
+    }
+
+    private static void writeTwoDigits(byte[] buf, int pos, int value) {
+        buf[pos] = DIGIT_TENS[value];
+        buf[pos + 1] = DIGIT_ONES[value];
+    }
+
+    /**
+     * Write the element left padded with zero to the given width, the same as <code>String.format</code> one by one.
+     *
+     * @return the position after the element
+     */
+    private static int writeElement(byte[] buf, int pos, long value, int width) {
+        int end = pos + width;
+        int len = stringLength(value);
+        int i = end;
+        // negative remainder keeps Long.MIN_VALUE safe
+        long q = value < 0 ? value : -value;
+        while (q <= -100) {
+            int r = (int) -(q % 100);
+            q /= 100;
+            buf[--i] = DIGIT_ONES[r];
+            buf[--i] = DIGIT_TENS[r];
+        }
+        int r = (int) -q;
+        buf[--i] = DIGIT_ONES[r];
+        if (r >= 10) {
+            buf[--i] = DIGIT_TENS[r];
+        }
+        if (value < 0) {
+            buf[--i] = '-';
+        }
+        for (int p = pos; p < end - len; p++) {
+            buf[p] = '0';
+        }
+        return end;
+    }
+
+    /**
+     * Write the string as Latin-1.
+     *
+     * @return false if the string has any char out of Latin-1
+     */
+    private static boolean writeLatin1(byte[] buf, int pos, String value) {
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char c = value.charAt(i);
+            if (c > 0xFF) {
+                return false;
+            }
+            buf[pos + i] = (byte) c;
+        }
+        return true;
+    }
+
+    /**
+     * The fallback for the date out of supported range, or the code out of Latin-1.
+     */
+    private String legacyEncode(CellPattern pattern, long timestamp, String code, int dataCenter, int machine, long sequence) {
+        Date date = new Date(timestamp);
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd");
+        dateFormat.setTimeZone(timeZone);
+        SimpleDateFormat timeFormat = new SimpleDateFormat("HHmm");
+        timeFormat.setTimeZone(timeZone);
+        int timeLen = timeLength(pattern);
+        byte[] buf = new byte[CellSpec.CELL_DATA_CENTER_LEN + CellSpec.CELL_MACHINE_LEN + CellSpec.CELL_SEQUENCE_LEN];
+        int pos = writeElement(buf, 0, dataCenter, CellSpec.CELL_DATA_CENTER_LEN);
+        pos = writeElement(buf, pos, machine, CellSpec.CELL_MACHINE_LEN);
+        writeElement(buf, pos, sequence, CellSpec.CELL_SEQUENCE_LEN);
+        String elements = new String(buf, StandardCharsets.ISO_8859_1);
+        return dateFormat.format(date) + code
+                + elements.substring(0, CellSpec.CELL_DATA_CENTER_LEN + CellSpec.CELL_MACHINE_LEN)
+                + timeFormat.format(date).substring(0, timeLen)
+                + elements.substring(CellSpec.CELL_DATA_CENTER_LEN + CellSpec.CELL_MACHINE_LEN);
+    }
+}
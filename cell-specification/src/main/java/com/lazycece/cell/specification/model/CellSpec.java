@@ -18,8 +18,8 @@ package com.lazycece.cell.specification.model;
 
 import com.lazycece.cell.specification.exception.CellSpecException;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Define the cell specification .
@@ -51,22 +51,27 @@ import java.util.Date;
  * <li>support max qps = <code>Integer.MAX_VALUE</code>/60 = 35791394 </li>
  * </ul>
  * </p>
+ * <p>
+ * The sequence length can be extended up to 19 (64-bit sequence) with the prefix based methods,
+ * then the length of cell-id grows with it.
+ * </p>
  *
  * @author lazycece
  * @date 2023/8/31
  * @see Cell
  * @see CellPattern
+ * @see CellEncoder
  */
 public class CellSpec {
 
     public static final int CELL_CODE_LEN = 3;
     public static final int CELL_DATA_CENTER_LEN = 1;
     public static final int CELL_MACHINE_LEN = 2;
-    private static final int CELL_HOUR_LEN = 2;
-    private static final int CELL_MINUTE_LEN = 4;
-    private static final int CELL_SEQUENCE_LEN = 10;
-    private static final String CELL_DATE_FORMAT = "yyyyMMdd";
-    private static final String CELL_TIME_FORMAT = "HHmmss";
+    static final int CELL_DATE_LEN = 8;
+    static final int CELL_HOUR_LEN = 2;
+    static final int CELL_MINUTE_LEN = 4;
+    public static final int CELL_SEQUENCE_LEN = 10;
+    public static final int CELL_MAX_SEQUENCE_LEN = 19;
 
     private static final CellSpec instance = new CellSpec();
 
@@ -75,64 +80,135 @@ public class CellSpec {
     }
 
     public String cellId(Cell cell) {
-        String date = dateElement(cell.getDate());
-        String code = codeElement(cell.getCode());
-        String dataCenter = dataCenterElement(cell.getDataCenter());
-        String machine = machineElement(cell.getMachine());
-        String time = timeElement(cell.getDate(), cell.getPattern());
-        String sequence = sequenceElement(cell.getSequence());
-        return String.format("%s%s%s%s%s%s", date, code, dataCenter, machine, time, sequence);
+        notNull(cell.getDate());
+        codeElement(cell.getCode());
+        dataCenterElement(cell.getDataCenter());
+        machineElement(cell.getMachine());
+        notNull(cell.getPattern());
+        sequenceElement(cell.getLongSequence());
+        return CellEncoder.getInstance().encode(cell.getPattern(), cell.getDate().getTime(), cell.getCode(),
+                cell.getDataCenter(), cell.getMachine(), cell.getLongSequence());
     }
 
-    private String dateElement(Date date) {
-        notNull(date);
-        SimpleDateFormat sdf = new SimpleDateFormat(CELL_DATE_FORMAT);
-        return sdf.format(date);
+    /**
+     * Get cell id prefix, that the cell id without sequence.
+     *
+     * @param cell the cell template, the sequence of it is ignored
+     * @return cell id prefix
+     */
+    public String cellIdPrefix(Cell cell) {
+        notNull(cell.getDate());
+        codeElement(cell.getCode());
+        dataCenterElement(cell.getDataCenter());
+        machineElement(cell.getMachine());
+        notNull(cell.getPattern());
+        return CellEncoder.getInstance().encodePrefix(cell.getPattern(), cell.getDate().getTime(), cell.getCode(),
+                cell.getDataCenter(), cell.getMachine());
     }
 
-    private String codeElement(String code) {
-        notBlank(code);
-        expectedLength(code, CELL_CODE_LEN);
-        return code;
+    /**
+     * Get the time when the cell id prefix of the given time changes.
+     *
+     * @param pattern   cell pattern
+     * @param timestamp the production time (milliseconds)
+     * @return the end time of the prefix (milliseconds), exclusive
+     */
+    public long cellIdPrefixEndTime(CellPattern pattern, long timestamp) {
+        notNull(pattern);
+        return CellEncoder.getInstance().prefixEndTime(pattern, timestamp);
     }
 
-    private String dataCenterElement(Integer dataCenter) {
-        notNull(dataCenter);
-        expectedLength(String.valueOf(dataCenter), CELL_DATA_CENTER_LEN);
-        return fillElement(dataCenter, CELL_DATA_CENTER_LEN);
+    /**
+     * Get the time elapsed in the cell id prefix of the given time, it's unique in the prefix even if the local
+     * time repeats at the zone offset transition.
+     *
+     * @param pattern   cell pattern
+     * @param timestamp the production time (milliseconds)
+     * @return the elapsed time in the prefix (milliseconds)
+     */
+    public long cellIdPrefixElapsedTime(CellPattern pattern, long timestamp) {
+        notNull(pattern);
+        return CellEncoder.getInstance().prefixElapsedTime(pattern, timestamp);
     }
 
-    private String machineElement(Integer machine) {
-        notNull(machine);
-        expectedLength(String.valueOf(machine), CELL_MACHINE_LEN);
-        return fillElement(machine, CELL_MACHINE_LEN);
+    /**
+     * Get cell id with the prefix computed by {@link #cellIdPrefix(Cell)}.
+     *
+     * @param prefix   cell id prefix
+     * @param sequence sequence
+     * @return cell id
+     */
+    public String cellId(String prefix, long sequence) {
+        return cellId(prefix, sequence, CELL_SEQUENCE_LEN);
     }
 
-    private String timeElement(Date date, CellPattern pattern) {
-        notNull(date);
-        notNull(pattern);
-        SimpleDateFormat sdf = new SimpleDateFormat(CELL_TIME_FORMAT);
-        String time = sdf.format(date);
-        return switch (pattern) {
-            case HOUR -> time.substring(0, CELL_HOUR_LEN);
-            case MINUTE -> time.substring(0, CELL_MINUTE_LEN);
-            default -> "";
-        };
+    /**
+     * Get cell id with the prefix computed by {@link #cellIdPrefix(Cell)}, and the given sequence length.
+     *
+     * @param prefix         cell id prefix
+     * @param sequence       sequence
+     * @param sequenceLength sequence length, between 10 and 19
+     * @return cell id
+     */
+    public String cellId(String prefix, long sequence, int sequenceLength) {
+        if (sequenceLength < CELL_SEQUENCE_LEN || sequenceLength > CELL_MAX_SEQUENCE_LEN) {
+            throw new CellSpecException(String.format("cell sequence length(%s) out of range [%s, %s]",
+                    sequenceLength, CELL_SEQUENCE_LEN, CELL_MAX_SEQUENCE_LEN));
+        }
+        expectedLength(sequence, sequenceLength);
+        return CellEncoder.getInstance().encode(prefix, sequence, sequenceLength);
     }
 
-    private String sequenceElement(Integer sequence) {
-        notNull(sequence);
-        expectedLength(String.valueOf(sequence), CELL_SEQUENCE_LEN);
-        return fillElement(sequence, CELL_SEQUENCE_LEN);
+    /**
+     * Get a batch of cell id, all of them share the prefix computed from the given cell.
+     *
+     * @param cell      the cell template, the sequence of it is ignored
+     * @param sequences sequences
+     * @return cell id list
+     */
+    public List<String> cellIds(Cell cell, int[] sequences) {
+        String prefix = cellIdPrefix(cell);
+        List<String> cellIds = new ArrayList<>(sequences.length);
+        for (int sequence : sequences) {
+            cellIds.add(cellId(prefix, sequence));
+        }
+        return cellIds;
     }
 
-    private String fillElement(Integer element, int len) {
-        String value = String.valueOf(element);
-        int gap = len - value.length();
-        while (gap-- > 0) {
-            value = String.format("%s%s", 0, value);
+    /**
+     * Get a batch of cell id of the long sequences, all of them share the prefix computed from the given cell.
+     *
+     * @param cell      the cell template, the sequence of it is ignored
+     * @param sequences sequences
+     * @return cell id list
+     */
+    public List<String> cellIds(Cell cell, long[] sequences) {
+        String prefix = cellIdPrefix(cell);
+        List<String> cellIds = new ArrayList<>(sequences.length);
+        for (long sequence : sequences) {
+            cellIds.add(cellId(prefix, sequence));
         }
-        return value;
+        return cellIds;
+    }
+
+    private void codeElement(String code) {
+        notBlank(code);
+        expectedLength(code, CELL_CODE_LEN);
+    }
+
+    private void dataCenterElement(Integer dataCenter) {
+        notNull(dataCenter);
+        expectedLength(dataCenter, CELL_DATA_CENTER_LEN);
+    }
+
+    private void machineElement(Integer machine) {
+        notNull(machine);
+        expectedLength(machine, CELL_MACHINE_LEN);
+    }
+
+    private void sequenceElement(Long sequence) {
+        notNull(sequence);
+        expectedLength(sequence, CELL_SEQUENCE_LEN);
     }
 
     private void notNull(Object element) {
@@ -152,4 +228,10 @@ public class CellSpec {
             throw new CellSpecException(String.format("cell element(%s) not expected length(%s)", element, len));
         }
     }
+
+    private void expectedLength(long element, int len) {
+        if (CellEncoder.stringLength(element) > len) {
+            throw new CellSpecException(String.format("cell element(%s) not expected length(%s)", element, len));
+        }
+    }
 }
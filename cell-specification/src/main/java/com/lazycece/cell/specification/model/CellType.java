@@ -37,4 +37,24 @@ public interface CellType {
      * @return code
      */
     String getCode();
+
+    /**
+     * cell registry shard count, the cell is allocated from several registry rows if it's greater than 1,
+     * so the nodes don't contend for the same row.
+     * <p>The shards are created at the registration only, the count can't be changed after that.</p>
+     *
+     * @return shard count
+     */
+    default int getShards() {
+        return 1;
+    }
+
+    /**
+     * cell sequence source, the time based sequences don't access the db, and the cell is not registered.
+     *
+     * @return see ${@link SequenceSource}
+     */
+    default SequenceSource getSequenceSource() {
+        return SequenceSource.REGISTRY;
+    }
 }
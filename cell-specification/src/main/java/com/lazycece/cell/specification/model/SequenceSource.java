@@ -0,0 +1,38 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.specification.model;
+
+/**
+ * The source of the cell sequences.
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public enum SequenceSource {
+
+    /**
+     * the segments allocated from the cell registry in db, the sequences are unique across all the nodes.
+     */
+    REGISTRY,
+
+    /**
+     * generated by the node locally from the clock, no db access. The sequences restart in each time bucket
+     * of the cell pattern, and are unique in the node only, so each node must have a unique pair of
+     * data center and machine, which are in the cell id prefix.
+     */
+    TIME
+}
@@ -18,8 +18,13 @@ package com.lazycece.cell.spring.boot.autoconfigure;
 
 import com.lazycece.cell.core.buffer.CellBufferManager;
 import com.lazycece.cell.core.configuration.BufferConfiguration;
+import com.lazycece.cell.core.infra.dal.dialect.CellDatabaseIdProvider;
+import com.lazycece.cell.core.infra.repository.CellRegistryRepositoryImpl;
+import com.lazycece.cell.core.metrics.CellBufferMetrics;
 import com.lazycece.cell.specification.configuration.CellSpecConfiguration;
 import com.lazycece.cell.specification.impl.CellFacadeImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.ibatis.mapping.DatabaseIdProvider;
 import org.mybatis.spring.annotation.MapperScan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,7 +32,10 @@ import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
@@ -63,6 +71,32 @@ public class CellAutoConfiguration implements BeanPostProcessor, InitializingBea
         log.info("Cell auto configuration successful.");
     }
 
+    /**
+     * The MyBatis database id provider to select the cell dialect, if not provided by the application.
+     *
+     * @return see ${@link CellDatabaseIdProvider}
+     */
+    @Bean
+    @ConditionalOnMissingBean(DatabaseIdProvider.class)
+    public static DatabaseIdProvider cellDatabaseIdProvider() {
+        return new CellDatabaseIdProvider();
+    }
+
+    /**
+     * The cell buffer metrics, if Micrometer is present. It's a meter binder, and bound to the meter registries
+     * by the Spring Boot actuator.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class CellMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public CellBufferMetrics cellBufferMetrics(CellBufferManager cellBufferManager) {
+            return new CellBufferMetrics(cellBufferManager);
+        }
+    }
+
     /**
      * @see BeanPostProcessor#postProcessAfterInitialization
      */
@@ -70,6 +104,7 @@ public class CellAutoConfiguration implements BeanPostProcessor, InitializingBea
     public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
         cellFacadeInterceptor(bean);
         cellBufferManagerInterceptor(bean);
+        cellRegistryRepositoryInterceptor(bean);
         return BeanPostProcessor.super.postProcessAfterInitialization(bean, beanName);
     }
 
@@ -87,4 +122,11 @@ public class CellAutoConfiguration implements BeanPostProcessor, InitializingBea
             log.info("Cell auto configuration: set cell buffer configuration.");
         }
     }
+
+    private void cellRegistryRepositoryInterceptor(Object bean) {
+        if (bean instanceof CellRegistryRepositoryImpl cellRegistryRepository && bufferConfiguration.getNodeId() != null) {
+            cellRegistryRepository.setNodeId(bufferConfiguration.getNodeId());
+            log.info("Cell auto configuration: set cell registry node id.");
+        }
+    }
 }
@@ -16,11 +16,16 @@
 
 package com.lazycece.cell.spring.boot.autoconfigure;
 
+import com.lazycece.cell.core.buffer.BufferStepStrategy;
+import com.lazycece.cell.core.buffer.BufferWaitStrategy;
 import com.lazycece.cell.specification.model.CellPattern;
 import com.lazycece.cell.specification.model.CellType;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.DeprecatedConfigurationProperty;
 
 import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * @author lazycece
@@ -98,6 +103,17 @@ public class CellProperties {
          */
         private Integer maxValue = Integer.MAX_VALUE;
 
+        /**
+         * max value of the 64-bit mode, it overrides the max value if set, and it can be larger than
+         * ${@code Integer.MAX_VALUE} with a longer sequence length and the BIGINT cell_registry columns.
+         */
+        private Long longMaxValue;
+
+        /**
+         * The sequence length of cell id, between 10 and 19, default value is 10
+         */
+        private Integer sequenceLength = 10;
+
         /**
          * the step, that the interval size of the value.
          */
@@ -143,6 +159,22 @@ public class CellProperties {
             this.maxValue = maxValue;
         }
 
+        public Long getLongMaxValue() {
+            return longMaxValue;
+        }
+
+        public void setLongMaxValue(Long longMaxValue) {
+            this.longMaxValue = longMaxValue;
+        }
+
+        public Integer getSequenceLength() {
+            return sequenceLength;
+        }
+
+        public void setSequenceLength(Integer sequenceLength) {
+            this.sequenceLength = sequenceLength;
+        }
+
         public Integer getStep() {
             return step;
         }
@@ -159,6 +191,27 @@ public class CellProperties {
          */
         private double expansionThreshold = 0.75;
 
+        /**
+         * Adapt the expansion threshold per cell by the refill latency and the consumption rate or not,
+         * default value is true
+         */
+        private boolean adaptiveThreshold = true;
+
+        /**
+         * The lower bound of the adaptive expansion threshold, default value is 0.5
+         */
+        private double expansionMinThreshold = 0.5;
+
+        /**
+         * The upper bound of the adaptive expansion threshold, default value is 0.9
+         */
+        private double expansionMaxThreshold = 0.9;
+
+        /**
+         * The values consumed during a p99 refill are multiplied by it to start the expansion, default value is 2
+         */
+        private double latencySafetyFactor = 2;
+
         /**
          * Cell buffer expansion elasticity time. If value is m,
          * indicates the step interval is [step/(2^m),step*(2^m)]
@@ -175,6 +228,28 @@ public class CellProperties {
          */
         private Duration expansionInterval = Duration.ofMinutes(10);
 
+        /**
+         * The strategy to size the step of the next segment, default value is rate
+         */
+        private BufferStepStrategy stepStrategy = BufferStepStrategy.RATE;
+
+        /**
+         * The weight of the new sample of the consumption rate, in (0,1], default value is 0.5
+         */
+        private double rateSmoothing = 0.5;
+
+        /**
+         * Save the learned step and consumption rate of each cell to the registry or not, the buffer starts at
+         * the learned step after restart. It needs the learned_step and consumption_rate columns, default value is false
+         */
+        private boolean persistLearnedStep = false;
+
+        /**
+         * Max count of the prefetched segments per cell, the target depth grows with the consumption rate
+         * up to it. Default value is 1, only the next segment is prefetched.
+         */
+        private int prefetchMaxDepth = 1;
+
         /**
          * Cell buffer thread pool core size, default value is 5
          */
@@ -190,6 +265,103 @@ public class CellProperties {
          */
         private Duration threadPoolKeepAliveTime = Duration.ofSeconds(60);
 
+        /**
+         * Max count of the cell buffer refills at the same time, that's also the max concurrent
+         * transactions to db. Default value is 5
+         */
+        private int refreshConcurrency = 5;
+
+        /**
+         * Refresher runs with virtual threads or not, it works on java 21 or later, default value is false
+         */
+        private boolean refreshVirtualThreads = false;
+
+        /**
+         * Max time to wait for more cell buffers to refill together in one transaction, no waiting if zero.
+         * Default value is 0
+         */
+        private Duration refreshCoalesceWindow = Duration.ZERO;
+
+        /**
+         * Max count of the cell buffers refilled together in one transaction, default value is 50
+         */
+        private int refreshCoalesceMaxBatch = 50;
+
+        /**
+         * The node id to pick the preferred registry shard of the sharded cells, random if not set
+         */
+        private Integer nodeId;
+
+        /**
+         * Max count of cells filled by one batch of statements while the buffer manager initializing, the batches
+         * run in parallel up to the refresh concurrency. Default value is 200
+         */
+        private int initBatchSize = 200;
+
+        /**
+         * Load the cell buffer on the first use instead of initializing all of them, default value is false
+         */
+        private boolean lazyLoading = false;
+
+        /**
+         * The lazy loaded cell buffer is evicted if idle longer than it, no eviction if zero. Default value is 30min
+         */
+        private Duration idleTimeout = Duration.ofMinutes(30);
+
+        /**
+         * Max count of the lazy loaded cell buffers, the least active one is evicted while loading a new one if reached.
+         * Default value is ${@code Integer.MAX_VALUE}
+         */
+        private int maxResidentBuffers = Integer.MAX_VALUE;
+
+        /**
+         * The strategy to wait for the expansion while the buffer is exhausted, default value is spin_then_park
+         */
+        private BufferWaitStrategy waitStrategy = BufferWaitStrategy.SPIN_THEN_PARK;
+
+        /**
+         * The max time to wait for a sequence, default value is 200ms
+         */
+        private Duration waitTimeout = Duration.ofMillis(200);
+
+        /**
+         * The backoff after a refill failure, it doubles with each consecutive failure. Default value is 50ms
+         */
+        private Duration refillRetryInitialBackoff = Duration.ofMillis(50);
+
+        /**
+         * The max backoff after refill failures, default value is 5s
+         */
+        private Duration refillRetryMaxBackoff = Duration.ofSeconds(5);
+
+        /**
+         * The consecutive refill failures to open the circuit breaker of the cell, the callers fail fast
+         * while it's open and the buffer is exhausted. Default value is 3
+         */
+        private int refillFailureThreshold = 3;
+
+        /**
+         * The depth of the prefetched values once the refill failures are seen, disabled if not positive.
+         * Default value is 0
+         */
+        private int emergencyPrefetchDepth = 0;
+
+        /**
+         * How long the emergency prefetch lasts after the last refill failure, default value is 10min
+         */
+        private Duration emergencyPrefetchDuration = Duration.ofMinutes(10);
+
+        /**
+         * The size of the chunk each thread leases from the cell buffer, default value is 256
+         */
+        private int leaseSize = 256;
+
+        /**
+         * The cell names that use the thread local lease, the values of them are unique
+         * but not in global order.
+         */
+        private Set<String> leaseNames = new HashSet<>();
+
         public double getExpansionThreshold() {
             return expansionThreshold;
         }
@@ -198,6 +370,38 @@ public class CellProperties {
             this.expansionThreshold = expansionThreshold;
         }
 
+        public boolean isAdaptiveThreshold() {
+            return adaptiveThreshold;
+        }
+
+        public void setAdaptiveThreshold(boolean adaptiveThreshold) {
+            this.adaptiveThreshold = adaptiveThreshold;
+        }
+
+        public double getExpansionMinThreshold() {
+            return expansionMinThreshold;
+        }
+
+        public void setExpansionMinThreshold(double expansionMinThreshold) {
+            this.expansionMinThreshold = expansionMinThreshold;
+        }
+
+        public double getExpansionMaxThreshold() {
+            return expansionMaxThreshold;
+        }
+
+        public void setExpansionMaxThreshold(double expansionMaxThreshold) {
+            this.expansionMaxThreshold = expansionMaxThreshold;
+        }
+
+        public double getLatencySafetyFactor() {
+            return latencySafetyFactor;
+        }
+
+        public void setLatencySafetyFactor(double latencySafetyFactor) {
+            this.latencySafetyFactor = latencySafetyFactor;
+        }
+
         public int getExpansionStepElasticityTime() {
             return expansionStepElasticityTime;
         }
@@ -214,6 +418,40 @@ public class CellProperties {
             this.expansionInterval = expansionInterval;
         }
 
+        public BufferStepStrategy getStepStrategy() {
+            return stepStrategy;
+        }
+
+        public void setStepStrategy(BufferStepStrategy stepStrategy) {
+            this.stepStrategy = stepStrategy;
+        }
+
+        public double getRateSmoothing() {
+            return rateSmoothing;
+        }
+
+        public void setRateSmoothing(double rateSmoothing) {
+            this.rateSmoothing = rateSmoothing;
+        }
+
+        public boolean isPersistLearnedStep() {
+            return persistLearnedStep;
+        }
+
+        public void setPersistLearnedStep(boolean persistLearnedStep) {
+            this.persistLearnedStep = persistLearnedStep;
+        }
+
+        public int getPrefetchMaxDepth() {
+            return prefetchMaxDepth;
+        }
+
+        public void setPrefetchMaxDepth(int prefetchMaxDepth) {
+            this.prefetchMaxDepth = prefetchMaxDepth;
+        }
+
+        @Deprecated
+        @DeprecatedConfigurationProperty(replacement = "cell.buffer.refresh-concurrency")
         public int getThreadPoolCoreSize() {
             return threadPoolCoreSize;
         }
@@ -222,6 +460,8 @@ public class CellProperties {
             this.threadPoolCoreSize = threadPoolCoreSize;
         }
 
+        @Deprecated
+        @DeprecatedConfigurationProperty(replacement = "cell.buffer.refresh-concurrency")
         public int getThreadPoolMaxSize() {
             return threadPoolMaxSize;
         }
@@ -237,5 +477,149 @@ public class CellProperties {
         public void setThreadPoolKeepAliveTime(Duration threadPoolKeepAliveTime) {
             this.threadPoolKeepAliveTime = threadPoolKeepAliveTime;
         }
+
+        public int getRefreshConcurrency() {
+            return refreshConcurrency;
+        }
+
+        public void setRefreshConcurrency(int refreshConcurrency) {
+            this.refreshConcurrency = refreshConcurrency;
+        }
+
+        public boolean isRefreshVirtualThreads() {
+            return refreshVirtualThreads;
+        }
+
+        public void setRefreshVirtualThreads(boolean refreshVirtualThreads) {
+            this.refreshVirtualThreads = refreshVirtualThreads;
+        }
+
+        public Duration getRefreshCoalesceWindow() {
+            return refreshCoalesceWindow;
+        }
+
+        public void setRefreshCoalesceWindow(Duration refreshCoalesceWindow) {
+            this.refreshCoalesceWindow = refreshCoalesceWindow;
+        }
+
+        public int getRefreshCoalesceMaxBatch() {
+            return refreshCoalesceMaxBatch;
+        }
+
+        public void setRefreshCoalesceMaxBatch(int refreshCoalesceMaxBatch) {
+            this.refreshCoalesceMaxBatch = refreshCoalesceMaxBatch;
+        }
+
+        public Integer getNodeId() {
+            return nodeId;
+        }
+
+        public void setNodeId(Integer nodeId) {
+            this.nodeId = nodeId;
+        }
+
+        public int getInitBatchSize() {
+            return initBatchSize;
+        }
+
+        public void setInitBatchSize(int initBatchSize) {
+            this.initBatchSize = initBatchSize;
+        }
+
+        public boolean isLazyLoading() {
+            return lazyLoading;
+        }
+
+        public void setLazyLoading(boolean lazyLoading) {
+            this.lazyLoading = lazyLoading;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public int getMaxResidentBuffers() {
+            return maxResidentBuffers;
+        }
+
+        public void setMaxResidentBuffers(int maxResidentBuffers) {
+            this.maxResidentBuffers = maxResidentBuffers;
+        }
+
+        public BufferWaitStrategy getWaitStrategy() {
+            return waitStrategy;
+        }
+
+        public void setWaitStrategy(BufferWaitStrategy waitStrategy) {
+            this.waitStrategy = waitStrategy;
+        }
+
+        public Duration getWaitTimeout() {
+            return waitTimeout;
+        }
+
+        public void setWaitTimeout(Duration waitTimeout) {
+            this.waitTimeout = waitTimeout;
+        }
+
+        public Duration getRefillRetryInitialBackoff() {
+            return refillRetryInitialBackoff;
+        }
+
+        public void setRefillRetryInitialBackoff(Duration refillRetryInitialBackoff) {
+            this.refillRetryInitialBackoff = refillRetryInitialBackoff;
+        }
+
+        public Duration getRefillRetryMaxBackoff() {
+            return refillRetryMaxBackoff;
+        }
+
+        public void setRefillRetryMaxBackoff(Duration refillRetryMaxBackoff) {
+            this.refillRetryMaxBackoff = refillRetryMaxBackoff;
+        }
+
+        public int getRefillFailureThreshold() {
+            return refillFailureThreshold;
+        }
+
+        public void setRefillFailureThreshold(int refillFailureThreshold) {
+            this.refillFailureThreshold = refillFailureThreshold;
+        }
+
+        public int getEmergencyPrefetchDepth() {
+            return emergencyPrefetchDepth;
+        }
+
+        public void setEmergencyPrefetchDepth(int emergencyPrefetchDepth) {
+            this.emergencyPrefetchDepth = emergencyPrefetchDepth;
+        }
+
+        public Duration getEmergencyPrefetchDuration() {
+            return emergencyPrefetchDuration;
+        }
+
+        public void setEmergencyPrefetchDuration(Duration emergencyPrefetchDuration) {
+            this.emergencyPrefetchDuration = emergencyPrefetchDuration;
+        }
+
+        public int getLeaseSize() {
+            return leaseSize;
+        }
+
+        public void setLeaseSize(int leaseSize) {
+            this.leaseSize = leaseSize;
+        }
+
+        public Set<String> getLeaseNames() {
+            return leaseNames;
+        }
+
+        public void setLeaseNames(Set<String> leaseNames) {
+            this.leaseNames = leaseNames;
+        }
     }
 }
@@ -32,8 +32,12 @@ public class ConfigurationHelper {
         // check specification
         CellAssert.isTrue(spec.getDataCenter() < Math.pow(10, CellSpec.CELL_DATA_CENTER_LEN), "Cell specification check: dataCenter length limit %s", CellSpec.CELL_DATA_CENTER_LEN);
         CellAssert.isTrue(spec.getMachine() < Math.pow(10, CellSpec.CELL_MACHINE_LEN), "Cell specification check: machine length limit %s", CellSpec.CELL_MACHINE_LEN);
-        CellAssert.isTrue(spec.getMinValue() < spec.getMaxValue(), "Cell specification check: limit minValue<maxValue");
-        CellAssert.isTrue(spec.getStep() < (spec.getMaxValue() - spec.getMinValue()), "Cell specification check: limit step<(maxValue-minValue)");
+        long maxValue = spec.getLongMaxValue() != null ? spec.getLongMaxValue() : spec.getMaxValue();
+        CellAssert.isTrue(spec.getMinValue() < maxValue, "Cell specification check: limit minValue<maxValue");
+        CellAssert.isTrue(spec.getStep() < (maxValue - spec.getMinValue()), "Cell specification check: limit step<(maxValue-minValue)");
+        CellAssert.isTrue(spec.getSequenceLength() >= CellSpec.CELL_SEQUENCE_LEN && spec.getSequenceLength() <= CellSpec.CELL_MAX_SEQUENCE_LEN,
+                "Cell specification check: sequenceLength limit [%s,%s]", CellSpec.CELL_SEQUENCE_LEN, CellSpec.CELL_MAX_SEQUENCE_LEN);
+        CellAssert.isTrue(String.valueOf(maxValue).length() <= spec.getSequenceLength(), "Cell specification check: maxValue length limit %s", spec.getSequenceLength());
 
         // assemble specification configuration
         CellSpecConfiguration specConfiguration = new CellSpecConfiguration();
@@ -42,21 +46,65 @@ public class ConfigurationHelper {
         specConfiguration.setMachine(spec.getMachine());
         specConfiguration.setMinValue(spec.getMinValue());
         specConfiguration.setMaxValue(spec.getMaxValue());
+        specConfiguration.setLongMaxValue(spec.getLongMaxValue());
+        specConfiguration.setSequenceLength(spec.getSequenceLength());
         specConfiguration.setStep(spec.getStep());
         return specConfiguration;
     }
 
     public static BufferConfiguration assembleBufferConfiguration(CellProperties.CellSpecProperties spec, CellProperties.CellBufferProperties buffer) {
-        // assemble buffer configuration
         int multiple = (int) Math.pow(2, buffer.getExpansionStepElasticityTime());
+        // check buffer
+        CellAssert.isTrue(buffer.getLeaseSize() > 0 && buffer.getLeaseSize() <= spec.getStep() / multiple,
+                "Cell buffer check: leaseSize limit (0,%s]", spec.getStep() / multiple);
+
+        CellAssert.isTrue(buffer.getRefreshConcurrency() > 0, "Cell buffer check: refreshConcurrency must be positive");
+        CellAssert.isTrue(buffer.getExpansionMinThreshold() > 0 && buffer.getExpansionMinThreshold() <= buffer.getExpansionMaxThreshold()
+                && buffer.getExpansionMaxThreshold() < 1, "Cell buffer check: limit 0<expansionMinThreshold<=expansionMaxThreshold<1");
+        CellAssert.isTrue(buffer.getRateSmoothing() > 0 && buffer.getRateSmoothing() <= 1, "Cell buffer check: rateSmoothing limit (0,1]");
+        CellAssert.isTrue(buffer.getPrefetchMaxDepth() > 0, "Cell buffer check: prefetchMaxDepth must be positive");
+        CellAssert.isTrue(buffer.getRefreshCoalesceMaxBatch() > 0, "Cell buffer check: refreshCoalesceMaxBatch must be positive");
+        CellAssert.isTrue(buffer.getNodeId() == null || buffer.getNodeId() >= 0, "Cell buffer check: nodeId can't be negative");
+        CellAssert.isTrue(buffer.getRefillRetryInitialBackoff().toMillis() > 0
+                && buffer.getRefillRetryInitialBackoff().compareTo(buffer.getRefillRetryMaxBackoff()) <= 0,
+                "Cell buffer check: limit 0<refillRetryInitialBackoff<=refillRetryMaxBackoff");
+        CellAssert.isTrue(buffer.getRefillFailureThreshold() > 0, "Cell buffer check: refillFailureThreshold must be positive");
+        CellAssert.isTrue(buffer.getInitBatchSize() > 0, "Cell buffer check: initBatchSize must be positive");
+        CellAssert.isTrue(buffer.getMaxResidentBuffers() > 0, "Cell buffer check: maxResidentBuffers must be positive");
+
+        // assemble buffer configuration
         BufferConfiguration bufferConfiguration = new BufferConfiguration();
         bufferConfiguration.setExpansionThreshold(buffer.getExpansionThreshold());
+        bufferConfiguration.setAdaptiveThreshold(buffer.isAdaptiveThreshold());
+        bufferConfiguration.setExpansionMinThreshold(buffer.getExpansionMinThreshold());
+        bufferConfiguration.setExpansionMaxThreshold(buffer.getExpansionMaxThreshold());
+        bufferConfiguration.setLatencySafetyFactor(buffer.getLatencySafetyFactor());
         bufferConfiguration.setExpansionInterval(buffer.getExpansionInterval().toMillis());
+        bufferConfiguration.setStepStrategy(buffer.getStepStrategy());
+        bufferConfiguration.setRateSmoothing(buffer.getRateSmoothing());
         bufferConfiguration.setExpansionMinStep(spec.getStep() / multiple);
         bufferConfiguration.setExpansionMaxStep(spec.getStep() * multiple);
-        bufferConfiguration.setThreadPoolCoreSize(buffer.getThreadPoolCoreSize());
-        bufferConfiguration.setThreadPoolMaxSize(buffer.getThreadPoolMaxSize());
+        bufferConfiguration.setPersistLearnedStep(buffer.isPersistLearnedStep());
         bufferConfiguration.setThreadPoolKeepAliveTime(buffer.getThreadPoolKeepAliveTime().toSeconds());
+        bufferConfiguration.setPrefetchMaxDepth(buffer.getPrefetchMaxDepth());
+        bufferConfiguration.setRefreshConcurrency(buffer.getRefreshConcurrency());
+        bufferConfiguration.setRefreshVirtualThreads(buffer.isRefreshVirtualThreads());
+        bufferConfiguration.setRefreshCoalesceWindow(buffer.getRefreshCoalesceWindow().toMillis());
+        bufferConfiguration.setRefreshCoalesceMaxBatch(buffer.getRefreshCoalesceMaxBatch());
+        bufferConfiguration.setNodeId(buffer.getNodeId());
+        bufferConfiguration.setInitBatchSize(buffer.getInitBatchSize());
+        bufferConfiguration.setLazyLoading(buffer.isLazyLoading());
+        bufferConfiguration.setIdleTimeout(buffer.getIdleTimeout().toMillis());
+        bufferConfiguration.setMaxResidentBuffers(buffer.getMaxResidentBuffers());
+        bufferConfiguration.setWaitStrategy(buffer.getWaitStrategy());
+        bufferConfiguration.setWaitTimeout(buffer.getWaitTimeout().toMillis());
+        bufferConfiguration.setRefillRetryInitialBackoff(buffer.getRefillRetryInitialBackoff().toMillis());
+        bufferConfiguration.setRefillRetryMaxBackoff(buffer.getRefillRetryMaxBackoff().toMillis());
+        bufferConfiguration.setRefillFailureThreshold(buffer.getRefillFailureThreshold());
+        bufferConfiguration.setEmergencyPrefetchDepth(buffer.getEmergencyPrefetchDepth());
+        bufferConfiguration.setEmergencyPrefetchDuration(buffer.getEmergencyPrefetchDuration().toMillis());
+        bufferConfiguration.setLeaseSize(buffer.getLeaseSize());
+        bufferConfiguration.setLeaseNames(buffer.getLeaseNames());
         return bufferConfiguration;
     }
 }
@@ -0,0 +1,233 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.infra.repository;
+
+import com.lazycece.cell.core.exception.CellException;
+import com.lazycece.cell.core.model.CellRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+/**
+ * In memory cell registry repository, it updates the value the same way as the db does,
+ * shared by the tests and the benchmarks as the stand-in of the db.
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class InMemoryCellRegistryRepository implements CellRegistryRepository {
+
+    private final ConcurrentHashMap<String, CellRegistry> registryMap = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Integer> segmentStepMap = new ConcurrentHashMap<>();
+    private final AtomicInteger updateCount = new AtomicInteger();
+    private final AtomicInteger batchCount = new AtomicInteger();
+    private final AtomicInteger failureCount = new AtomicInteger();
+    private volatile long latency = 0;
+    private volatile boolean failing = false;
+    private volatile Thread updateThread;
+
+    public InMemoryCellRegistryRepository register(String name, long minValue, long maxValue, int step) {
+        CellRegistry cellRegistry = new CellRegistry();
+        cellRegistry.setName(name);
+        cellRegistry.setValue(minValue);
+        cellRegistry.setMinValue(minValue);
+        cellRegistry.setMaxValue(maxValue);
+        cellRegistry.setStep(step);
+        save(cellRegistry);
+        return this;
+    }
+
+    @Override
+    public boolean existCellRegistry() {
+        return true;
+    }
+
+    @Override
+    public void save(CellRegistry cellRegistry) {
+        registryMap.put(cellRegistry.getName(), cellRegistry);
+    }
+
+    @Override
+    public int saveIfAbsent(List<CellRegistry> cellRegistries) {
+        int count = 0;
+        for (CellRegistry cellRegistry : cellRegistries) {
+            if (registryMap.putIfAbsent(cellRegistry.getName(), cellRegistry) == null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized int saveShardsIfAbsent(String name, long minValue, LongFunction<List<CellRegistry>> shardsBuilder) {
+        CellRegistry cellRegistry = registryMap.get(name);
+        if (cellRegistry == null) {
+            return saveIfAbsent(shardsBuilder.apply(minValue));
+        }
+        synchronized (cellRegistry) {
+            return saveIfAbsent(shardsBuilder.apply(cellRegistry.getLongValue() + segmentStepMap.getOrDefault(name, cellRegistry.getStep())));
+        }
+    }
+
+    @Override
+    public List<String> queryAllName() {
+        return new ArrayList<>(registryMap.keySet());
+    }
+
+    @Override
+    public List<String> queryShardNames(String name) {
+        return List.of(name);
+    }
+
+    @Override
+    public CellRegistry queryByName(String name) {
+        CellRegistry cellRegistry = registryMap.get(name);
+        return cellRegistry == null ? null : copy(cellRegistry, cellRegistry.getStep());
+    }
+
+    @Override
+    public CellRegistry lockQueryByName(String name) {
+        return queryByName(name);
+    }
+
+    @Override
+    public CellRegistry updateValueAndGet(String name) {
+        CellRegistry cellRegistry = registryMap.get(name);
+        return cellRegistry == null ? null : updateValueAndGet(name, cellRegistry.getStep());
+    }
+
+    @Override
+    public CellRegistry updateValueAndGet(String name, Integer step) {
+        access();
+        return update(name, step);
+    }
+
+    @Override
+    public List<CellRegistry> updateValuesAndGet(Map<String, Integer> steps) {
+        batchCount.incrementAndGet();
+        access();
+        List<CellRegistry> result = new ArrayList<>();
+        steps.forEach((name, step) -> {
+            CellRegistry cellRegistry = update(name, step);
+            if (cellRegistry != null) {
+                result.add(cellRegistry);
+            }
+        });
+        return result;
+    }
+
+    private CellRegistry update(String name, Integer step) {
+        CellRegistry cellRegistry = registryMap.get(name);
+        if (cellRegistry == null) {
+            return null;
+        }
+        synchronized (cellRegistry) {
+            int segmentStep = step == null ? cellRegistry.getStep() : step;
+            updateCount.incrementAndGet();
+            updateThread = Thread.currentThread();
+            // increased by the step of the last segment, contiguous with it
+            cellRegistry.setValue(cellRegistry.getLongValue() + segmentStepMap.getOrDefault(name, cellRegistry.getStep()));
+            segmentStepMap.put(name, segmentStep);
+            return copy(cellRegistry, segmentStep);
+        }
+    }
+
+    @Override
+    public List<CellRegistry> queryLearnedSteps(List<String> names) {
+        List<CellRegistry> result = new ArrayList<>();
+        names.forEach(name -> {
+            CellRegistry cellRegistry = registryMap.get(name);
+            if (cellRegistry != null) {
+                CellRegistry learned = new CellRegistry();
+                learned.setName(name);
+                learned.setLearnedStep(cellRegistry.getLearnedStep());
+                learned.setConsumptionRate(cellRegistry.getConsumptionRate());
+                result.add(learned);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void saveLearnedStep(String name, Integer learnedStep, Double consumptionRate) {
+        CellRegistry cellRegistry = registryMap.get(name);
+        synchronized (cellRegistry) {
+            cellRegistry.setLearnedStep(learnedStep);
+            if (consumptionRate != null) {
+                cellRegistry.setConsumptionRate(consumptionRate);
+            }
+        }
+    }
+
+    private CellRegistry copy(CellRegistry cellRegistry, int step) {
+        CellRegistry result = new CellRegistry();
+        result.setName(cellRegistry.getName());
+        result.setValue(cellRegistry.getLongValue());
+        result.setMinValue(cellRegistry.getLongMinValue());
+        result.setMaxValue(cellRegistry.getLongMaxValue());
+        result.setStep(step);
+        return result;
+    }
+
+    private void access() {
+        if (latency > 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failing) {
+            failureCount.incrementAndGet();
+            throw new CellException("db is unavailable");
+        }
+    }
+
+    public int getUpdateCount() {
+        return updateCount.get();
+    }
+
+    public Thread getUpdateThread() {
+        return updateThread;
+    }
+
+    public int getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Set the latency of each db access.
+     *
+     * @param latency latency (milliseconds)
+     */
+    public void setLatency(long latency) {
+        this.latency = latency;
+    }
+
+    public int getFailureCount() {
+        return failureCount.get();
+    }
+
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import com.lazycece.cell.core.configuration.BufferConfiguration;
+import com.lazycece.cell.core.model.CellRegistry;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class BufferStepStrategyTest {
+
+    @Test
+    public void testConsumptionRate() {
+        ConsumptionRate consumptionRate = new ConsumptionRate(0.5);
+        assertThat(consumptionRate.get()).isEqualTo(0);
+
+        consumptionRate.sample(1000, 100);
+        assertThat(consumptionRate.get()).isCloseTo(10, within(0.001));
+        consumptionRate.sample(1000, 50);
+        assertThat(consumptionRate.get()).isCloseTo(15, within(0.001));
+
+        // case: elapsed 0
+        consumptionRate.sample(15, 0);
+        assertThat(consumptionRate.get()).isCloseTo(15, within(0.001));
+    }
+
+    @Test
+    public void testRate() {
+        BufferConfiguration bufferConfiguration = new BufferConfiguration();
+        bufferConfiguration.setExpansionInterval(1000);
+        bufferConfiguration.setExpansionMinStep(100);
+        bufferConfiguration.setExpansionMaxStep(10000);
+        CellBuffer cellBuffer = newCellBuffer(500);
+
+        // case: rate not measured
+        assertThat(BufferStepStrategy.RATE.nextStep(cellBuffer, bufferConfiguration)).isEqualTo(500);
+
+        // case: 2 values per millisecond
+        cellBuffer.getConsumptionRate().sample(200, 100);
+        assertThat(BufferStepStrategy.RATE.nextStep(cellBuffer, bufferConfiguration)).isEqualTo(2000);
+
+        // case: bounded by max step
+        cellBuffer.getConsumptionRate().sample(100000, 1);
+        assertThat(BufferStepStrategy.RATE.nextStep(cellBuffer, bufferConfiguration)).isEqualTo(10000);
+
+        // case: the refill lead time longer than the interval, p99 200ms * 2 / (1 - 0.5) = 800ms
+        bufferConfiguration.setExpansionInterval(100);
+        cellBuffer = newCellBuffer(500);
+        cellBuffer.getConsumptionRate().sample(200, 100);
+        cellBuffer.getRefillLatency().record(200);
+        assertThat(BufferStepStrategy.RATE.nextStep(cellBuffer, bufferConfiguration)).isEqualTo(1600);
+        bufferConfiguration.setExpansionInterval(1000);
+
+        // case: bounded by min step
+        cellBuffer = newCellBuffer(500);
+        cellBuffer.getConsumptionRate().sample(1, 1000);
+        assertThat(BufferStepStrategy.RATE.nextStep(cellBuffer, bufferConfiguration)).isEqualTo(100);
+    }
+
+    @Test
+    public void testDoubling() {
+        BufferConfiguration bufferConfiguration = new BufferConfiguration();
+        bufferConfiguration.setExpansionInterval(60 * 1000);
+        bufferConfiguration.setExpansionMinStep(100);
+        bufferConfiguration.setExpansionMaxStep(1000);
+
+        // case: refreshed just now
+        assertThat(BufferStepStrategy.DOUBLING.nextStep(newCellBuffer(500), bufferConfiguration)).isEqualTo(1000);
+        assertThat(BufferStepStrategy.DOUBLING.nextStep(newCellBuffer(600), bufferConfiguration)).isEqualTo(600);
+
+        // case: refreshed long ago
+        bufferConfiguration.setExpansionInterval(-1);
+        assertThat(BufferStepStrategy.DOUBLING.nextStep(newCellBuffer(500), bufferConfiguration)).isEqualTo(250);
+    }
+
+    private static CellBuffer newCellBuffer(int step) {
+        CellRegistry cellRegistry = new CellRegistry();
+        cellRegistry.setName("test");
+        cellRegistry.setValue(0L);
+        cellRegistry.setStep(step);
+        CellBuffer cellBuffer = new CellBuffer();
+        cellBuffer.fillBuffer(cellRegistry, 0.75);
+        return cellBuffer;
+    }
+}
@@ -0,0 +1,648 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import com.lazycece.cell.core.configuration.BufferConfiguration;
+import com.lazycece.cell.core.exception.CellException;
+import com.lazycece.cell.core.exception.CellTimeoutException;
+import com.lazycece.cell.core.exception.CellUnavailableException;
+import com.lazycece.cell.core.infra.repository.InMemoryCellRegistryRepository;
+import com.lazycece.cell.core.model.CellRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class CellBufferManagerTest {
+
+    private final List<CellBufferManager> managers = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        // stop the refresher and evictor threads of each test
+        managers.forEach(CellBufferManager::destroy);
+        managers.clear();
+    }
+
+    @Test
+    public void testConcurrentSequence() throws Exception {
+        assertNoDuplicateAndNoSkip(100, 0);
+    }
+
+    @Test
+    public void testSlowExpansion() throws Exception {
+        for (BufferWaitStrategy waitStrategy : BufferWaitStrategy.values()) {
+            InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                    .register("test", 0, Integer.MAX_VALUE, 1000);
+            repository.setLatency(20);
+            BufferConfiguration bufferConfiguration = newBufferConfiguration(1000);
+            bufferConfiguration.setWaitStrategy(waitStrategy);
+            bufferConfiguration.setWaitTimeout(2000);
+            CellBufferManager manager = newManager(repository, bufferConfiguration);
+
+            int threads = 8;
+            int perThread = 2000;
+            List<int[]> results = runConcurrently(manager, "test", threads, perThread);
+            assertNoDuplicateAndNoSkip(results, 1000, threads * perThread);
+        }
+    }
+
+    @Test
+    public void testChangingStep() throws Exception {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 100);
+        repository.setLatency(5);
+        BufferConfiguration bufferConfiguration = new BufferConfiguration();
+        // the step shrinks to the min step, as the segment lifetime is far longer than the interval
+        bufferConfiguration.setExpansionInterval(1);
+        bufferConfiguration.setExpansionMinStep(50);
+        bufferConfiguration.setExpansionMaxStep(400);
+        bufferConfiguration.setWaitTimeout(2000);
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+
+        int threads = 4;
+        int perThread = 1000;
+        List<int[]> results = runConcurrently(manager, "test", threads, perThread);
+        assertNoDuplicateAndNoSkip(results, 100, threads * perThread);
+    }
+
+    @Test
+    public void testPrefetchRing() throws Exception {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 100);
+        repository.setLatency(5);
+        BufferConfiguration bufferConfiguration = newBufferConfiguration(100);
+        bufferConfiguration.setPrefetchMaxDepth(4);
+        bufferConfiguration.setWaitTimeout(2000);
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+
+        int threads = 8;
+        int perThread = 2000;
+        List<int[]> results = runConcurrently(manager, "test", threads, perThread);
+        assertNoDuplicateAndNoSkip(results, 100, threads * perThread);
+    }
+
+    @Test
+    public void testWaitTimeout() {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 100);
+        BufferConfiguration bufferConfiguration = newBufferConfiguration(100);
+        bufferConfiguration.setWaitStrategy(BufferWaitStrategy.BLOCKING);
+        bufferConfiguration.setWaitTimeout(50);
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+        repository.setLatency(1000);
+
+        assertThat(manager.getSequences("test", 100)).hasSize(100);
+        long startTime = System.currentTimeMillis();
+        assertThatThrownBy(() -> manager.getSequence("test")).isInstanceOf(CellTimeoutException.class);
+        assertThat(System.currentTimeMillis() - startTime).isLessThan(1000);
+    }
+
+    @Test
+    public void testWaitInterrupted() {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 100);
+        BufferConfiguration bufferConfiguration = newBufferConfiguration(100);
+        bufferConfiguration.setWaitStrategy(BufferWaitStrategy.BLOCKING);
+        bufferConfiguration.setWaitTimeout(2000);
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+        repository.setLatency(1000);
+
+        assertThat(manager.getSequences("test", 100)).hasSize(100);
+        long startTime = System.currentTimeMillis();
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(() -> manager.getSequence("test"))
+                    .isInstanceOf(CellException.class)
+                    .isNotInstanceOf(CellTimeoutException.class)
+                    .hasMessageContaining("interrupted");
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+        }
+        assertThat(System.currentTimeMillis() - startTime).isLessThan(1000);
+    }
+
+    @Test
+    public void testRefillBreaker() throws Exception {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 100);
+        BufferConfiguration bufferConfiguration = newBufferConfiguration(100);
+        bufferConfiguration.setWaitStrategy(BufferWaitStrategy.BLOCKING);
+        bufferConfiguration.setWaitTimeout(100);
+        bufferConfiguration.setRefillRetryInitialBackoff(50);
+        bufferConfiguration.setRefillRetryMaxBackoff(200);
+        bufferConfiguration.setRefillFailureThreshold(3);
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+
+        // case: the db is down, the refills back off and the callers fail fast once the breaker opens
+        repository.setFailing(true);
+        assertThat(manager.getSequences("test", 100)).hasSize(100);
+        int calls = 0;
+        boolean unavailable = false;
+        long endTime = System.currentTimeMillis() + 600;
+        while (System.currentTimeMillis() < endTime) {
+            calls++;
+            try {
+                manager.getSequence("test");
+            } catch (CellUnavailableException e) {
+                unavailable = true;
+            } catch (CellTimeoutException e) {
+                // waiting for the refills before the breaker opens
+            }
+        }
+        assertThat(unavailable).isTrue();
+        assertThat(calls).isGreaterThan(repository.getFailureCount() * 10);
+        assertThat(repository.getFailureCount()).isLessThanOrEqualTo(8);
+
+        // case: recover once the db is up
+        repository.setFailing(false);
+        long value = -1;
+        endTime = System.currentTimeMillis() + 2000;
+        while (value < 0 && System.currentTimeMillis() < endTime) {
+            try {
+                value = manager.getSequence("test");
+            } catch (CellUnavailableException | CellTimeoutException e) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+        }
+        assertThat(value).isEqualTo(200);
+    }
+
+    @Test
+    public void testEmergencyPrefetch() throws Exception {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 100);
+        BufferConfiguration bufferConfiguration = newBufferConfiguration(100);
+        bufferConfiguration.setRefillRetryInitialBackoff(20);
+        bufferConfiguration.setEmergencyPrefetchDepth(4);
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+        assertThat(repository.getUpdateCount()).isEqualTo(1);
+
+        // case: the refill fails once, and then the retry prefetches deeply
+        repository.setFailing(true);
+        assertThat(manager.getSequences("test", 100)).hasSize(100);
+        long endTime = System.currentTimeMillis() + 2000;
+        while (repository.getFailureCount() == 0 && System.currentTimeMillis() < endTime) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        repository.setFailing(false);
+        while (repository.getUpdateCount() < 5 && System.currentTimeMillis() < endTime) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        // the initial load and the prefetched depth at least, a regular refill may race with the retry
+        assertThat(repository.getFailureCount()).isGreaterThan(0);
+        assertThat(repository.getUpdateCount()).isBetween(5, 1 + 2 * 4);
+        assertThat(manager.getSequences("test", 400)).hasSize(400);
+        assertThat(repository.getUpdateCount()).isGreaterThanOrEqualTo(5);
+    }
+
+    @Test
+    public void testFlightRecorderEvents() throws Exception {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 100);
+        BufferConfiguration bufferConfiguration = newBufferConfiguration(100);
+        bufferConfiguration.setWaitStrategy(BufferWaitStrategy.BLOCKING);
+        bufferConfiguration.setWaitTimeout(500);
+        // never open the refill circuit breaker, the callers wait until timeout
+        bufferConfiguration.setRefillFailureThreshold(Integer.MAX_VALUE);
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+
+        Path path = Files.createTempFile("cell", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.lazycece.cell.Refill").withoutThreshold();
+            recording.enable("com.lazycece.cell.Wait").withoutThreshold();
+            recording.enable("com.lazycece.cell.Timeout");
+            recording.start();
+            // case: refill, and then timeout as the db fails
+            assertThat(manager.getSequences("test", 150)).hasSize(150);
+            repository.setFailing(true);
+            assertThatThrownBy(() -> manager.getSequences("test", 100)).isInstanceOf(CellTimeoutException.class);
+            recording.stop();
+            recording.dump(path);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(path);
+        Files.deleteIfExists(path);
+
+        RecordedEvent refill = events.stream().filter(e -> e.getEventType().getName().equals("com.lazycece.cell.Refill"))
+                .findFirst().orElseThrow();
+        assertThat(refill.getString("cell")).isEqualTo("test");
+        assertThat(refill.getInt("oldStep")).isEqualTo(100);
+        assertThat(refill.getInt("newStep")).isEqualTo(100);
+        assertThat(refill.getInt("rows")).isEqualTo(1);
+        assertThat(events).anyMatch(e -> e.getEventType().getName().equals("com.lazycece.cell.Wait")
+                && "timeout".equals(e.getString("outcome")));
+        assertThat(events).anyMatch(e -> e.getEventType().getName().equals("com.lazycece.cell.Timeout")
+                && "test".equals(e.getString("cell")));
+    }
+
+    @Test
+    public void testGetSequenceAsync() throws Exception {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 100);
+        BufferConfiguration bufferConfiguration = newBufferConfiguration(100);
+        bufferConfiguration.setWaitTimeout(500);
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+
+        // case: buffer has values
+        CompletableFuture<Long> future = manager.getSequenceAsync("test");
+        assertThat(future).isCompletedWithValue(100L);
+
+        // case: buffer exhausted, completed once expanded
+        repository.setLatency(100);
+        assertThat(manager.getSequences("test", 99)).hasSize(99);
+        future = manager.getSequenceAsync("test");
+        assertThat(future).isNotDone();
+        assertThat(future.get(1, TimeUnit.SECONDS)).isEqualTo(200L);
+
+        // case: timeout
+        repository.setLatency(1000);
+        assertThat(manager.getSequences("test", 99)).hasSize(99);
+        CompletableFuture<Long> timeoutFuture = manager.getSequenceAsync("test");
+        assertThatThrownBy(() -> timeoutFuture.get(2, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(CellTimeoutException.class);
+    }
+
+    @Test
+    public void testDestroy() {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 100);
+        CellBufferManager manager = newManager(repository, 100);
+        assertThat(manager.getSequence("test")).isEqualTo(100);
+
+        manager.destroy();
+        assertThatThrownBy(() -> manager.getSequence("test")).isInstanceOf(CellException.class);
+    }
+
+    @Test
+    public void testInitCacheInBatches() {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository();
+        for (int i = 0; i < 50; i++) {
+            repository.register("test" + i, i * 1000L, Integer.MAX_VALUE, 100);
+        }
+        BufferConfiguration bufferConfiguration = newBufferConfiguration(100);
+        bufferConfiguration.setInitBatchSize(7);
+        bufferConfiguration.setRefreshConcurrency(3);
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+
+        assertThat(repository.getBatchCount()).isEqualTo(8);
+        assertThat(repository.getUpdateCount()).isEqualTo(50);
+        for (int i = 0; i < 50; i++) {
+            assertThat(manager.getSequence("test" + i)).isEqualTo(i * 1000L + 100);
+        }
+    }
+
+    @Test
+    public void testCoalescedRefill() throws Exception {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository();
+        for (int i = 0; i < 4; i++) {
+            repository.register("test" + i, 0, Integer.MAX_VALUE, 100);
+        }
+        repository.setLatency(5);
+        BufferConfiguration bufferConfiguration = newBufferConfiguration(100);
+        bufferConfiguration.setRefreshCoalesceWindow(20);
+        bufferConfiguration.setRefreshConcurrency(1);
+        bufferConfiguration.setWaitTimeout(2000);
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+        int initBatchCount = repository.getBatchCount();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<List<int[]>>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            String name = "test" + i;
+            futures.add(executor.submit(() -> runConcurrently(manager, name, 2, 1000)));
+        }
+        for (Future<List<int[]>> future : futures) {
+            assertNoDuplicateAndNoSkip(future.get(), 100, 2000);
+        }
+        executor.shutdown();
+        assertThat(repository.getBatchCount()).isGreaterThan(initBatchCount);
+    }
+
+    @Test
+    public void testLazyLoading() throws Exception {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 100);
+        repository.setLatency(20);
+        BufferConfiguration bufferConfiguration = newBufferConfiguration(100);
+        bufferConfiguration.setLazyLoading(true);
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+        assertThat(manager.getResidentBufferCount()).isEqualTo(0);
+        assertThat(repository.getUpdateCount()).isEqualTo(0);
+
+        // case: loaded once by concurrent first use
+        List<int[]> results = runConcurrently(manager, "test", 8, 1);
+        Set<Integer> values = new HashSet<>();
+        results.forEach(result -> values.add(result[0]));
+        assertThat(values).hasSize(8).allMatch(value -> value >= 100 && value < 108);
+        assertThat(repository.getUpdateCount()).isEqualTo(1);
+        assertThat(manager.getResidentBufferCount()).isEqualTo(1);
+
+        // case: loaded by the refresher, out of the caller's thread (and transaction)
+        repository.register("other", 0, Integer.MAX_VALUE, 100);
+        assertThat(manager.getLeaseLeftover("other")).isEqualTo(-1);
+        assertThat(manager.getSequence("other")).isEqualTo(100);
+        assertThat(repository.getUpdateThread()).isNotSameAs(Thread.currentThread());
+        assertThat(manager.getLeaseLeftover("other")).isEqualTo(0);
+
+        // case: loaded asynchronously
+        repository.register("async", 0, Integer.MAX_VALUE, 100);
+        assertThat(manager.getSequenceAsync("async").get(1, TimeUnit.SECONDS)).isEqualTo(100L);
+        assertThat(manager.getResidentBufferCount()).isEqualTo(3);
+
+        // case: not registered
+        assertThatThrownBy(() -> manager.getSequence("unknown")).isInstanceOf(CellException.class);
+        assertThat(manager.getResidentBufferCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testIdleEviction() {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 100);
+        BufferConfiguration bufferConfiguration = newBufferConfiguration(100);
+        bufferConfiguration.setLazyLoading(true);
+        bufferConfiguration.setIdleTimeout(60 * 1000);
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+        assertThat(manager.getSequence("test")).isEqualTo(100);
+
+        // case: active since the last check
+        long now = System.currentTimeMillis();
+        manager.evictIdleBuffers(now + 60 * 1000);
+        assertThat(manager.getResidentBufferCount()).isEqualTo(1);
+
+        // case: idle for the timeout, and loaded again with a new segment
+        manager.evictIdleBuffers(now + 120 * 1000);
+        assertThat(manager.getResidentBufferCount()).isEqualTo(0);
+        assertThat(manager.getSequence("test")).isEqualTo(200);
+        manager.destroy();
+    }
+
+    @Test
+    public void testMaxResidentBuffers() {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("a", 0, Integer.MAX_VALUE, 100)
+                .register("b", 0, Integer.MAX_VALUE, 100)
+                .register("c", 0, Integer.MAX_VALUE, 100);
+        BufferConfiguration bufferConfiguration = newBufferConfiguration(100);
+        bufferConfiguration.setLazyLoading(true);
+        bufferConfiguration.setMaxResidentBuffers(2);
+        bufferConfiguration.setIdleTimeout(60 * 1000);
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+
+        assertThat(manager.getSequence("a")).isEqualTo(100);
+        assertThat(manager.getSequence("b")).isEqualTo(100);
+        // case: the least recently used one is evicted, the one active since the last check gets a second chance
+        manager.evictIdleBuffers(System.currentTimeMillis());
+        assertThat(manager.getResidentBufferCount()).isEqualTo(2);
+        assertThat(manager.getSequence("a")).isEqualTo(101);
+        assertThat(manager.getSequence("c")).isEqualTo(100);
+        assertThat(manager.getResidentBufferCount()).isEqualTo(2);
+        assertThat(manager.getLeaseLeftover("a")).isEqualTo(0);
+        assertThat(manager.getLeaseLeftover("b")).isEqualTo(-1);
+    }
+
+    @Test
+    public void testLearnedStep() {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 100);
+        repository.saveLearnedStep("test", 1000, 5.0);
+        BufferConfiguration bufferConfiguration = new BufferConfiguration();
+        bufferConfiguration.setExpansionMinStep(100);
+        bufferConfiguration.setExpansionMaxStep(800);
+        bufferConfiguration.setPersistLearnedStep(true);
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+
+        // case: start at the learned step, bounded by max step, the segment is [100, 899]
+        assertThat(manager.getSequence("test")).isEqualTo(100);
+        assertThat(manager.getSequences("test", 500)).hasSize(500).endsWith(600);
+        assertThat(repository.getUpdateCount()).isEqualTo(1);
+
+        // case: save the learned step while shutdown
+        manager.destroy();
+        CellRegistry learned = repository.queryLearnedSteps(List.of("test")).get(0);
+        assertThat(learned.getLearnedStep()).isEqualTo(800);
+        assertThat(learned.getConsumptionRate()).isCloseTo(5.0, within(1e-9));
+    }
+
+    @Test
+    public void testGetSequences() {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 100);
+        CellBufferManager manager = newManager(repository, 100);
+
+        // case: inside one buffer value
+        assertThat(manager.getSequences("test", 10)).containsExactly(100, 101, 102, 103, 104, 105, 106, 107, 108, 109);
+
+        // case: split across buffer values
+        int[] values = manager.getSequences("test", 250);
+        for (int i = 0; i < values.length; i++) {
+            assertThat(values[i]).isEqualTo(110 + i);
+        }
+        assertThat(manager.getSequence("test")).isEqualTo(360);
+    }
+
+    @Test
+    public void testLongSequence() {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", Integer.MAX_VALUE - 150L, Long.MAX_VALUE, 100);
+        CellBufferManager manager = newManager(repository, 100);
+
+        // case: the int api inside the int range
+        assertThat(manager.getSequence("test")).isEqualTo(Integer.MAX_VALUE - 50);
+        assertThat(manager.getSequences("test", 2)).containsExactly(Integer.MAX_VALUE - 49, Integer.MAX_VALUE - 48);
+
+        // case: the long api beyond it
+        assertThat(manager.getLongSequences("test", 47)).endsWith((long) Integer.MAX_VALUE - 1);
+        assertThat(manager.getLongSequence("test")).isEqualTo(Integer.MAX_VALUE);
+        assertThat(manager.getLongSequence("test")).isEqualTo(Integer.MAX_VALUE + 1L);
+        assertThatThrownBy(() -> manager.getSequence("test")).isInstanceOf(CellException.class);
+    }
+
+    @Test
+    public void testConcurrentGetSequences() throws Exception {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 1000);
+        CellBufferManager manager = newManager(repository, 1000);
+
+        int threads = 16;
+        int batches = 200;
+        int count = 37;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<List<int[]>>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                List<int[]> values = new ArrayList<>();
+                for (int i = 0; i < batches; i++) {
+                    values.add(manager.getSequences("test", count));
+                }
+                return values;
+            }));
+        }
+        int total = threads * batches * count;
+        BitSet bitSet = new BitSet(total);
+        for (Future<List<int[]>> future : futures) {
+            for (int[] values : future.get()) {
+                for (int value : values) {
+                    int index = value - 1000;
+                    assertThat(index).isBetween(0, total - 1);
+                    assertThat(bitSet.get(index)).as("duplicate value %s", value).isFalse();
+                    bitSet.set(index);
+                }
+            }
+        }
+        executor.shutdown();
+        assertThat(bitSet.cardinality()).isEqualTo(total);
+    }
+
+    @Test
+    public void testConcurrentLeasedSequence() throws Exception {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 1000);
+        BufferConfiguration bufferConfiguration = newBufferConfiguration(1000);
+        bufferConfiguration.setLeaseSize(64);
+        bufferConfiguration.setLeaseNames(Set.of("test"));
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+
+        int threads = 16;
+        int perThread = 5000;
+        List<int[]> results = runConcurrently(manager, "test", threads, perThread);
+
+        // unique, but the leftover of the leases leaves gaps
+        Set<Integer> values = new HashSet<>();
+        for (int[] threadValues : results) {
+            for (int value : threadValues) {
+                assertThat(values.add(value)).as("duplicate value %s", value).isTrue();
+            }
+        }
+        assertThat(values).hasSize(threads * perThread);
+        assertThat(manager.getLeaseLeftover("test")).isBetween(0L, (long) threads * 64);
+    }
+
+    @Test
+    public void testLeaseLeftover() {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 1000)
+                .register("strict", 0, Integer.MAX_VALUE, 1000);
+        BufferConfiguration bufferConfiguration = newBufferConfiguration(1000);
+        bufferConfiguration.setLeaseSize(64);
+        bufferConfiguration.setLeaseNames(Set.of("test"));
+        CellBufferManager manager = newManager(repository, bufferConfiguration);
+
+        assertThat(manager.getSequence("test")).isEqualTo(1000);
+        assertThat(manager.getSequence("test")).isEqualTo(1001);
+        assertThat(manager.getLeaseLeftover("test")).isEqualTo(62);
+
+        // case: lease mode disabled
+        assertThat(manager.getSequence("strict")).isEqualTo(1000);
+        assertThat(manager.getLeaseLeftover("strict")).isEqualTo(0);
+    }
+
+    private void assertNoDuplicateAndNoSkip(int step, long latency) throws Exception {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, step);
+        repository.setLatency(latency);
+        CellBufferManager manager = newManager(repository, step);
+
+        int threads = 32;
+        int perThread = 5000;
+        List<int[]> results = runConcurrently(manager, "test", threads, perThread);
+        assertNoDuplicateAndNoSkip(results, step, threads * perThread);
+    }
+
+    private void assertNoDuplicateAndNoSkip(List<int[]> results, int step, int total) {
+        // segments are handed out from the value after first update, see updateValueAndGet
+        BitSet bitSet = new BitSet(total);
+        for (int[] values : results) {
+            for (int value : values) {
+                int index = value - step;
+                assertThat(index).isBetween(0, total - 1);
+                assertThat(bitSet.get(index)).as("duplicate value %s", value).isFalse();
+                bitSet.set(index);
+            }
+        }
+        assertThat(bitSet.cardinality()).isEqualTo(total);
+    }
+
+    private CellBufferManager newManager(InMemoryCellRegistryRepository repository, int step) {
+        return newManager(repository, newBufferConfiguration(step));
+    }
+
+    static BufferConfiguration newBufferConfiguration(int step) {
+        BufferConfiguration bufferConfiguration = new BufferConfiguration();
+        bufferConfiguration.setExpansionMinStep(step);
+        bufferConfiguration.setExpansionMaxStep(step);
+        return bufferConfiguration;
+    }
+
+    private CellBufferManager newManager(InMemoryCellRegistryRepository repository, BufferConfiguration bufferConfiguration) {
+        CellBufferManager manager = new CellBufferManager();
+        managers.add(manager);
+        manager.setBufferConfig(bufferConfiguration);
+        manager.setCellRegistryRepository(repository);
+        manager.afterPropertiesSet();
+        manager.initCache();
+        return manager;
+    }
+
+    static List<int[]> runConcurrently(CellBufferManager manager, String name, int threads, int perThread) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<int[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                int[] values = new int[perThread];
+                start.await();
+                for (int i = 0; i < perThread; i++) {
+                    values[i] = manager.getSequence(name);
+                }
+                return values;
+            }));
+        }
+        start.countDown();
+        List<int[]> results = new ArrayList<>();
+        for (Future<int[]> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+        return results;
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import com.lazycece.cell.core.model.CellRegistry;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class CellBufferRefresherTest {
+
+    @Test
+    public void testSingleFlightAndConcurrency() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(12);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Set<CellBuffer> refreshing = ConcurrentHashMap.newKeySet();
+        AtomicBoolean overlapped = new AtomicBoolean(false);
+        CellBufferRefresher refresher = new CellBufferRefresher(executor, 2, cellBuffer -> {
+            overlapped.compareAndSet(false, !refreshing.add(cellBuffer));
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            started.countDown();
+            await(release);
+            running.decrementAndGet();
+            refreshing.remove(cellBuffer);
+            finished.countDown();
+        }, cellBuffer -> {
+        });
+
+        List<CellBuffer> cellBuffers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            cellBuffers.add(newCellBuffer("test" + i, 100));
+            assertThat(refresher.submit(cellBuffers.get(i))).isTrue();
+        }
+        await(started);
+        assertThat(refresher.pendingCount()).isEqualTo(8);
+
+        // case: the pending ones are merged, the refreshing ones are refilled again after
+        for (CellBuffer cellBuffer : cellBuffers) {
+            assertThat(refresher.submit(cellBuffer)).isTrue();
+        }
+        assertThat(refresher.pendingCount()).isEqualTo(10);
+
+        release.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(refresher.close(1000)).isTrue();
+        assertThat(maxRunning.get()).isEqualTo(2);
+        assertThat(overlapped.get()).isFalse();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testUrgency() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(4);
+        List<String> refreshed = new ArrayList<>();
+        CellBufferRefresher refresher = new CellBufferRefresher(executor, 1, cellBuffer -> {
+            started.countDown();
+            await(release);
+            refreshed.add(cellBuffer.getName());
+            finished.countDown();
+        }, cellBuffer -> {
+        });
+
+        refresher.submit(newCellBuffer("first", 0));
+        await(started);
+        refresher.submit(newCellBuffer("far", 10));
+        refresher.submit(newCellBuffer("near", 90));
+        refresher.submit(newCellBuffer("middle", 50));
+
+        release.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(refresher.close(1000)).isTrue();
+        assertThat(refreshed).containsExactly("first", "near", "middle", "far");
+        executor.shutdown();
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch submitted = new CountDownLatch(1);
+        Executor executor = command -> pool.execute(() -> {
+            await(submitted);
+            command.run();
+        });
+        CountDownLatch finished = new CountDownLatch(2);
+        List<List<String>> batches = new ArrayList<>();
+        CellBufferRefresher refresher = new CellBufferRefresher(executor, 1, 200, 3, cellBuffers -> {
+            batches.add(cellBuffers.stream().map(CellBuffer::getName).collect(Collectors.toList()));
+            finished.countDown();
+        }, cellBuffer -> {
+        });
+
+        refresher.submit(newCellBuffer("10", 10));
+        refresher.submit(newCellBuffer("90", 90));
+        refresher.submit(newCellBuffer("50", 50));
+        refresher.submit(newCellBuffer("70", 70));
+        refresher.submit(newCellBuffer("30", 30));
+        submitted.countDown();
+
+        // case: the full batch at once, the rest waits for the window out of the concurrency slot
+        TimeUnit.MILLISECONDS.sleep(100);
+        assertThat(batches).hasSize(1);
+        assertThat(refresher.runningCount()).isEqualTo(0);
+        assertThat(refresher.pendingCount()).isEqualTo(2);
+
+        // case: coalesced in the window, bounded by the max batch, in order of urgency
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(refresher.close(1000)).isTrue();
+        assertThat(batches).hasSize(2);
+        assertThat(batches.get(0)).containsExactly("90", "70", "50");
+        assertThat(batches.get(1)).containsExactly("30", "10");
+        pool.shutdown();
+    }
+
+    @Test
+    public void testRejected() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        AtomicInteger rejected = new AtomicInteger(2);
+        Executor executor = command -> {
+            if (rejected.getAndDecrement() > 0) {
+                throw new RejectedExecutionException("busy");
+            }
+            pool.execute(command);
+        };
+        CountDownLatch finished = new CountDownLatch(1);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        CellBufferRefresher refresher = new CellBufferRefresher(executor, 1, cellBuffer -> {
+            threads.add(Thread.currentThread());
+            finished.countDown();
+        }, cellBuffer -> {
+        });
+
+        // case: never refilled in the caller, dispatched again later
+        assertThat(refresher.submit(newCellBuffer("test", 0))).isTrue();
+        assertThat(refresher.runningCount()).isEqualTo(0);
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(threads).doesNotContain(Thread.currentThread());
+        assertThat(refresher.close(1000)).isTrue();
+        pool.shutdown();
+    }
+
+    @Test
+    public void testClose() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> discarded = new ArrayList<>();
+        CellBufferRefresher refresher = new CellBufferRefresher(executor, 1, cellBuffer -> {
+            started.countDown();
+            await(release);
+        }, cellBuffer -> discarded.add(cellBuffer.getName()));
+
+        refresher.submit(newCellBuffer("running", 0));
+        await(started);
+        refresher.submit(newCellBuffer("pending", 0));
+
+        // case: running refill not finished
+        assertThat(refresher.close(50)).isFalse();
+        assertThat(discarded).containsExactly("pending");
+        assertThat(refresher.submit(newCellBuffer("closed", 0))).isFalse();
+
+        release.countDown();
+        assertThat(refresher.close(1000)).isTrue();
+        executor.shutdown();
+    }
+
+    private static CellBuffer newCellBuffer(String name, int used) {
+        CellRegistry cellRegistry = new CellRegistry();
+        cellRegistry.setName(name);
+        cellRegistry.setValue(0L);
+        cellRegistry.setStep(100);
+        CellBuffer cellBuffer = new CellBuffer();
+        cellBuffer.fillBuffer(cellRegistry, 0.75);
+        cellBuffer.currentBufferValue().getAndAdd(used);
+        return cellBuffer;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
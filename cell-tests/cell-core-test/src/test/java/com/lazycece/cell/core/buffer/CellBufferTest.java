@@ -20,6 +20,7 @@ import com.lazycece.cell.core.model.CellRegistry;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
 
 /**
  * @author lazycece
@@ -29,17 +30,146 @@ public class CellBufferTest {
 
     @Test
     public void testNeedExpansion() {
-        // case: next ready
+        // case: empty buffer
         CellBuffer cellBuffer = new CellBuffer();
-        cellBuffer.setNextReady(true);
-        assertThat(cellBuffer.needExpansion(0)).isFalse();
+        assertThat(cellBuffer.needExpansion()).isFalse();
 
-        // case: match threshold
+        // case: not match threshold
         CellRegistry cellRegistry = new CellRegistry();
         cellRegistry.setName("test");
         cellRegistry.setValue(1000);
         cellRegistry.setStep(100);
-        cellBuffer.fillBuffer(cellRegistry);
-        assertThat(cellBuffer.needExpansion(0.75)).isFalse();
+        cellBuffer.fillBuffer(cellRegistry, 0.75);
+        assertThat(cellBuffer.needExpansion()).isFalse();
+
+        // case: match threshold
+        BufferValue bufferValue = cellBuffer.currentBufferValue();
+        assertThat(bufferValue.watermark()).isEqualTo(1075);
+        for (int i = 1000; i <= bufferValue.watermark(); i++) {
+            bufferValue.getAndIncrement();
+        }
+        assertThat(cellBuffer.needExpansion()).isTrue();
+
+        // case: next ready
+        cellRegistry.setValue(1100);
+        cellBuffer.fillBuffer(cellRegistry, 0.75);
+        assertThat(cellBuffer.isNextReady()).isTrue();
+        assertThat(cellBuffer.needExpansion()).isFalse();
+    }
+
+    @Test
+    public void testIssuedCount() {
+        CellBuffer cellBuffer = new CellBuffer();
+        assertThat(cellBuffer.getIssuedCount()).isEqualTo(0);
+        CellRegistry cellRegistry = new CellRegistry();
+        cellRegistry.setName("test");
+        cellRegistry.setValue(0);
+        cellRegistry.setStep(10);
+        cellBuffer.fillBuffer(cellRegistry, 0.75);
+        cellRegistry.setValue(10);
+        cellBuffer.fillBuffer(cellRegistry, 0.75);
+        assertThat(cellBuffer.prefetchedRemaining()).isEqualTo(10);
+
+        // case: the overrun values of the exhausted value are not counted
+        BufferValue exhausted = cellBuffer.currentBufferValue();
+        exhausted.getAndAdd(12);
+        assertThat(cellBuffer.getIssuedCount()).isEqualTo(10);
+        assertThat(cellBuffer.switchToNext(exhausted)).isTrue();
+        cellBuffer.currentBufferValue().getAndAdd(3);
+        assertThat(cellBuffer.getIssuedCount()).isEqualTo(13);
+        assertThat(cellBuffer.prefetchedRemaining()).isEqualTo(0);
+    }
+
+    @Test
+    public void testSwitchToNext() {
+        CellBuffer cellBuffer = new CellBuffer();
+        CellRegistry cellRegistry = new CellRegistry();
+        cellRegistry.setName("test");
+        cellRegistry.setValue(0);
+        cellRegistry.setStep(10);
+        cellBuffer.fillBuffer(cellRegistry, 0.75);
+        BufferValue exhausted = cellBuffer.currentBufferValue();
+
+        // case: next not ready
+        assertThat(cellBuffer.switchToNext(exhausted)).isFalse();
+
+        // case: next ready
+        cellRegistry.setValue(10);
+        cellBuffer.fillBuffer(cellRegistry, 0.75);
+        assertThat(cellBuffer.switchToNext(exhausted)).isTrue();
+        assertThat(cellBuffer.currentBufferValue().currentValue()).isEqualTo(10);
+        assertThat(cellBuffer.isNextReady()).isFalse();
+
+        // case: switched by other thread
+        assertThat(cellBuffer.switchToNext(exhausted)).isTrue();
+        assertThat(cellBuffer.currentBufferValue().currentValue()).isEqualTo(10);
+    }
+
+    @Test
+    public void testLongValue() {
+        CellBuffer cellBuffer = new CellBuffer();
+        CellRegistry cellRegistry = new CellRegistry();
+        cellRegistry.setName("test");
+        cellRegistry.setValue(Integer.MAX_VALUE - 10L);
+        cellRegistry.setMaxValue(Integer.MAX_VALUE + 50L);
+        cellRegistry.setStep(100);
+        cellBuffer.fillBuffer(cellRegistry, 0.75);
+
+        // case: segment crosses Integer.MAX_VALUE, clamped to max value
+        BufferValue bufferValue = cellBuffer.currentBufferValue();
+        assertThat(bufferValue.maxValue()).isEqualTo(Integer.MAX_VALUE + 50L);
+        assertThat(bufferValue.watermark()).isEqualTo(Integer.MAX_VALUE + 50L);
+        assertThat(bufferValue.getAndAdd(20)).isEqualTo(Integer.MAX_VALUE - 10L);
+        assertThat(bufferValue.getAndIncrement()).isEqualTo(Integer.MAX_VALUE + 10L);
+    }
+
+    @Test
+    public void testConsumptionSample() throws Exception {
+        CellBuffer cellBuffer = new CellBuffer();
+        CellRegistry cellRegistry = new CellRegistry();
+        cellRegistry.setName("test");
+        cellRegistry.setValue(0);
+        cellRegistry.setMaxValue(9L);
+        cellRegistry.setStep(100);
+        cellBuffer.fillBuffer(cellRegistry, 0.75);
+        BufferValue exhausted = cellBuffer.currentBufferValue();
+        exhausted.getAndAdd(10);
+        Thread.sleep(20);
+
+        // case: the time waited for the next value is left out
+        assertThat(cellBuffer.switchToNext(exhausted)).isFalse();
+        Thread.sleep(200);
+        cellRegistry.setValue(0);
+        cellBuffer.fillBuffer(cellRegistry, 0.75);
+        assertThat(cellBuffer.switchToNext(exhausted)).isTrue();
+        long lifetime = cellBuffer.getSegmentLifetime();
+        assertThat(lifetime).isBetween(20L, 150L);
+
+        // case: sampled with the clamped size rather than the step
+        assertThat(cellBuffer.getConsumptionRate().get()).isCloseTo(10.0 / lifetime, within(1e-9));
+    }
+
+    @Test
+    public void testPrefetchRing() {
+        CellBuffer cellBuffer = new CellBuffer();
+        CellRegistry cellRegistry = new CellRegistry();
+        cellRegistry.setName("test");
+        cellRegistry.setStep(10);
+        for (long value = 0; value <= 20; value += 10) {
+            cellRegistry.setValue(value);
+            cellBuffer.fillBuffer(cellRegistry, 0.75);
+        }
+        cellBuffer.setTargetDepth(3);
+        assertThat(cellBuffer.getPrefetchedCount()).isEqualTo(2);
+        assertThat(cellBuffer.isPrefetched()).isFalse();
+        assertThat(cellBuffer.getLastStep()).isEqualTo(10);
+
+        // case: switched in order
+        assertThat(cellBuffer.switchToNext(cellBuffer.currentBufferValue())).isTrue();
+        assertThat(cellBuffer.currentBufferValue().currentValue()).isEqualTo(10);
+        assertThat(cellBuffer.switchToNext(cellBuffer.currentBufferValue())).isTrue();
+        assertThat(cellBuffer.currentBufferValue().currentValue()).isEqualTo(20);
+        assertThat(cellBuffer.getPrefetchedCount()).isEqualTo(0);
+        assertThat(cellBuffer.switchToNext(cellBuffer.currentBufferValue())).isFalse();
     }
 }
@@ -0,0 +1,340 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import com.lazycece.cell.core.configuration.BufferConfiguration;
+import com.lazycece.cell.core.infra.repository.CellRegistryRepositoryImpl;
+import com.lazycece.cell.core.infra.repository.EmbeddedCellRegistry;
+import com.lazycece.cell.core.model.CellRegistry;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The stress of the nodes allocating from one cell registry row.
+ * <p>
+ * Each node is an independent ${@link CellBufferManager} with its own ${@link CellRegistryRepositoryImpl},
+ * all the values got are recorded in a bitmap to detect the duplicates. It reports the throughput, the allocation
+ * statements, the row lock wait of them and the proportion of the values lost in the unused ranges,
+ * as the node count grows.
+ * </p>
+ * <p>
+ * The row lock wait is {@code Innodb_row_lock_time} on MySQL. On the others it's the allocation time beyond the
+ * uncontended one, which is measured by the sequential allocations of another row before the stress.
+ * </p>
+ * <p>
+ * It runs on the embedded H2 database in MySQL mode by default, which allocates by the H2 dialect
+ * ({@code FINAL TABLE}): H2 returns the identity column rather than {@code LAST_INSERT_ID(expr)} as the generated
+ * key of an update, so the MySQL dialect can't run on it. Give a scratch MySQL database for the MySQL dialect,
+ * see ${@link EmbeddedCellRegistry#configured(String)}.
+ * </p>
+ * <p>
+ * It's excluded from the default test run, run it with the profile {@code stress} and scale it with the system
+ * properties, e.g. <code>mvn test -Pstress -Dtest=MultiNodeAllocationStressTest -Dcell.stress.nodes=1,2,4,8
+ * -Dcell.stress.threads=64 -Dcell.stress.ids=100000 -Dcell.stress.step=1000</code>.
+ * </p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class MultiNodeAllocationStressTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MultiNodeAllocationStressTest.class);
+    private static final String NAME = "stress";
+    private static final String CALIBRATION_NAME = "calibration";
+    private static final int CALIBRATION_COUNT = 50;
+
+    @Test
+    public void testMultiNodeAllocation() throws Exception {
+        int[] nodeCounts = Arrays.stream(System.getProperty("cell.stress.nodes", "1,2,4").split(","))
+                .mapToInt(count -> Integer.parseInt(count.trim())).toArray();
+        int threads = Integer.getInteger("cell.stress.threads", 8);
+        int idsPerThread = Integer.getInteger("cell.stress.ids", 5000);
+        int step = Integer.getInteger("cell.stress.step", 100);
+
+        for (int nodeCount : nodeCounts) {
+            StressResult result = stress(nodeCount, threads, idsPerThread, step);
+            log.info("nodes={}, threads={}, ids/s={}, allocations={}, allocationTime={}ms, lockWait={}ms, maxAllocation={}ms, lost={}",
+                    nodeCount, threads, result.throughput(), result.allocations(), result.allocationTime(),
+                    result.lockWait(), result.maxAllocationTime(), String.format("%.4f", result.lostRatio()));
+
+            // case: unique and in range
+            assertThat(result.duplicates()).isEqualTo(0);
+            assertThat(result.outOfRange()).isEqualTo(0);
+            assertThat(result.lostRatio()).isBetween(0.0, 1.0);
+            // case: every value comes from a counted allocation, the lock wait is a part of the allocation time
+            assertThat((long) result.allocations() * step).isGreaterThanOrEqualTo((long) threads * idsPerThread);
+            assertThat(result.lockWait()).isBetween(0L, result.allocationTime());
+            assertThat(result.maxAllocationTime()).isLessThanOrEqualTo(result.allocationTime());
+        }
+    }
+
+    private StressResult stress(int nodeCount, int threads, int idsPerThread, int step) throws Exception {
+        EmbeddedCellRegistry registry = EmbeddedCellRegistry.configured("cell_registry_stress");
+        for (String name : List.of(NAME, CALIBRATION_NAME)) {
+            registry.execute(String.format("INSERT INTO cell_registry (name, value, min_value, max_value, step, create_time, update_time)"
+                    + " VALUES ('%s', 0, 0, %d, %d, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", name, Integer.MAX_VALUE, step));
+        }
+
+        List<AnnotationConfigApplicationContext> contexts = new ArrayList<>();
+        List<TimedCellRegistryRepository> repositories = new ArrayList<>();
+        List<CellBufferManager> managers = new ArrayList<>();
+        long totalIds = (long) threads * idsPerThread;
+        ConcurrentBitmap bitmap = new ConcurrentBitmap(totalIds + (long) nodeCount * step * 4 + step);
+        AtomicLong duplicates = new AtomicLong();
+        AtomicLong outOfRange = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < nodeCount; i++) {
+                AnnotationConfigApplicationContext context = registry.startNode(TimedCellRegistryRepository.class);
+                contexts.add(context);
+                TimedCellRegistryRepository repository = context.getBean(TimedCellRegistryRepository.class);
+                repository.setNodeId(i);
+                repositories.add(repository);
+            }
+            long uncontended = calibrate(repositories.get(0), step);
+            repositories.forEach(repository -> repository.reset(uncontended));
+            long mysqlLockTime = queryMySqlRowLockTime(registry);
+
+            for (TimedCellRegistryRepository repository : repositories) {
+                BufferConfiguration bufferConfiguration = new BufferConfiguration();
+                bufferConfiguration.setExpansionMinStep(step);
+                bufferConfiguration.setExpansionMaxStep(step);
+                bufferConfiguration.setWaitTimeout(10 * 1000L);
+                CellBufferManager manager = new CellBufferManager();
+                manager.setBufferConfig(bufferConfiguration);
+                manager.setCellRegistryRepository(repository);
+                manager.afterPropertiesSet();
+                manager.initCache();
+                managers.add(manager);
+            }
+
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                CellBufferManager manager = managers.get(t % nodeCount);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < idsPerThread; i++) {
+                        long value = manager.getLongSequence(NAME);
+                        if (value < 0 || value >= bitmap.size()) {
+                            outOfRange.incrementAndGet();
+                        } else if (!bitmap.add(value)) {
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long startTime = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            long elapsed = Math.max(System.nanoTime() - startTime, 1);
+
+            // the allocated range is [first segment start, last segment end], the first segment starts after the initial step
+            managers.forEach(CellBufferManager::destroy);
+            long allocated = queryAllocatedEnd(registry) - step;
+            double lostRatio = allocated <= 0 ? 0 : 1 - (double) totalIds / allocated;
+
+            long allocations = 0;
+            long allocationTime = 0;
+            long maxAllocationTime = 0;
+            long excessTime = 0;
+            for (TimedCellRegistryRepository repository : repositories) {
+                allocations += repository.allocations.sum();
+                allocationTime += repository.allocationTime.sum();
+                maxAllocationTime = Math.max(maxAllocationTime, repository.maxAllocationTime.get());
+                excessTime += repository.excessTime.sum();
+            }
+            long lockWait = mysqlLockTime < 0
+                    ? TimeUnit.NANOSECONDS.toMillis(excessTime)
+                    : Math.min(queryMySqlRowLockTime(registry) - mysqlLockTime, TimeUnit.NANOSECONDS.toMillis(allocationTime));
+            return new StressResult(totalIds * TimeUnit.SECONDS.toNanos(1) / elapsed, allocations,
+                    TimeUnit.NANOSECONDS.toMillis(allocationTime), lockWait, TimeUnit.NANOSECONDS.toMillis(maxAllocationTime),
+                    lostRatio, duplicates.get(), outOfRange.get());
+        } finally {
+            executor.shutdownNow();
+            contexts.forEach(AnnotationConfigApplicationContext::close);
+        }
+    }
+
+    /**
+     * Measure the uncontended allocation time, by the sequential allocations of another row.
+     *
+     * @param repository ${@link TimedCellRegistryRepository}
+     * @param step       step
+     * @return mean allocation time (nanoseconds)
+     */
+    private long calibrate(TimedCellRegistryRepository repository, int step) {
+        repository.reset(Long.MAX_VALUE);
+        for (int i = 0; i < CALIBRATION_COUNT; i++) {
+            repository.updateValueAndGet(CALIBRATION_NAME, step);
+        }
+        return repository.allocationTime.sum() / CALIBRATION_COUNT;
+    }
+
+    /**
+     * Query the total time of the row lock waits of MySQL.
+     *
+     * @param registry ${@link EmbeddedCellRegistry}
+     * @return {@code Innodb_row_lock_time} (milliseconds), or -1 if it's not MySQL
+     */
+    private long queryMySqlRowLockTime(EmbeddedCellRegistry registry) throws Exception {
+        try (Connection connection = registry.dataSource().getConnection()) {
+            if (!"MySQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                return -1;
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SHOW GLOBAL STATUS LIKE 'Innodb_row_lock_time'")) {
+                return resultSet.next() ? resultSet.getLong(2) : -1;
+            }
+        }
+    }
+
+    private long queryAllocatedEnd(EmbeddedCellRegistry registry) throws Exception {
+        try (Connection connection = registry.dataSource().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(String.format(
+                     "SELECT value + COALESCE(segment_step, step) FROM cell_registry WHERE name = '%s'", NAME))) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private record StressResult(long throughput, long allocations, long allocationTime, long lockWait,
+                                long maxAllocationTime, double lostRatio, long duplicates, long outOfRange) {
+    }
+
+    /**
+     * The repository timing the allocation statements of the node, the refill queueing of the buffer is not counted.
+     */
+    public static class TimedCellRegistryRepository extends CellRegistryRepositoryImpl {
+
+        private final LongAdder allocations = new LongAdder();
+        private final LongAdder allocationTime = new LongAdder();
+        private final LongAdder excessTime = new LongAdder();
+        private final LongAccumulator maxAllocationTime = new LongAccumulator(Math::max, 0);
+        private volatile long uncontendedTime;
+
+        void reset(long uncontendedTime) {
+            this.uncontendedTime = uncontendedTime;
+            allocations.reset();
+            allocationTime.reset();
+            excessTime.reset();
+            maxAllocationTime.reset();
+        }
+
+        @Override
+        public CellRegistry updateValueAndGet(String name) {
+            long startTime = System.nanoTime();
+            try {
+                return super.updateValueAndGet(name);
+            } finally {
+                record(System.nanoTime() - startTime);
+            }
+        }
+
+        @Override
+        public CellRegistry updateValueAndGet(String name, Integer step) {
+            long startTime = System.nanoTime();
+            try {
+                return super.updateValueAndGet(name, step);
+            } finally {
+                record(System.nanoTime() - startTime);
+            }
+        }
+
+        @Override
+        public List<CellRegistry> updateValuesAndGet(Map<String, Integer> steps) {
+            long startTime = System.nanoTime();
+            try {
+                return super.updateValuesAndGet(steps);
+            } finally {
+                record(System.nanoTime() - startTime);
+            }
+        }
+
+        private void record(long time) {
+            allocations.increment();
+            allocationTime.add(time);
+            maxAllocationTime.accumulate(time);
+            if (time > uncontendedTime) {
+                excessTime.add(time - uncontendedTime);
+            }
+        }
+    }
+
+    /**
+     * The bitmap of the values, setting a bit is lock free.
+     */
+    private static class ConcurrentBitmap {
+
+        private final AtomicLongArray words;
+        private final long size;
+
+        ConcurrentBitmap(long size) {
+            this.size = size;
+            this.words = new AtomicLongArray((int) ((size + 63) >>> 6));
+        }
+
+        long size() {
+            return size;
+        }
+
+        /**
+         * Set the bit of the value.
+         *
+         * @param value value
+         * @return false if it's set already
+         */
+        boolean add(long value) {
+            int index = (int) (value >>> 6);
+            long mask = 1L << value;
+            while (true) {
+                long word = words.get(index);
+                if ((word & mask) != 0) {
+                    return false;
+                }
+                if (words.compareAndSet(index, word, word | mask)) {
+                    return true;
+                }
+            }
+        }
+    }
+}
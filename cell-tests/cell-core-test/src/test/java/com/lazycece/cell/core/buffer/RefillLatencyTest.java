@@ -0,0 +1,68 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.buffer;
+
+import com.lazycece.cell.core.configuration.BufferConfiguration;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class RefillLatencyTest {
+
+    @Test
+    public void testPercentile() {
+        RefillLatency refillLatency = new RefillLatency();
+        assertThat(refillLatency.percentile(0.99)).isEqualTo(-1);
+
+        for (int i = 1; i <= 100; i++) {
+            refillLatency.record(i);
+        }
+        assertThat(refillLatency.percentile(0.99)).isEqualTo(99);
+        assertThat(refillLatency.percentile(0.5)).isEqualTo(50);
+
+        // case: only the recent samples are kept
+        for (int i = 0; i < 128; i++) {
+            refillLatency.record(5);
+        }
+        assertThat(refillLatency.percentile(0.99)).isEqualTo(5);
+    }
+
+    @Test
+    public void testExpansionThreshold() {
+        BufferConfiguration bufferConfiguration = new BufferConfiguration();
+
+        // case: not measured
+        assertThat(CellBufferManager.expansionThreshold(bufferConfiguration, -1, 1, 1000)).isEqualTo(0.75);
+        assertThat(CellBufferManager.expansionThreshold(bufferConfiguration, 10, 0, 1000)).isEqualTo(0.75);
+
+        // case: 10ms * 10/ms * 2 = 200 values ahead
+        assertThat(CellBufferManager.expansionThreshold(bufferConfiguration, 10, 10, 1000)).isCloseTo(0.8, within(0.001));
+
+        // case: bounded
+        assertThat(CellBufferManager.expansionThreshold(bufferConfiguration, 100, 10, 1000)).isEqualTo(0.5);
+        assertThat(CellBufferManager.expansionThreshold(bufferConfiguration, 1, 0.001, 1000)).isEqualTo(0.9);
+
+        // case: disabled
+        bufferConfiguration.setAdaptiveThreshold(false);
+        assertThat(CellBufferManager.expansionThreshold(bufferConfiguration, 10, 10, 1000)).isEqualTo(0.75);
+    }
+}
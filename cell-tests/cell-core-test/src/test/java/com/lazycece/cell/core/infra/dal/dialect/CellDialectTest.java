@@ -0,0 +1,152 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.infra.dal.dialect;
+
+import com.lazycece.cell.core.infra.dal.mapper.CellRegistryMapper;
+import com.lazycece.cell.core.infra.dal.po.CellRegistryPO;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class CellDialectTest {
+
+    private static final String DDL_PATH = "../../document/script/cell_registry.sql";
+
+    @Test
+    public void testResolve() {
+        assertThat(CellDialects.resolve("MySQL")).isInstanceOf(MySqlDialect.class);
+        assertThat(CellDialects.resolve("MariaDB")).isInstanceOf(MySqlDialect.class);
+        assertThat(CellDialects.resolve("PostgreSQL")).isInstanceOf(PostgreSqlDialect.class);
+        assertThat(CellDialects.resolve("H2")).isInstanceOf(H2Dialect.class);
+        assertThat(CellDialects.resolve("Oracle")).isNull();
+
+        // case: by database id, or the product name of VendorDatabaseIdProvider, or default
+        assertThat(CellDialects.of("postgresql")).isInstanceOf(PostgreSqlDialect.class);
+        assertThat(CellDialects.of("PostgreSQL")).isInstanceOf(PostgreSqlDialect.class);
+        assertThat(CellDialects.of(null)).isInstanceOf(MySqlDialect.class);
+        assertThat(CellDialects.of("oracle")).isInstanceOf(MySqlDialect.class);
+    }
+
+    @Test
+    public void testH2() throws Exception {
+        UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:cell_dialect;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(new String(Files.readAllBytes(Paths.get(DDL_PATH))).replace(";", ""));
+        }
+        Configuration configuration = new Configuration(new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setDatabaseId(new CellDatabaseIdProvider().getDatabaseId(dataSource));
+        configuration.addMapper(CellRegistryMapper.class);
+        SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        assertThat(configuration.getDatabaseId()).isEqualTo("h2");
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            CellRegistryMapper mapper = sqlSession.getMapper(CellRegistryMapper.class);
+            assertThat(mapper.existCellRegistry()).isEqualTo(1);
+
+            // case: the existing names are skipped
+            assertThat(mapper.insertIfAbsent(Arrays.asList(po("a"), po("b")))).isEqualTo(2);
+            assertThat(mapper.insertIfAbsent(Arrays.asList(po("b"), po("c")))).isEqualTo(1);
+            assertThat(mapper.findAllName()).containsExactlyInAnyOrder("a", "b", "c");
+
+            // case: contiguous when the step changes, and not cached in the session
+            CellRegistryPO po = new CellRegistryPO();
+            po.setName("a");
+            po.setStep(50);
+            assertThat(mapper.updateValueAndGetByNameWithGivenStep(po)).isEqualTo(100);
+            assertThat(mapper.updateValueAndGetByNameWithGivenStep(po)).isEqualTo(150);
+            assertThat(mapper.findByName("a").getStep()).isEqualTo(100);
+
+            // case: reset only if not updated after the given value
+            assertThat(mapper.updateValueByResetIfMatch("a", 100L)).isEqualTo(0);
+            assertThat(mapper.updateValueByResetIfMatch("a", 150L)).isEqualTo(1);
+            assertThat(mapper.findByName("a").getValue()).isEqualTo(0);
+        }
+    }
+
+    /**
+     * The MySQL allocation statement on H2 in MySQL mode. H2 doesn't return {@code LAST_INSERT_ID(expr)} as the
+     * generated key of an update as MySQL Connector/J does, so the new value is read by {@code LAST_INSERT_ID()}
+     * of the session. The PostgreSQL one is not supported by H2 ({@code UPDATE ... RETURNING}), see
+     * {@code CellRegistryRepositoryImplTest#testAllocationOnDatabase} for both on the real databases.
+     */
+    @Test
+    public void testMySqlAllocation() throws Exception {
+        UnpooledDataSource dataSource = new UnpooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:cell_dialect_mysql;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1", "sa", "");
+        String sql = new MySqlDialect().allocateSegment().replace("#{step}", "?").replace("#{name}", "?");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(new String(Files.readAllBytes(Paths.get(DDL_PATH))).replace(";", ""));
+            statement.execute("INSERT INTO cell_registry(name, value, min_value, max_value, step) VALUES ('a', 0, 0, 999999, 100)");
+
+            // case: contiguous when the step changes, the configured step is kept
+            assertThat(allocate(connection, sql, "a", 300)).isEqualTo(100);
+            assertThat(allocate(connection, sql, "a", 50)).isEqualTo(400);
+            assertThat(allocate(connection, sql, "a", 50)).isEqualTo(450);
+            try (ResultSet resultSet = statement.executeQuery("SELECT step, segment_step FROM cell_registry WHERE name = 'a'")) {
+                assertThat(resultSet.next()).isTrue();
+                assertThat(resultSet.getInt(1)).isEqualTo(100);
+                assertThat(resultSet.getInt(2)).isEqualTo(50);
+            }
+        }
+    }
+
+    private long allocate(Connection connection, String sql, String name, int step) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, step);
+            statement.setString(2, name);
+            assertThat(statement.executeUpdate()).isEqualTo(1);
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT LAST_INSERT_ID()")) {
+            assertThat(resultSet.next()).isTrue();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private CellRegistryPO po(String name) {
+        CellRegistryPO po = new CellRegistryPO();
+        po.setName(name);
+        po.setLongValue(0L);
+        po.setLongMinValue(0L);
+        po.setLongMaxValue(999999L);
+        po.setStep(100);
+        po.setCreateTime(new Date());
+        po.setUpdateTime(new Date());
+        return po;
+    }
+}
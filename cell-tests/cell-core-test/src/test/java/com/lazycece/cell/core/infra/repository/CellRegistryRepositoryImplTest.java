@@ -0,0 +1,176 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.infra.repository;
+
+import com.lazycece.cell.core.model.CellRegistry;
+import org.junit.Assume;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class CellRegistryRepositoryImplTest {
+
+    @Test
+    public void testShards() throws Exception {
+        EmbeddedCellRegistry registry = new EmbeddedCellRegistry("cell_registry_shards");
+        try (AnnotationConfigApplicationContext node0 = registry.startNode();
+             AnnotationConfigApplicationContext node1 = registry.startNode()) {
+            CellRegistryRepositoryImpl repository0 = node0.getBean(CellRegistryRepositoryImpl.class);
+            CellRegistryRepositoryImpl repository1 = node1.getBean(CellRegistryRepositoryImpl.class);
+            repository0.setNodeId(0);
+            repository1.setNodeId(1);
+
+            List<CellRegistry> cellRegistries = new ArrayList<>();
+            cellRegistries.add(cellRegistry("plain", 0, 9999));
+            for (int i = 0; i < 4; i++) {
+                cellRegistries.add(cellRegistry(CellRegistry.shardName("order", i), i * 10000L, i * 10000L + 9999));
+            }
+            assertThat(repository0.saveIfAbsent(cellRegistries)).isEqualTo(5);
+            assertThat(repository0.saveIfAbsent(cellRegistries)).isEqualTo(0);
+
+            // case: the shards are merged, and ordered from the preferred one of the node
+            assertThat(repository0.queryAllName()).containsExactlyInAnyOrder("plain", "order");
+            assertThat(repository1.queryShardNames("order")).containsExactly("order#1", "order#2", "order#3", "order#0");
+            assertThat(repository1.queryShardNames("plain")).containsExactly("plain");
+
+            // case: the nodes allocate from their own shards, named by the cell name
+            CellRegistry allocated0 = repository0.updateValueAndGet("order", 100);
+            CellRegistry allocated1 = repository1.updateValueAndGet("order", 100);
+            assertThat(allocated0.getName()).isEqualTo("order");
+            assertThat(allocated0.getLongValue()).isEqualTo(100L);
+            assertThat(allocated0.getLongMaxValue()).isEqualTo(9999L);
+            assertThat(allocated1.getLongValue()).isEqualTo(10100L);
+            assertThat(allocated1.getLongMaxValue()).isEqualTo(19999L);
+
+            Map<String, Integer> steps = new HashMap<>();
+            steps.put("order", 100);
+            steps.put("plain", null);
+            List<CellRegistry> batch = repository1.updateValuesAndGet(steps);
+            assertThat(batch).extracting(CellRegistry::getName).containsExactlyInAnyOrder("order", "plain");
+            assertThat(batch).filteredOn(cellRegistry -> cellRegistry.getName().equals("order"))
+                    .extracting(CellRegistry::getLongValue).containsExactly(10200L);
+
+            // case: fall back to the next shard if the preferred one fails
+            registry.execute("DELETE FROM cell_registry WHERE name = 'order#1'");
+            CellRegistry fallback = repository1.updateValueAndGet("order", 100);
+            assertThat(fallback.getName()).isEqualTo("order");
+            assertThat(fallback.getLongValue()).isEqualTo(20100L);
+        }
+    }
+
+    @Test
+    public void testSaveShards() throws Exception {
+        EmbeddedCellRegistry registry = new EmbeddedCellRegistry("cell_registry_save_shards");
+        try (AnnotationConfigApplicationContext node = registry.startNode()) {
+            CellRegistryRepositoryImpl repository = node.getBean(CellRegistryRepositoryImpl.class);
+            repository.save(cellRegistry("order", 0, 99999));
+            // the last segment [100, 400) is larger than the step
+            assertThat(repository.updateValueAndGet("order", 300).getLongValue()).isEqualTo(100L);
+
+            // case: the shards start after the last segment
+            List<Long> startValues = new ArrayList<>();
+            assertThat(repository.saveShardsIfAbsent("order", 0, startValue -> {
+                startValues.add(startValue);
+                return shards("order", startValue, 99999);
+            })).isEqualTo(2);
+            assertThat(startValues).containsExactly(400L);
+            assertThat(repository.queryByName(CellRegistry.shardName("order", 0)).getLongMinValue()).isEqualTo(400L);
+
+            // case: sharded already
+            assertThat(repository.saveShardsIfAbsent("order", 0, startValue -> shards("order", startValue, 99999))).isEqualTo(0);
+
+            // case: no row of the cell, start from the min value
+            assertThat(repository.saveShardsIfAbsent("new", 10, startValue -> {
+                startValues.add(startValue);
+                return shards("new", startValue, 99999);
+            })).isEqualTo(2);
+            assertThat(startValues).containsExactly(400L, 10L);
+        }
+    }
+
+    @Test
+    public void testAllocation() throws Exception {
+        assertAllocation(new EmbeddedCellRegistry("cell_registry_allocation"));
+    }
+
+    /**
+     * The allocation on a real database, it's skipped unless the url is given, such as
+     * {@code -Dcell.test.jdbc.url=jdbc:mysql://localhost:3306/cell -Dcell.test.jdbc.username=root -Dcell.test.jdbc.password=}.
+     * The MySQL driver is on the test classpath, and the PostgreSQL one with the profile {@code postgresql}.
+     * <p>The cell_registry table is dropped and created again, use a scratch database.</p>
+     */
+    @Test
+    public void testAllocationOnDatabase() throws Exception {
+        Assume.assumeNotNull(System.getProperty("cell.test.jdbc.url"));
+        assertAllocation(EmbeddedCellRegistry.configured("cell_registry_allocation"));
+    }
+
+    private void assertAllocation(EmbeddedCellRegistry registry) throws Exception {
+        try (AnnotationConfigApplicationContext node = registry.startNode()) {
+            CellRegistryRepositoryImpl repository = node.getBean(CellRegistryRepositoryImpl.class);
+            repository.save(cellRegistry("test", 0, 999));
+
+            // case: contiguous when the step changes, the configured step is kept
+            assertThat(repository.updateValueAndGet("test", 300).getLongValue()).isEqualTo(100L);
+            assertThat(repository.updateValueAndGet("test", 50).getLongValue()).isEqualTo(400L);
+            CellRegistry allocated = repository.updateValueAndGet("test");
+            assertThat(allocated.getLongValue()).isEqualTo(450L);
+            assertThat(allocated.getStep()).isEqualTo(100);
+            assertThat(repository.queryByName("test").getStep()).isEqualTo(100);
+
+            Map<String, Integer> steps = new HashMap<>();
+            steps.put("test", 200);
+            List<CellRegistry> batch = repository.updateValuesAndGet(steps);
+            assertThat(batch).extracting(CellRegistry::getLongValue).containsExactly(550L);
+            assertThat(batch).extracting(CellRegistry::getStep).containsExactly(200);
+
+            // case: wrap around, reset to the min value, and contiguous with it
+            assertThat(repository.updateValueAndGet("test", 300).getLongValue()).isEqualTo(750L);
+            assertThat(repository.updateValueAndGet("test", 100).getLongValue()).isEqualTo(0L);
+            assertThat(repository.updateValueAndGet("test", 100).getLongValue()).isEqualTo(100L);
+        }
+    }
+
+    private List<CellRegistry> shards(String name, long startValue, long maxValue) {
+        long span = (maxValue - startValue + 1) / 2;
+        return List.of(cellRegistry(CellRegistry.shardName(name, 0), startValue, startValue + span - 1),
+                cellRegistry(CellRegistry.shardName(name, 1), startValue + span, maxValue));
+    }
+
+    private CellRegistry cellRegistry(String name, long minValue, long maxValue) {
+        CellRegistry cellRegistry = new CellRegistry();
+        cellRegistry.setName(name);
+        cellRegistry.setValue(minValue);
+        cellRegistry.setMinValue(minValue);
+        cellRegistry.setMaxValue(maxValue);
+        cellRegistry.setStep(100);
+        cellRegistry.setCreateTime(new Date());
+        cellRegistry.setUpdateTime(new Date());
+        return cellRegistry;
+    }
+}
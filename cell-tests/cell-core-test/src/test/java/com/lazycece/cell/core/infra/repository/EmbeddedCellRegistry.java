@@ -0,0 +1,135 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.infra.repository;
+
+import com.lazycece.cell.core.infra.dal.dialect.CellDatabaseIdProvider;
+import com.lazycece.cell.core.infra.dal.mapper.CellRegistryMapper;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * The cell registry on the embedded H2 database in MySQL mode, loaded with the shipped script.
+ * It can be on a real database too, such as MySQL or PostgreSQL, loaded with the script of it.
+ * <p>Each node is an independent spring context with its own ${@link CellRegistryRepositoryImpl}.</p>
+ *
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class EmbeddedCellRegistry {
+
+    private static final String DDL_PATH = "../../document/script/cell_registry.sql";
+    private static final String POSTGRESQL_DDL_PATH = "../../document/script/cell_registry_postgresql.sql";
+
+    private final String url;
+    private final String username;
+    private final String password;
+
+    public EmbeddedCellRegistry(String database) throws Exception {
+        this("jdbc:h2:mem:" + database + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1",
+                "sa", "", DDL_PATH);
+    }
+
+    public EmbeddedCellRegistry(String url, String username, String password, String ddlPath) throws Exception {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        execute("DROP TABLE IF EXISTS cell_registry");
+        for (String sql : new String(Files.readAllBytes(Paths.get(ddlPath))).split(";")) {
+            if (!sql.isBlank()) {
+                execute(sql);
+            }
+        }
+    }
+
+    /**
+     * Create the registry on the database given by {@code -Dcell.test.jdbc.url} (with {@code cell.test.jdbc.username}
+     * and {@code cell.test.jdbc.password}), or on the embedded one if not given.
+     * <p>The cell_registry table is dropped and created again, use a scratch database.</p>
+     *
+     * @param database the embedded database name
+     * @return see ${@link EmbeddedCellRegistry}
+     */
+    public static EmbeddedCellRegistry configured(String database) throws Exception {
+        String url = System.getProperty("cell.test.jdbc.url");
+        if (url == null) {
+            return new EmbeddedCellRegistry(database);
+        }
+        return new EmbeddedCellRegistry(url, System.getProperty("cell.test.jdbc.username"),
+                System.getProperty("cell.test.jdbc.password"),
+                url.startsWith("jdbc:postgresql:") ? POSTGRESQL_DDL_PATH : DDL_PATH);
+    }
+
+    public void execute(String sql) throws Exception {
+        try (Connection connection = dataSource().getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    public DataSource dataSource() {
+        return new DriverManagerDataSource(url, username, password);
+    }
+
+    /**
+     * Start a node, close the context to stop it.
+     *
+     * @return spring context of the node
+     */
+    public AnnotationConfigApplicationContext startNode() {
+        return startNode(CellRegistryRepositoryImpl.class);
+    }
+
+    /**
+     * Start a node with the given repository, close the context to stop it.
+     *
+     * @param repositoryClass ${@link CellRegistryRepositoryImpl} or the subclass of it
+     * @return spring context of the node
+     */
+    public AnnotationConfigApplicationContext startNode(Class<? extends CellRegistryRepositoryImpl> repositoryClass) {
+        DataSource dataSource = dataSource();
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.registerBean(SqlSessionFactory.class, () -> {
+            SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+            factoryBean.setDataSource(dataSource);
+            factoryBean.setDatabaseIdProvider(new CellDatabaseIdProvider());
+            try {
+                SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+                sqlSessionFactory.getConfiguration().addMapper(CellRegistryMapper.class);
+                return sqlSessionFactory;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        context.registerBean(CellRegistryMapper.class,
+                () -> new SqlSessionTemplate(context.getBean(SqlSessionFactory.class)).getMapper(CellRegistryMapper.class));
+        context.registerBean(TransactionTemplate.class,
+                () -> new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        context.registerBean(repositoryClass);
+        context.refresh();
+        return context;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.core.metrics;
+
+import com.lazycece.cell.core.buffer.BufferWaitStrategy;
+import com.lazycece.cell.core.buffer.CellBufferManager;
+import com.lazycece.cell.core.configuration.BufferConfiguration;
+import com.lazycece.cell.core.exception.CellException;
+import com.lazycece.cell.core.infra.repository.InMemoryCellRegistryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class CellBufferMetricsTest {
+
+    @Test
+    public void testMetrics() throws Exception {
+        InMemoryCellRegistryRepository repository = new InMemoryCellRegistryRepository()
+                .register("test", 0, Integer.MAX_VALUE, 100);
+        BufferConfiguration bufferConfiguration = new BufferConfiguration();
+        bufferConfiguration.setExpansionMinStep(100);
+        bufferConfiguration.setExpansionMaxStep(100);
+        bufferConfiguration.setWaitStrategy(BufferWaitStrategy.BLOCKING);
+        bufferConfiguration.setWaitTimeout(500);
+        // never open the refill circuit breaker, the callers wait until timeout
+        bufferConfiguration.setRefillFailureThreshold(Integer.MAX_VALUE);
+        CellBufferManager manager = new CellBufferManager();
+        manager.setBufferConfig(bufferConfiguration);
+        manager.setCellRegistryRepository(repository);
+        manager.afterPropertiesSet();
+        manager.initCache();
+        MeterRegistry registry = new SimpleMeterRegistry();
+        new CellBufferMetrics(manager).bindTo(registry);
+
+        // case: the gauges of the resident buffer
+        assertThat(registry.get("cell.buffer.step").tag("cell", "test").gauge().value()).isEqualTo(100);
+        assertThat(registry.get("cell.buffer.remaining").tags("cell", "test", "segment", "current").gauge().value()).isEqualTo(100);
+        assertThat(registry.get("cell.buffer.refresher.pending").gauge().value()).isEqualTo(0);
+        assertThat(registry.get("cell.buffer.executor.active").gauge()).isNotNull();
+
+        // case: the values handed out and the refill
+        assertThat(manager.getSequences("test", 150)).hasSize(150);
+        assertThat(registry.get("cell.buffer.issued").tag("cell", "test").functionCounter().count()).isEqualTo(150);
+        assertThat(registry.get("cell.buffer.remaining").tags("cell", "test", "segment", "current").gauge().value()).isEqualTo(50);
+        long endTime = System.currentTimeMillis() + 2000;
+        while (registry.find("cell.buffer.refill").timer() == null && System.currentTimeMillis() < endTime) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertThat(registry.get("cell.buffer.refill").tag("cell", "test").timer().count()).isGreaterThan(0);
+
+        // case: the refill fails and the caller timeout
+        repository.setFailing(true);
+        assertThatThrownBy(() -> manager.getSequences("test", 300)).isInstanceOf(CellException.class);
+        assertThat(registry.get("cell.buffer.refill.failures").tag("cell", "test").counter().count()).isGreaterThan(0);
+        assertThat(registry.get("cell.buffer.wait").tag("cell", "test").timer().count()).isGreaterThan(0);
+        assertThat(registry.get("cell.buffer.wait.timeouts").tag("cell", "test").counter().count()).isEqualTo(1);
+        manager.destroy();
+    }
+}
@@ -44,4 +44,18 @@ public class CellRegistryTest {
         assertThat(cellRegistry.needReset()).isFalse();
 
     }
+
+    @Test
+    public void testShardName() {
+        assertThat(CellRegistry.shardName("order", 3)).isEqualTo("order#3");
+        assertThat(CellRegistry.shardIndex("order#3")).isEqualTo(3);
+        assertThat(CellRegistry.cellName("order#3")).isEqualTo("order");
+
+        // case: not a shard
+        assertThat(CellRegistry.shardIndex("order")).isEqualTo(-1);
+        assertThat(CellRegistry.shardIndex("order#")).isEqualTo(-1);
+        assertThat(CellRegistry.shardIndex("order#x")).isEqualTo(-1);
+        assertThat(CellRegistry.shardIndex("#3")).isEqualTo(-1);
+        assertThat(CellRegistry.cellName("order#x")).isEqualTo("order#x");
+    }
 }
@@ -20,9 +20,11 @@ import com.lazycece.cell.specification.exception.CellSpecException;
 import com.lazycece.cell.specification.model.Cell;
 import com.lazycece.cell.specification.model.CellBuilder;
 import com.lazycece.cell.specification.model.CellPattern;
+import com.lazycece.cell.specification.model.CellSpec;
 import org.junit.Test;
 
 import java.util.Date;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -103,4 +105,50 @@ public class CellSpecTest {
 //        20231105 101 2 12 01 40 0001217589
 
     }
+
+    @Test
+    public void testCellIds() {
+        Cell cell = CellBuilder.builder()
+                .pattern(CellPattern.MINUTE)
+                .code("101")
+                .date(new Date())
+                .dataCenter(2)
+                .machine(12)
+                .build();
+        int[] sequences = {0, 7, 1217589, Integer.MAX_VALUE};
+        List<String> cellIds = CellSpec.getInstance().cellIds(cell, sequences);
+        assertThat(cellIds).hasSize(sequences.length);
+        for (int i = 0; i < sequences.length; i++) {
+            cell.setSequence(sequences[i]);
+            assertThat(cellIds.get(i)).isEqualTo(cell.toString());
+        }
+    }
+
+    @Test
+    public void testLongSequence() {
+        String prefix = CellSpec.getInstance().cellIdPrefix(CellBuilder.builder()
+                .pattern(CellPattern.DAY)
+                .code("101")
+                .date(new Date())
+                .dataCenter(2)
+                .machine(12)
+                .build());
+        assertThat(CellSpec.getInstance().cellId(prefix, 1217589L))
+                .isEqualTo(prefix + "0001217589");
+        assertThat(CellSpec.getInstance().cellId(prefix, 1217589L, 12))
+                .isEqualTo(prefix + "000001217589");
+        assertThat(CellSpec.getInstance().cellId(prefix, Long.MAX_VALUE, CellSpec.CELL_MAX_SEQUENCE_LEN))
+                .isEqualTo(prefix + Long.MAX_VALUE);
+        assertThatThrownBy(() -> CellSpec.getInstance().cellId(prefix, 100000000000L))
+                .isInstanceOf(CellSpecException.class);
+        assertThatThrownBy(() -> CellSpec.getInstance().cellId(prefix, 1217589L, 9))
+                .isInstanceOf(CellSpecException.class);
+        assertThatThrownBy(() -> CellSpec.getInstance().cellId(prefix, 1217589L, CellSpec.CELL_MAX_SEQUENCE_LEN + 1))
+                .isInstanceOf(CellSpecException.class);
+
+        Cell cell = new Cell();
+        cell.setSequence(Integer.MAX_VALUE + 1L);
+        assertThat(cell.getLongSequence()).isEqualTo(Integer.MAX_VALUE + 1L);
+        assertThatThrownBy(cell::getSequence).isInstanceOf(CellSpecException.class);
+    }
 }
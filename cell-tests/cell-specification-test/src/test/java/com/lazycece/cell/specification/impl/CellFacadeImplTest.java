@@ -0,0 +1,91 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.specification.impl;
+
+import com.lazycece.cell.specification.configuration.CellSpecConfiguration;
+import com.lazycece.cell.specification.model.CellPattern;
+import com.lazycece.cell.specification.model.CellType;
+import com.lazycece.cell.specification.model.SequenceSource;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class CellFacadeImplTest {
+
+    @Test
+    public void testTimeSequence() throws Exception {
+        CellSpecConfiguration configuration = new CellSpecConfiguration();
+        configuration.setPattern(CellPattern.MINUTE);
+        configuration.setDataCenter(2);
+        configuration.setMachine(12);
+        CellFacadeImpl cellFacade = new CellFacadeImpl();
+        cellFacade.setConfiguration(configuration);
+
+        // case: no cell buffer manager and no db
+        String cellId = cellFacade.generateId(TimeCellType.ORDER);
+        String prefix = new CellPrefixCache(configuration).getPrefix(TimeCellType.ORDER);
+        assertThat(cellId).hasSize(prefix.length() + 10);
+        assertThat(cellId.substring(0, 8)).isEqualTo(prefix.substring(0, 8));
+        assertThat(cellId).contains("101212");
+
+        Set<String> cellIds = new HashSet<>(cellFacade.generateIds(TimeCellType.ORDER, 1000));
+        cellIds.add(cellFacade.generateIdAsync(TimeCellType.ORDER).get());
+        cellIds.add(cellId);
+        assertThat(cellIds).hasSize(1002);
+    }
+
+    @Test
+    public void testAllTimeSequenceStartup() {
+        CellSpecConfiguration configuration = new CellSpecConfiguration();
+        CellFacadeImpl cellFacade = new CellFacadeImpl();
+        cellFacade.setConfiguration(configuration);
+        cellFacade.setCellTypeClass(TimeCellType.class);
+
+        // case: no cell registry repository, neither the table check nor the buffer initialization runs
+        cellFacade.onApplicationEvent(null);
+        String prefix = new CellPrefixCache(configuration).getPrefix(TimeCellType.ORDER);
+        assertThat(cellFacade.generateId(TimeCellType.ORDER)).hasSize(prefix.length() + 10);
+    }
+
+    enum TimeCellType implements CellType {
+
+        ORDER;
+
+        @Override
+        public String getName() {
+            return "order";
+        }
+
+        @Override
+        public String getCode() {
+            return "101";
+        }
+
+        @Override
+        public SequenceSource getSequenceSource() {
+            return SequenceSource.TIME;
+        }
+    }
+}
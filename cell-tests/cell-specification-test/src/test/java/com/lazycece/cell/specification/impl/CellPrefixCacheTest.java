@@ -0,0 +1,74 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.specification.impl;
+
+import com.lazycece.cell.specification.configuration.CellSpecConfiguration;
+import com.lazycece.cell.specification.model.CellBuilder;
+import com.lazycece.cell.specification.model.CellPattern;
+import com.lazycece.cell.specification.model.CellSpec;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class CellPrefixCacheTest {
+
+    @Test
+    public void testGetPrefix() {
+        CellSpecConfiguration configuration = new CellSpecConfiguration();
+        configuration.setPattern(CellPattern.MINUTE);
+        configuration.setDataCenter(2);
+        configuration.setMachine(12);
+        CellPrefixCache prefixCache = new CellPrefixCache(configuration);
+
+        long now = System.currentTimeMillis();
+        long endTime = CellSpec.getInstance().cellIdPrefixEndTime(CellPattern.MINUTE, now);
+
+        // case: current time bucket
+        assertThat(prefixCache.getPrefix("101", now)).isEqualTo(prefix(configuration, now));
+        assertThat(prefixCache.getPrefix("101", endTime - 1)).isEqualTo(prefix(configuration, now));
+
+        // case: next time bucket, prepared ahead
+        assertThat(prefixCache.getPrefix("101", endTime)).isEqualTo(prefix(configuration, endTime));
+        assertThat(prefixCache.getPrefix("101", endTime)).isNotEqualTo(prefix(configuration, now));
+
+        // case: clock moves back, computed without rolling the cache back
+        String cached = prefixCache.getPrefix("101", endTime);
+        for (int i = 0; i < 3; i++) {
+            assertThat(prefixCache.getPrefix("101", now)).isEqualTo(prefix(configuration, now));
+            assertThat(prefixCache.getPrefix("101", endTime)).isSameAs(cached);
+        }
+
+        // case: other code
+        assertThat(prefixCache.getPrefix("102", now)).startsWith(prefix(configuration, now).substring(0, 8) + "102");
+    }
+
+    private String prefix(CellSpecConfiguration configuration, long time) {
+        return CellSpec.getInstance().cellIdPrefix(CellBuilder.builder()
+                .pattern(configuration.getPattern())
+                .code("101")
+                .date(new Date(time))
+                .dataCenter(configuration.getDataCenter())
+                .machine(configuration.getMachine())
+                .build());
+    }
+}
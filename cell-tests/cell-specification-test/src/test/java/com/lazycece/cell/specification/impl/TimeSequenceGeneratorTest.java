@@ -0,0 +1,200 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.specification.impl;
+
+import com.lazycece.cell.core.exception.CellTimeoutException;
+import com.lazycece.cell.specification.configuration.CellSpecConfiguration;
+import com.lazycece.cell.specification.model.CellPattern;
+import com.lazycece.cell.specification.model.CellSpec;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class TimeSequenceGeneratorTest {
+
+    @Test
+    public void testNext() throws Exception {
+        CellSpecConfiguration configuration = new CellSpecConfiguration();
+        TimeSequenceGenerator generator = new TimeSequenceGenerator(configuration);
+
+        int threads = 4;
+        int perThread = 20000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                long[] values = new long[perThread];
+                for (int j = 0; j < perThread; j++) {
+                    values[j] = generator.next("test");
+                }
+                return values;
+            }));
+        }
+        Set<String> sequences = new HashSet<>();
+        for (Future<long[]> future : futures) {
+            long[] values = future.get();
+            for (int j = 0; j < values.length; j++) {
+                if (j > 0) {
+                    assertThat(values[j]).isGreaterThan(values[j - 1]);
+                }
+                long sequence = generator.sequenceOf(values[j]);
+                assertThat(sequence).isBetween(0L, 9999999999L);
+                // unique in the time bucket
+                long endTime = CellSpec.getInstance().cellIdPrefixEndTime(CellPattern.DAY, generator.timeOf(values[j]));
+                assertThat(sequences.add(endTime + ":" + sequence)).isTrue();
+            }
+        }
+        executor.shutdown();
+        assertThat(sequences).hasSize(threads * perThread);
+    }
+
+    @Test
+    public void testBucket() {
+        CellSpecConfiguration configuration = new CellSpecConfiguration();
+        configuration.setPattern(CellPattern.MINUTE);
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        TimeSequenceGenerator generator = new TimeSequenceGenerator(configuration, clock::get, 10, 50);
+
+        // case: the sequence restarts in the next bucket
+        long endTime = CellSpec.getInstance().cellIdPrefixEndTime(CellPattern.MINUTE, clock.get());
+        clock.set(endTime - 1);
+        long last = generator.sequenceOf(generator.next("test"));
+        clock.set(endTime);
+        long value = generator.next("test");
+        assertThat(generator.timeOf(value)).isEqualTo(endTime);
+        assertThat(generator.sequenceOf(value)).isLessThan(last).isEqualTo(0);
+        assertThat(generator.sequenceOf(generator.next("test"))).isEqualTo(1);
+    }
+
+    @Test
+    public void testClockRollback() {
+        CellSpecConfiguration configuration = new CellSpecConfiguration();
+        configuration.setPattern(CellPattern.MINUTE);
+        // the clock goes 1ms on every read
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        TimeSequenceGenerator generator = new TimeSequenceGenerator(configuration, clock::incrementAndGet, 10, 50);
+        long value = generator.next("test");
+
+        // case: moves back a little, issued ahead of the clock
+        clock.addAndGet(-5);
+        long next = generator.next("test");
+        assertThat(next).isGreaterThan(value);
+        assertThat(generator.timeOf(next)).isEqualTo(generator.timeOf(value));
+
+        // case: moves back too far, wait for the clock until timeout
+        clock.addAndGet(-1000);
+        assertThatThrownBy(() -> generator.next("test")).isInstanceOf(CellTimeoutException.class);
+
+        // case: the clock catches up
+        clock.addAndGet(1000);
+        assertThat(generator.next("test")).isGreaterThan(next);
+    }
+
+    @Test
+    public void testClockRollbackAcrossBucket() {
+        CellSpecConfiguration configuration = new CellSpecConfiguration();
+        configuration.setPattern(CellPattern.MINUTE);
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        TimeSequenceGenerator generator = new TimeSequenceGenerator(configuration, clock::get, 10, 50);
+        CellPrefixCache prefixCache = new CellPrefixCache(configuration);
+
+        long endTime = CellSpec.getInstance().cellIdPrefixEndTime(CellPattern.MINUTE, clock.get());
+        clock.set(endTime - 1);
+        Set<String> cellIds = new HashSet<>();
+        cellIds.add(cellId(generator, prefixCache, configuration));
+        clock.set(endTime);
+        long value = generator.next("test");
+        String prefix = prefixCache.getPrefix("101", generator.timeOf(value));
+        cellIds.add(CellSpec.getInstance().cellId(prefix, generator.sequenceOf(value), configuration.getSequenceLength()));
+
+        // case: the clock moves back into the previous bucket, the values and the prefix stay in the next one
+        clock.set(endTime - 3);
+        for (int i = 0; i < 100; i++) {
+            long next = generator.next("test");
+            assertThat(generator.timeOf(next)).isGreaterThanOrEqualTo(endTime);
+            assertThat(prefixCache.getPrefix("101", generator.timeOf(next))).isEqualTo(prefix);
+            assertThat(generator.sequenceOf(next)).isEqualTo(i + 1);
+            assertThat(cellIds.add(CellSpec.getInstance().cellId(prefix, generator.sequenceOf(next),
+                    configuration.getSequenceLength()))).isTrue();
+        }
+
+        // case: the clock catches up, still unique
+        clock.set(endTime + 1);
+        for (int i = 0; i < 100; i++) {
+            assertThat(cellIds.add(cellId(generator, prefixCache, configuration))).isTrue();
+        }
+        assertThat(cellIds).hasSize(202);
+    }
+
+    @Test
+    public void testZoneTransition() {
+        TimeZone defaultZone = TimeZone.getDefault();
+        try {
+            ZoneId zone = ZoneId.of("America/New_York");
+            TimeZone.setDefault(TimeZone.getTimeZone(zone));
+            for (CellPattern pattern : CellPattern.values()) {
+                CellSpecConfiguration configuration = new CellSpecConfiguration();
+                configuration.setPattern(pattern);
+                AtomicReference<Clock> clock = new AtomicReference<>();
+                TimeSequenceGenerator generator = new TimeSequenceGenerator(configuration, () -> clock.get().millis(), 10, 50);
+                CellPrefixCache prefixCache = new CellPrefixCache(configuration);
+                Set<String> cellIds = new HashSet<>();
+                // the daylight saving time starts (23 hours day) and ends (25 hours day, 01:00 ~ 02:00 repeated)
+                for (String day : new String[]{"2026-03-08", "2026-11-01"}) {
+                    Instant start = LocalDate.parse(day).atStartOfDay(zone).minusHours(1).toInstant();
+                    Instant end = LocalDate.parse(day).plusDays(1).atStartOfDay(zone).plusHours(1).toInstant();
+                    for (Instant time = start; time.isBefore(end); time = time.plus(1, ChronoUnit.MINUTES)) {
+                        clock.set(Clock.fixed(time, zone));
+                        for (int i = 0; i < 2; i++) {
+                            String cellId = cellId(generator, prefixCache, configuration);
+                            assertThat(cellIds.add(cellId)).as("%s %s at %s", pattern, cellId, time).isTrue();
+                        }
+                    }
+                }
+            }
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    private String cellId(TimeSequenceGenerator generator, CellPrefixCache prefixCache, CellSpecConfiguration configuration) {
+        long value = generator.next("test");
+        String prefix = prefixCache.getPrefix("101", generator.timeOf(value));
+        return CellSpec.getInstance().cellId(prefix, generator.sequenceOf(value), configuration.getSequenceLength());
+    }
+}
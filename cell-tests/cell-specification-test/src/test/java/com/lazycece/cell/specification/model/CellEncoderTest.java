@@ -0,0 +1,128 @@
+/*
+ *    Copyright 2026 lazycece<lazycece@gmail.com>
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package com.lazycece.cell.specification.model;
+
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author lazycece
+ * @date 2026/10/18
+ */
+public class CellEncoderTest {
+
+    private static final String[] ZONES = {"UTC", "Asia/Shanghai", "America/New_York", "Australia/Lord_Howe", "Asia/Kathmandu"};
+    private static final String[] CODES = {"101", "A", "0a", "\u8ba2\u5355", "\u00e9t"};
+
+    @Test
+    public void testSameAsLegacy() {
+        Random random = new Random(20231004);
+        for (String zone : ZONES) {
+            TimeZone timeZone = TimeZone.getTimeZone(zone);
+            CellEncoder encoder = new CellEncoder(timeZone);
+            for (int i = 0; i < 20000; i++) {
+                // about year 1000 ~ 10999
+                long timestamp = -30610224000000L + (long) (random.nextDouble() * 315569520000000L);
+                CellPattern pattern = CellPattern.values()[random.nextInt(CellPattern.values().length)];
+                String code = CODES[random.nextInt(CODES.length)];
+                int dataCenter = random.nextInt(10);
+                int machine = random.nextInt(109) - 9;
+                int sequence = random.nextInt(4) == 0 ? random.nextInt(1000) - 100 : random.nextInt(Integer.MAX_VALUE);
+                String expected = legacyCellId(timeZone, pattern, timestamp, code, dataCenter, machine, sequence);
+                assertThat(encoder.encode(pattern, timestamp, code, dataCenter, machine, sequence)).isEqualTo(expected);
+
+                String prefix = encoder.encodePrefix(pattern, timestamp, code, dataCenter, machine);
+                assertThat(encoder.encode(prefix, sequence, CellSpec.CELL_SEQUENCE_LEN)).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void testPrefixEndTime() {
+        Random random = new Random(20231105);
+        for (String zone : ZONES) {
+            CellEncoder encoder = new CellEncoder(TimeZone.getTimeZone(zone));
+            for (int i = 0; i < 20000; i++) {
+                // about year 2000 ~ 2050
+                long timestamp = 946684800000L + (long) (random.nextDouble() * 1577836800000L);
+                CellPattern pattern = CellPattern.values()[random.nextInt(CellPattern.values().length)];
+                long endTime = encoder.prefixEndTime(pattern, timestamp);
+                assertThat(endTime).isGreaterThan(timestamp);
+                assertThat(encoder.encodePrefix(pattern, endTime - 1, "101", 1, 1))
+                        .isEqualTo(encoder.encodePrefix(pattern, timestamp, "101", 1, 1));
+                assertThat(encoder.prefixElapsedTime(pattern, endTime - 1) - encoder.prefixElapsedTime(pattern, timestamp))
+                        .isEqualTo(endTime - 1 - timestamp);
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultTimeZone() {
+        TimeZone defaultZone = TimeZone.getDefault();
+        try {
+            long timestamp = 1696435200000L;
+            for (String zone : ZONES) {
+                TimeZone timeZone = TimeZone.getTimeZone(zone);
+                TimeZone.setDefault(timeZone);
+                assertThat(CellEncoder.getInstance().encodePrefix(CellPattern.MINUTE, timestamp, "101", 1, 1))
+                        .isEqualTo(new CellEncoder(timeZone).encodePrefix(CellPattern.MINUTE, timestamp, "101", 1, 1));
+            }
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+
+    @Test
+    public void testStringLength() {
+        int[] values = {0, 9, 10, 99, 100, -1, -9, -10, 999999999, 1000000000, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int value : values) {
+            assertThat(CellEncoder.stringLength(value)).isEqualTo(String.valueOf(value).length());
+        }
+    }
+
+    private String legacyCellId(TimeZone timeZone, CellPattern pattern, long timestamp, String code,
+                                int dataCenter, int machine, int sequence) {
+        Date date = new Date(timestamp);
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd");
+        dateFormat.setTimeZone(timeZone);
+        SimpleDateFormat timeFormat = new SimpleDateFormat("HHmmss");
+        timeFormat.setTimeZone(timeZone);
+        String time = timeFormat.format(date);
+        time = switch (pattern) {
+            case HOUR -> time.substring(0, 2);
+            case MINUTE -> time.substring(0, 4);
+            default -> "";
+        };
+        return String.format("%s%s%s%s%s%s", dateFormat.format(date), code, fill(dataCenter, 1), fill(machine, 2),
+                time, fill(sequence, 10));
+    }
+
+    private String fill(int element, int len) {
+        String value = String.valueOf(element);
+        int gap = len - value.length();
+        while (gap-- > 0) {
+            value = String.format("%s%s", 0, value);
+        }
+        return value;
+    }
+}
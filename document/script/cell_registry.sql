@@ -6,6 +6,9 @@ CREATE TABLE IF NOT EXISTS `cell_registry`(
     `min_value` INT NOT NULL COMMENT 'min value',
     `max_value` INT NOT NULL COMMENT 'max value',
     `step` INT NOT NULL COMMENT 'step',
+    `segment_step` INT NULL COMMENT 'step of the last allocated segment',
+    `learned_step` INT NULL COMMENT 'learned step',
+    `consumption_rate` DOUBLE NULL COMMENT 'learned consumption rate (values per second)',
     `create_time` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT 'create time',
     `update_time` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT 'update time',
     PRIMARY KEY (`id`),
@@ -0,0 +1,15 @@
+-- Migrate the cell_registry value columns from INT to BIGINT, for the 64-bit sequence.
+-- The table keeps working with the INT columns, as long as max_value <= 2147483647.
+-- MySQL
+ALTER TABLE `cell_registry`
+    MODIFY COLUMN `value` BIGINT NOT NULL COMMENT 'current value',
+    MODIFY COLUMN `min_value` BIGINT NOT NULL COMMENT 'min value',
+    MODIFY COLUMN `max_value` BIGINT NOT NULL COMMENT 'max value'
+;
+
+-- PostgreSQL
+-- ALTER TABLE cell_registry
+--     ALTER COLUMN value TYPE BIGINT,
+--     ALTER COLUMN min_value TYPE BIGINT,
+--     ALTER COLUMN max_value TYPE BIGINT
+-- ;
@@ -0,0 +1,6 @@
+-- Add the learned step columns to cell_registry, for cell.buffer.persist-learned-step.
+-- The columns are only read and written if the persistence is enabled.
+ALTER TABLE `cell_registry`
+    ADD COLUMN `learned_step` INT NULL COMMENT 'learned step' AFTER `step`,
+    ADD COLUMN `consumption_rate` DOUBLE NULL COMMENT 'learned consumption rate (values per second)' AFTER `learned_step`
+;
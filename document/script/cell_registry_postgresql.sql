@@ -0,0 +1,15 @@
+CREATE TABLE IF NOT EXISTS cell_registry(
+    id SERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    value INTEGER NOT NULL,
+    min_value INTEGER NOT NULL,
+    max_value INTEGER NOT NULL,
+    step INT NOT NULL,
+    segment_step INT NULL,
+    learned_step INT NULL,
+    consumption_rate DOUBLE PRECISION NULL,
+    create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    update_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_name UNIQUE (name)
+);
+COMMENT ON TABLE cell_registry IS 'cell registry';
@@ -0,0 +1,17 @@
+-- Add the segment step column to cell_registry, the value is advanced by the step of the last segment.
+-- Stop-the-world upgrade: stop all the nodes, run this script, and then start the nodes of the new version.
+-- The old nodes advance the value by the requested step, they must not run together with the new ones,
+-- otherwise the segments overlap (duplicate sequences).
+-- The old nodes may have handed out a segment up to the max expansion step after the current value, replace 24000
+-- (the default of BufferConfiguration#expansionMaxStep) with the configured one, with the spring boot starter
+-- it's cell.specification.step * (1 << cell.buffer.expansion-step-elasticity-time).
+-- MySQL
+ALTER TABLE `cell_registry`
+    ADD COLUMN `segment_step` INT NULL COMMENT 'step of the last allocated segment' AFTER `step`
+;
+UPDATE `cell_registry` SET `segment_step` = GREATEST(`step`, 24000)
+;
+
+-- PostgreSQL
+-- ALTER TABLE cell_registry ADD COLUMN segment_step INT NULL;
+-- UPDATE cell_registry SET segment_step = GREATEST(step, 24000);